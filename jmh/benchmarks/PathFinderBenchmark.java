@@ -0,0 +1,110 @@
+package benchmarks;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmark of the PathFinder algorithms, built with mvn -Pjmh package
+ * Throughput and sampled latency percentiles per query; add -prof gc for the allocation rate
+ * Example: java -jar target/benchmarks.jar -p graph=grid -p size=100000 -p algorithm=dijkstra,alt -prof gc
+ * <p>
+ * JMH rejects benchmark classes in the default package, and a named package cannot import
+ * the default-package sources, so the graph, queries and algorithms are looked up reflectively
+ * once in setup; the measured call is the plain BiFunction from Benchmark.algorithms
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathFinderBenchmark {
+    /** turkey, grid, random or a graph file path */
+    @Param({"turkey", "grid", "random"})
+    public String graph;
+
+    /** Vertex count of synthetic graphs */
+    @Param({"10000"})
+    public int size;
+
+    /** Average out-degree of random graphs */
+    @Param({"4"})
+    public double degree;
+
+    /** pairs (Turkey only), uniform or local */
+    @Param({"uniform"})
+    public String queries;
+
+    @Param({"dfs", "modifiedDFS", "dijkstra", "bidirectional", "alt", "ch", "geo"})
+    public String algorithm;
+
+    private BiFunction<String, String, List<String>> search;
+    private String[][] pairs;
+    private int next;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setup() throws ReflectiveOperationException {
+        ClassLoader loader = PathFinderBenchmark.class.getClassLoader();
+        Class<?> indexedGraph = Class.forName("IndexedGraph", true, loader);
+        Class<?> pathFinderClass = Class.forName("PathFinder", true, loader);
+        Class<?> benchmark = Class.forName("Benchmark", true, loader);
+
+        Object built = declared(benchmark, "createGraph", String.class, int.class, double.class)
+                .invoke(null, graph, size, degree);
+        pairs = (String[][]) declared(benchmark, "createQueries", indexedGraph, String.class, Random.class)
+                .invoke(null, built, queries, new Random(42));
+        Object pathFinder = pathFinderClass.getConstructor(indexedGraph).newInstance(built);
+        pathFinderClass.getMethod("setVerbose", boolean.class).invoke(pathFinder, false);
+
+        if (algorithm.equals("alt")) {
+            Class<?> selection = Class.forName("Landmarks$Selection", true, loader);
+            pathFinderClass.getMethod("prepareLandmarks", int.class, selection)
+                    .invoke(pathFinder, 16, selection.getField("AVOID").get(null));
+        } else if (algorithm.equals("ch")) {
+            pathFinderClass.getMethod("prepareContractionHierarchy").invoke(pathFinder);
+        }
+
+        Map<String, BiFunction<String, String, List<String>>> algorithms =
+                (Map<String, BiFunction<String, String, List<String>>>)
+                        declared(benchmark, "algorithms", pathFinderClass).invoke(null, pathFinder);
+        search = algorithms.get(algorithm);
+        if (search == null) {
+            throw new IllegalArgumentException("Unknown algorithm: " + algorithm);
+        }
+    }
+
+    /**
+     * One query, cycling through the query pairs
+     */
+    @Benchmark
+    public List<String> query() {
+        String[] pair = pairs[next];
+        next = next + 1 == pairs.length ? 0 : next + 1;
+        return search.apply(pair[0], pair[1]);
+    }
+
+    private static Method declared(Class<?> type, String name, Class<?>... parameters)
+            throws NoSuchMethodException {
+        Method method = type.getDeclaredMethod(name, parameters);
+        method.setAccessible(true);
+        return method;
+    }
+}
@@ -0,0 +1,202 @@
+/**
+ * A* search with landmark lower bounds (ALT)
+ * The heap key of v is dist(s, v) + h(v), where h(v) is the best triangle
+ * inequality bound over the query's active landmarks. The bounds are
+ * consistent, so every vertex is settled once and the first time the
+ * target leaves the heap its distance is exact.
+ * Only the ACTIVE landmarks that bound dist(s, t) best are consulted per
+ * query, which keeps h cheap without losing much of its strength.
+ * Distances, predecessors and cached potentials live in a SearchWorkspace
+ * (potentials as its labels), so starting a query costs O(1).
+ * An engine is not thread-safe; use one per thread.
+ */
+public class AltSearch implements SearchCounters {
+    public static final int INFINITY = Integer.MAX_VALUE;
+    private static final int ACTIVE = 4;
+
+    private final IndexedGraph graph;
+    private final Landmarks landmarks;
+    private final SearchWorkspace workspace;   // label = h(v), -1 until first computed
+    private final int[] active = new int[ACTIVE];
+    private final int[] activeBound = new int[ACTIVE];
+    private int activeCount;
+    private int settledCount;
+    private int relaxedCount;
+    private int pushCount;
+
+    public AltSearch(IndexedGraph graph, Landmarks landmarks) {
+        this(graph, landmarks, new SearchWorkspace(graph.getCityCount()));
+    }
+
+    public AltSearch(IndexedGraph graph, Landmarks landmarks, SearchWorkspace workspace) {
+        this.graph = graph;
+        this.landmarks = landmarks;
+        this.workspace = workspace;
+    }
+
+    public IndexedGraph getGraph() {
+        return graph;
+    }
+
+    public Landmarks getLandmarks() {
+        return landmarks;
+    }
+
+    public SearchWorkspace getWorkspace() {
+        return workspace;
+    }
+
+    /**
+     * Shortest distance source -> target, or INFINITY if unreachable
+     */
+    public int search(int source, int target) {
+        SearchWorkspace ws = workspace;
+        IndexedHeap heap = ws.heap();
+        ws.reset();
+        settledCount = 0;
+        relaxedCount = 0;
+        pushCount = 1;
+        chooseActive(source, target);
+
+        ws.reach(source, 0, -1);
+        heap.insert(source, heuristic(source, target));
+
+        while (!heap.isEmpty()) {
+            int current = heap.poll();
+            settledCount++;
+
+            if (current == target)
+                break;
+
+            int currentDistance = ws.distance(current);
+            int degree = graph.degree(current);
+            relaxedCount += degree;
+            for (int i = 0; i < degree; i++) {
+                int neighbor = graph.target(current, i);
+                int newDist = currentDistance + graph.weight(current, i);
+
+                if (newDist < ws.distance(neighbor)) {
+                    int h = heuristic(neighbor, target);
+                    if (h == INFINITY) {
+                        continue; // neighbor cannot reach target
+                    }
+                    ws.reach(neighbor, newDist, current);
+                    heap.insertOrDecrease(neighbor, newDist + h);
+                    pushCount++;
+                }
+            }
+        }
+
+        return ws.distance(target);
+    }
+
+    /**
+     * Pick the landmarks with the best bound on dist(source, target)
+     */
+    private void chooseActive(int source, int target) {
+        int count = landmarks.getCount();
+        int[] bestBound = activeBound;
+        activeCount = 0;
+        for (int l = 0; l < count; l++) {
+            int b = bound(l, source, target);
+            if (b == INFINITY) {
+                b = 0;
+            }
+            int slot = activeCount < ACTIVE ? activeCount++ : ACTIVE;
+            while (slot > 0 && bestBound[slot - 1] < b) {
+                if (slot < ACTIVE) {
+                    bestBound[slot] = bestBound[slot - 1];
+                    active[slot] = active[slot - 1];
+                }
+                slot--;
+            }
+            if (slot < ACTIVE) {
+                bestBound[slot] = b;
+                active[slot] = l;
+            }
+        }
+    }
+
+    /**
+     * h(v): max over active landmarks, cached per vertex; INFINITY if v provably
+     * cannot reach target
+     */
+    private int heuristic(int v, int target) {
+        int h = workspace.label(v);
+        if (h >= 0) {
+            return h;
+        }
+        h = 0;
+        for (int a = 0; a < activeCount; a++) {
+            int b = bound(active[a], v, target);
+            if (b == INFINITY) {
+                h = INFINITY;
+                break;
+            }
+            h = Math.max(h, b);
+        }
+        workspace.setLabel(v, h);
+        return h;
+    }
+
+    /**
+     * Triangle-inequality bound on dist(v, t) from one landmark
+     * Terms whose distances are unknown are skipped, except that reaching
+     * the landmark from t but not from v proves v cannot reach t.
+     */
+    private int bound(int l, int v, int t) {
+        int result = 0;
+        int lt = landmarks.fromLandmark(l, t);
+        int lv = landmarks.fromLandmark(l, v);
+        if (lt != INFINITY && lv != INFINITY) {
+            result = lt - lv;
+        }
+        int tl = landmarks.toLandmark(l, t);
+        if (tl != INFINITY) {
+            int vl = landmarks.toLandmark(l, v);
+            if (vl == INFINITY) {
+                return INFINITY;
+            }
+            result = Math.max(result, vl - tl);
+        }
+        return result;
+    }
+
+    /**
+     * Number of vertices removed from the heap by the last search
+     */
+    @Override
+    public int getSettledCount() {
+        return settledCount;
+    }
+
+    @Override
+    public int getRelaxedCount() {
+        return relaxedCount;
+    }
+
+    @Override
+    public int getPushCount() {
+        return pushCount;
+    }
+
+    /**
+     * Path from the last source to target as city ids, empty if unreached
+     */
+    public int[] path(int target) {
+        if (workspace.distance(target) == INFINITY) {
+            return new int[0];
+        }
+
+        int length = 0;
+        for (int current = target; current != -1; current = workspace.previous(current)) {
+            length++;
+        }
+
+        int[] path = new int[length];
+        for (int current = target; current != -1; current = workspace.previous(current)) {
+            path[--length] = current;
+        }
+        return path;
+    }
+}
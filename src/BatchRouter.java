@@ -0,0 +1,163 @@
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Batch shortest-path queries, grouped by source and run in parallel
+ * Pairs sharing a source are answered by one Dijkstra search that stops
+ * once all of the group's goals are settled. Groups are independent tasks
+ * on an Executor (the common fork-join pool by default), and every group
+ * searches in a workspace pooled by its worker thread, so nothing is
+ * shared but the read-only graph.
+ * Results stream back in input order: route i is handed out as soon as
+ * its group is done. Groups are submitted in order of first appearance,
+ * so the head of the stream is ready early.
+ */
+public class BatchRouter {
+    private final IndexedGraph graph;
+    private final Executor executor;
+
+    public BatchRouter(IndexedGraph graph) {
+        this(graph, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Run groups on the given executor, e.g. a dedicated ForkJoinPool
+     */
+    public BatchRouter(IndexedGraph graph, Executor executor) {
+        this.graph = graph;
+        this.executor = executor;
+    }
+
+    public IndexedGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Route every {start, goal} pair and wait for all of them
+     */
+    public List<Route> route(List<String[]> pairs) {
+        List<Route> routes = new ArrayList<>(pairs.size());
+        stream(pairs).forEach(routes::add);
+        return routes;
+    }
+
+    /**
+     * Start routing every {start, goal} pair; the stream yields routes in
+     * input order, blocking only until the next one is ready.
+     * Unknown cities give an empty route.
+     */
+    public Stream<Route> stream(List<String[]> pairs) {
+        int count = pairs.size();
+        int[] sources = new int[count];
+        int[] targets = new int[count];
+        Route[] results = new Route[count];
+        for (int i = 0; i < count; i++) {
+            sources[i] = graph.getCityIndex(pairs.get(i)[0]);
+            targets[i] = graph.getCityIndex(pairs.get(i)[1]);
+            if (sources[i] < 0 || targets[i] < 0) {
+                results[i] = new Route(List.of(), Route.INFINITY);
+            }
+        }
+
+        // Group pair indices by source: sort (source, index) keys
+        long[] keys = new long[count];
+        int valid = 0;
+        for (int i = 0; i < count; i++) {
+            if (results[i] == null) {
+                keys[valid++] = ((long) sources[i] << 32) | i;
+            }
+        }
+        Arrays.sort(keys, 0, valid);
+        int[] order = new int[valid];
+        for (int i = 0; i < valid; i++) {
+            order[i] = (int) keys[i];
+        }
+
+        // Group boundaries, then submit groups by their first pair index
+        int[] groupStart = new int[valid + 1];
+        int groups = 0;
+        for (int i = 0; i < valid; i++) {
+            if (i == 0 || sources[order[i]] != sources[order[i - 1]]) {
+                groupStart[groups++] = i;
+            }
+        }
+        groupStart[groups] = valid;
+        long[] firstPair = new long[groups];
+        for (int g = 0; g < groups; g++) {
+            int first = Integer.MAX_VALUE;
+            for (int i = groupStart[g]; i < groupStart[g + 1]; i++) {
+                first = Math.min(first, order[i]);
+            }
+            firstPair[g] = ((long) first << 32) | g;
+        }
+        Arrays.sort(firstPair);
+
+        CompletableFuture<?>[] done = new CompletableFuture<?>[groups];
+        int[] groupOf = new int[count];
+        Arrays.fill(groupOf, -1);
+        for (int g = 0; g < groups; g++) {
+            for (int i = groupStart[g]; i < groupStart[g + 1]; i++) {
+                groupOf[order[i]] = g;
+            }
+        }
+        for (long key : firstPair) {
+            int g = (int) key;
+            int from = groupStart[g];
+            int to = groupStart[g + 1];
+            done[g] = CompletableFuture.runAsync(
+                    () -> run(order, from, to, sources, targets, results), executor);
+        }
+
+        Iterator<Route> iterator = new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < count;
+            }
+
+            @Override
+            public Route next() {
+                if (next >= count) {
+                    throw new NoSuchElementException();
+                }
+                int g = groupOf[next];
+                if (g >= 0) {
+                    done[g].join();
+                }
+                return results[next++];
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliterator(iterator, count,
+                Spliterator.ORDERED | Spliterator.SIZED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Answer the pairs order[from..to), which share one source
+     */
+    private void run(int[] order, int from, int to, int[] sources, int[] targets, Route[] results) {
+        try (SearchWorkspace workspace = SearchWorkspace.acquire(graph.getCityCount())) {
+            DijkstraSearch search = new DijkstraSearch(graph, workspace);
+            int source = sources[order[from]];
+            if (to - from == 1) {
+                search.search(source, targets[order[from]]);
+            } else {
+                int[] group = new int[to - from];
+                for (int i = from; i < to; i++) {
+                    group[i - from] = targets[order[i]];
+                }
+                search.search(source, group, group.length);
+            }
+
+            for (int i = from; i < to; i++) {
+                int target = targets[order[i]];
+                int[] ids = search.path(target);
+                results[order[i]] = new Route(graph.toNames(ids, ids.length), search.getDistance(target));
+            }
+        }
+    }
+}
@@ -0,0 +1,916 @@
+import java.io.IOException;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiFunction;
+
+/**
+ * Benchmark harness for the PathFinder algorithms
+ * Every algorithm gets warmup iterations before it is measured, runs with
+ * console output off, and is reported as throughput, latency percentiles
+ * and allocation per query.
+ *
+ * Usage: java Benchmark [key=value ...]
+ *   graph=turkey|grid|random|FILE  (default turkey; FILE is .gr, .csv or .spg)
+ *   size=N                     vertices for grid/random (default 100000)
+ *   degree=D                   average degree for random (default 4)
+ *   queries=pairs|uniform|local  query-pair distribution (default pairs on
+ *                              turkey, uniform otherwise)
+ *   algorithms=a,b,...         (default: all)
+ *   warmup=N iterations=N      iteration counts (default 5 and 10)
+ *   time=MS                    duration of one iteration (default 1000)
+ *   cache=N                    share a RouteCache of N entries (default off)
+ *   cacheWeight=W trees=BOOL   its weight bound (default 16M) and whether
+ *                              dijkstra reuses shortest-path trees
+ *   batch=N threads=T          also time BatchRouter on N pairs, serially
+ *                              and on T threads (default: all cores)
+ *   updates=N                  also time ConcurrentGraph commits of N edge
+ *                              updates each while dijkstra queries run
+ *   dynamic=N                  also time N edge changes repaired in a tracked
+ *                              shortest-path tree against full Dijkstra runs
+ *   containers=N               also time filling and draining N ids in the
+ *                              linked Stack/Queue and in IntStack/IntQueue
+ *   offheap=BOOL               copy the graph into an OffHeapGraph before
+ *                              running the algorithms (default false)
+ *   storage=N                  also compare the graph as Graph, CompactGraph
+ *                              and OffHeapGraph: retained old generation and
+ *                              direct memory, full GC pause, N Dijkstra queries
+ *   names=N                    also time exact and prefix lookups in a
+ *                              CityDictionary of N synthetic names against
+ *                              a HashMap
+ *   snap=N                     also time snapping N random positions to
+ *                              their nearest city with a KdTree, serially and
+ *                              in parallel, checked against a linear scan
+ *   metrics=BOOL jfr=BOOL      aggregate per-algorithm query metrics and
+ *                              print them; emit JFR events (default off)
+ */
+public class Benchmark {
+    private static final int QUERY_COUNT = 1024;
+    private static final int MAX_SAMPLES = 1 << 20;
+    private static final int YEN_K = 4;
+
+    private static long sink;
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                System.out.println("Ignoring argument without '=': " + arg);
+                continue;
+            }
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+
+        String graphType = options.getOrDefault("graph", "turkey");
+        int size = Integer.parseInt(options.getOrDefault("size", "100000"));
+        double degree = Double.parseDouble(options.getOrDefault("degree", "4"));
+        String distribution = options.getOrDefault("queries",
+                graphType.equals("turkey") ? "pairs" : "uniform");
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "5"));
+        int iterations = Integer.parseInt(options.getOrDefault("iterations", "10"));
+        long iterationNanos = Long.parseLong(options.getOrDefault("time", "1000")) * 1000000L;
+
+        long buildStart = System.nanoTime();
+        IndexedGraph graph = createGraph(graphType, size, degree);
+        if (Boolean.parseBoolean(options.getOrDefault("offheap", "false"))) {
+            graph = OffHeapGraph.copyOf(graph);
+        }
+        long buildTime = System.nanoTime() - buildStart;
+
+        System.out.println("========== BENCHMARK ==========");
+        System.out.printf("Graph: %s, %d vertices, %d arcs (built in %.1f ms)%n",
+                graphType, graph.getCityCount(), graph.getEdgeCount(), buildTime / 1000000.0);
+        System.out.println("Queries: " + distribution + ", warmup " + warmup
+                + " x " + (iterationNanos / 1000000) + " ms, measurement " + iterations
+                + " x " + (iterationNanos / 1000000) + " ms");
+
+        String[][] queries = createQueries(graph, distribution, new Random(42));
+        PathFinder pathFinder = new PathFinder(graph);
+        pathFinder.setVerbose(false);
+        if (options.containsKey("cache")) {
+            pathFinder.setRouteCache(new RouteCache(Integer.parseInt(options.get("cache")),
+                    Long.parseLong(options.getOrDefault("cacheWeight", "16777216")),
+                    Boolean.parseBoolean(options.getOrDefault("trees", "false"))));
+        }
+
+        MetricsRegistry metrics = null;
+        if (Boolean.parseBoolean(options.getOrDefault("metrics", "false"))) {
+            metrics = new MetricsRegistry();
+            pathFinder.addSink(metrics);
+        }
+        if (Boolean.parseBoolean(options.getOrDefault("jfr", "false"))) {
+            pathFinder.addSink(new JfrSink());
+        }
+
+        Map<String, BiFunction<String, String, List<String>>> algorithms = algorithms(pathFinder);
+        List<String> selected = new ArrayList<>();
+        if (options.containsKey("algorithms")) {
+            selected.addAll(Arrays.asList(options.get("algorithms").split(",")));
+        } else {
+            selected.addAll(algorithms.keySet());
+        }
+
+        if (selected.contains("alt")) {
+            long preprocessStart = System.nanoTime();
+            pathFinder.prepareLandmarks(16, Landmarks.Selection.AVOID);
+            System.out.printf("ALT preprocessing (16 landmarks): %.1f ms%n",
+                    (System.nanoTime() - preprocessStart) / 1000000.0);
+        }
+        if (selected.contains("ch")) {
+            long preprocessStart = System.nanoTime();
+            pathFinder.prepareContractionHierarchy();
+            System.out.printf("CH preprocessing: %.1f ms%n",
+                    (System.nanoTime() - preprocessStart) / 1000000.0);
+        }
+
+        System.out.println("+----------------+--------------+-----------+-----------+-----------+-----------+-------------+------+");
+        System.out.println("| Algorithm      | ops/s        | p50 (us)  | p90 (us)  | p99 (us)  | p99.9 (us)| alloc B/op  | GCs  |");
+        System.out.println("+----------------+--------------+-----------+-----------+-----------+-----------+-------------+------+");
+        for (String name : selected) {
+            BiFunction<String, String, List<String>> algorithm = algorithms.get(name);
+            if (algorithm == null) {
+                System.out.println("Unknown algorithm: " + name);
+                continue;
+            }
+            Result result = measure(algorithm, queries, warmup, iterations, iterationNanos);
+            System.out.printf("| %-14s | %12.1f | %9.2f | %9.2f | %9.2f | %9.2f | %11d | %4d |%n",
+                    name, result.throughput,
+                    result.percentile(0.50) / 1000.0, result.percentile(0.90) / 1000.0,
+                    result.percentile(0.99) / 1000.0, result.percentile(0.999) / 1000.0,
+                    result.allocatedPerOp, result.gcCount);
+        }
+        System.out.println("+----------------+--------------+-----------+-----------+-----------+-----------+-------------+------+");
+        if (metrics != null) {
+            System.out.println(metrics);
+        }
+        if (options.containsKey("batch")) {
+            int threads = Integer.parseInt(options.getOrDefault("threads",
+                    Integer.toString(Runtime.getRuntime().availableProcessors())));
+            measureBatch(graph, queries, Integer.parseInt(options.get("batch")), threads,
+                    warmup, iterations);
+        }
+        if (options.containsKey("updates")) {
+            measureUpdates(graph, queries, Integer.parseInt(options.get("updates")),
+                    iterations * iterationNanos);
+        }
+        if (options.containsKey("dynamic")) {
+            measureDynamic(graph, Integer.parseInt(options.get("dynamic")));
+        }
+        if (options.containsKey("containers")) {
+            measureContainers(Integer.parseInt(options.get("containers")), warmup, iterations,
+                    iterationNanos);
+        }
+        if (Boolean.parseBoolean(options.getOrDefault("queues", "false"))) {
+            measureQueues(graph, queries, warmup, iterations, iterationNanos);
+        }
+        if (options.containsKey("table")) {
+            measureTable(graph, Integer.parseInt(options.get("table")));
+        }
+        if (options.containsKey("sssp")) {
+            int threads = Integer.parseInt(options.getOrDefault("threads",
+                    Integer.toString(Runtime.getRuntime().availableProcessors())));
+            int delta = Integer.parseInt(options.getOrDefault("delta",
+                    Integer.toString(DeltaStepping.defaultDelta(graph))));
+            measureSingleSource(graph, Integer.parseInt(options.get("sssp")), delta, threads, warmup);
+        }
+        if (options.containsKey("storage")) {
+            measureStorage(graph, Integer.parseInt(options.get("storage")));
+        }
+        if (options.containsKey("names")) {
+            measureNames(Integer.parseInt(options.get("names")), warmup);
+        }
+        if (options.containsKey("snap")) {
+            measureSnap(graph, Integer.parseInt(options.get("snap")), warmup);
+        }
+        if (pathFinder.getRouteCache() != null) {
+            System.out.println(pathFinder.getRouteCache());
+        }
+        System.out.println("(sink " + sink + ")");
+    }
+
+    /**
+     * Algorithms under test, by name
+     */
+    static Map<String, BiFunction<String, String, List<String>>> algorithms(PathFinder pathFinder) {
+        Map<String, BiFunction<String, String, List<String>>> algorithms = new LinkedHashMap<>();
+        algorithms.put("dfs", pathFinder::dfs);
+        algorithms.put("bfs", pathFinder::bfs);
+        algorithms.put("modifiedDFS", pathFinder::modifiedDFS);
+        algorithms.put("dijkstra", pathFinder::dijkstra);
+        algorithms.put("bidirectional", pathFinder::bidirectionalDijkstra);
+        algorithms.put("alt", pathFinder::alt);
+        algorithms.put("ch", pathFinder::contractionHierarchy);
+        algorithms.put("geo", pathFinder::geometricAStar);
+        // Best of YEN_K ranked paths; the time covers all of them
+        algorithms.put("yen", (start, goal) -> {
+            List<Route> routes = pathFinder.kShortestPaths(start, goal, YEN_K);
+            return routes.isEmpty() ? List.of() : routes.get(0).getPath();
+        });
+        return algorithms;
+    }
+
+    static IndexedGraph createGraph(String type, int size, double degree) throws IOException {
+        switch (type) {
+            case "turkey":
+                return Main.createGraph().freeze();
+            case "grid":
+                return GraphGenerator.grid((int) Math.ceil(Math.sqrt(size)), 1);
+            case "random":
+                return GraphGenerator.random(size, degree, 1);
+            default:
+                return GraphLoader.load(Path.of(type), null);
+        }
+    }
+
+    /**
+     * Query pairs as city names
+     * pairs: the 8 comparative-analysis pairs (Turkey graph only)
+     * uniform: independent uniform start and goal
+     * local: goal at the end of a short random walk from start
+     */
+    static String[][] createQueries(IndexedGraph graph, String distribution, Random random) {
+        if (distribution.equals("pairs")) {
+            return new String[][] {
+                    { "Istanbul", "Diyarbakir" }, { "Izmir", "Trabzon" },
+                    { "Bursa", "Batman" }, { "Adana", "Denizli" },
+                    { "Gaziantep", "Samsun" }, { "Konya", "Malatya" },
+                    { "Antalya", "Urfa" }, { "Mersin", "Kayseri" }
+            };
+        }
+
+        int n = graph.getCityCount();
+        String[][] queries = new String[QUERY_COUNT][];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            int start = random.nextInt(n);
+            int goal;
+            if (distribution.equals("uniform")) {
+                goal = random.nextInt(n);
+            } else if (distribution.equals("local")) {
+                goal = start;
+                for (int hops = 2 + random.nextInt(9); hops > 0 && graph.degree(goal) > 0; hops--) {
+                    goal = graph.target(goal, random.nextInt(graph.degree(goal)));
+                }
+            } else {
+                throw new IllegalArgumentException("Unknown query distribution: " + distribution);
+            }
+            queries[i] = new String[] { graph.getCityName(start), graph.getCityName(goal) };
+        }
+        return queries;
+    }
+
+    private static Result measure(BiFunction<String, String, List<String>> algorithm,
+            String[][] queries, int warmup, int iterations, long iterationNanos) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+
+        for (int i = 0; i < warmup; i++) {
+            runIteration(algorithm, queries, iterationNanos, null, 0);
+        }
+
+        long[] samples = new long[MAX_SAMPLES];
+        int sampleCount = 0;
+        long operations = 0;
+        long elapsed = 0;
+        long gcBefore = gcCount();
+        long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < iterations; i++) {
+            long iterationStart = System.nanoTime();
+            int done = runIteration(algorithm, queries, iterationNanos, samples, sampleCount);
+            elapsed += System.nanoTime() - iterationStart;
+            operations += done;
+            sampleCount = Math.min(MAX_SAMPLES, sampleCount + done);
+        }
+        long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+
+        Result result = new Result();
+        result.throughput = operations * 1e9 / elapsed;
+        result.samples = Arrays.copyOf(samples, sampleCount);
+        Arrays.sort(result.samples);
+        result.allocatedPerOp = allocated / Math.max(1, operations);
+        result.gcCount = gcCount() - gcBefore;
+        return result;
+    }
+
+    /**
+     * Run queries round-robin for the given time; returns the number run
+     */
+    private static int runIteration(BiFunction<String, String, List<String>> algorithm,
+            String[][] queries, long iterationNanos, long[] samples, int sampleOffset) {
+        long deadline = System.nanoTime() + iterationNanos;
+        int done = 0;
+        long now = System.nanoTime();
+        while (now < deadline) {
+            String[] query = queries[done % queries.length];
+            sink += algorithm.apply(query[0], query[1]).size();
+            long end = System.nanoTime();
+            if (samples != null && sampleOffset + done < samples.length) {
+                samples[sampleOffset + done] = end - now;
+            }
+            now = end;
+            done++;
+        }
+        return done;
+    }
+
+    /**
+     * Routes per second of whole batches, on one thread and on a pool
+     */
+    private static void measureBatch(IndexedGraph graph, String[][] queries, int size, int threads,
+            int warmup, int iterations) {
+        List<String[]> pairs = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            pairs.add(queries[i % queries.length]);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        BatchRouter serial = new BatchRouter(graph, Runnable::run);
+        BatchRouter parallel = new BatchRouter(graph, pool);
+        System.out.println("\nBatch of " + size + " pairs:");
+        for (BatchRouter router : new BatchRouter[] { serial, parallel }) {
+            for (int i = 0; i < warmup; i++) {
+                sink += router.route(pairs).size();
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                sink += router.route(pairs).size();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("  %-18s %12.1f routes/s%n",
+                    router == serial ? "1 thread" : threads + " threads", (double) size * iterations / seconds);
+        }
+        pool.shutdown();
+    }
+
+    /**
+     * Update throughput of a ConcurrentGraph (one writer committing batches
+     * of random distance changes) and query throughput of a reader running
+     * dijkstra on its snapshots at the same time
+     */
+    private static void measureUpdates(IndexedGraph graph, String[][] queries, int batchSize,
+            long durationNanos) {
+        ConcurrentGraph concurrent = ConcurrentGraph.of(graph);
+        PathFinder reader = new PathFinder(concurrent);
+        reader.setVerbose(false);
+        long deadline = System.nanoTime() + durationNanos;
+
+        Thread writer = new Thread(() -> {
+            Random random = new Random(7);
+            int n = graph.getCityCount();
+            while (System.nanoTime() < deadline) {
+                ConcurrentGraph.Batch batch = concurrent.batch();
+                for (int i = 0; i < batchSize; i++) {
+                    int city = random.nextInt(n);
+                    if (graph.degree(city) > 0) {
+                        int neighbor = graph.target(city, random.nextInt(graph.degree(city)));
+                        batch.setDistance(graph.getCityName(city), graph.getCityName(neighbor),
+                                10 + random.nextInt(91));
+                    }
+                }
+                batch.commit();
+            }
+        });
+
+        long start = System.nanoTime();
+        writer.start();
+        long queriesRun = 0;
+        long slowest = 0;
+        while (System.nanoTime() < deadline) {
+            String[] query = queries[(int) (queriesRun % queries.length)];
+            long queryStart = System.nanoTime();
+            sink += reader.dijkstra(query[0], query[1]).size();
+            slowest = Math.max(slowest, System.nanoTime() - queryStart);
+            queriesRun++;
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println("\nConcurrent updates (batches of " + batchSize + "):");
+        System.out.printf("  commits     %12.1f /s%n", concurrent.getCommitCount() / seconds);
+        System.out.printf("  mutations   %12.1f /s%n", concurrent.getMutationCount() / seconds);
+        System.out.printf("  queries     %12.1f /s (slowest %.1f us)%n", queriesRun / seconds,
+                slowest / 1000.0);
+    }
+
+    /**
+     * Dijkstra on the comparison heap against the monotone integer queue
+     * DijkstraSearch picks for this graph, checking both return the same
+     * distance and path for every query
+     */
+    private static void measureQueues(IndexedGraph graph, String[][] queries, int warmup,
+            int iterations, long iterationNanos) {
+        int n = graph.getCityCount();
+        DijkstraSearch heap = new DijkstraSearch(graph, new SearchWorkspace(n), false);
+        DijkstraSearch monotone = new DijkstraSearch(graph, new SearchWorkspace(n), true);
+        int mismatches = 0;
+        for (String[] query : queries) {
+            int source = graph.getCityIndex(query[0]);
+            int target = graph.getCityIndex(query[1]);
+            if (heap.search(source, target) != monotone.search(source, target)
+                    || !Arrays.equals(heap.path(target), monotone.path(target))) {
+                mismatches++;
+            }
+        }
+
+        System.out.println("\nDijkstra queues (auto-selected: "
+                + (DijkstraSearch.prefersMonotoneQueue(graph) ? "monotone" : "heap") + "):");
+        for (DijkstraSearch search : new DijkstraSearch[] { heap, monotone }) {
+            Result result = measure((start, goal) -> {
+                sink += search.search(graph.getCityIndex(start), graph.getCityIndex(goal));
+                return List.of();
+            }, queries, warmup, iterations, iterationNanos);
+            System.out.printf("  %-10s %12.1f ops/s  p50 %9.2f us  p99 %9.2f us%n",
+                    search == heap ? "heap" : "monotone", result.throughput,
+                    result.percentile(0.50) / 1000.0, result.percentile(0.99) / 1000.0);
+        }
+        System.out.println("  distance/path mismatches: " + mismatches);
+    }
+
+    /**
+     * One size x size many-to-many table between random cities, by
+     * multi-target Dijkstra and by CH buckets, checking they agree
+     */
+    private static void measureTable(IndexedGraph graph, int size) {
+        Random random = new Random(13);
+        int[] sources = random.ints(size, 0, graph.getCityCount()).toArray();
+        int[] targets = random.ints(size, 0, graph.getCityCount()).toArray();
+
+        long start = System.nanoTime();
+        ContractionHierarchy hierarchy = ContractionHierarchy.build(graph);
+        long preprocessTime = System.nanoTime() - start;
+
+        System.out.println("\nDistance table " + size + " x " + size + ":");
+        start = System.nanoTime();
+        DistanceTable dijkstra = DistanceTable.compute(graph, sources, targets);
+        System.out.printf("  %-22s %10.1f ms%n", "dijkstra", (System.nanoTime() - start) / 1e6);
+        for (int round = 0; round < 2; round++) {
+            start = System.nanoTime();
+            DistanceTable buckets = DistanceTable.compute(hierarchy, sources, targets);
+            long time = System.nanoTime() - start;
+            if (round == 1) {
+                System.out.printf("  %-22s %10.1f ms (preprocessing %.1f ms)%n", "ch buckets",
+                        time / 1e6, preprocessTime / 1e6);
+                int mismatches = 0;
+                for (int i = 0; i < dijkstra.getDistances().length; i++) {
+                    if (dijkstra.getDistances()[i] != buckets.getDistances()[i]) {
+                        mismatches++;
+                    }
+                }
+                System.out.println("  mismatches: " + mismatches);
+            }
+        }
+    }
+
+    /**
+     * Name resolution over N random place names: dictionary build, exact
+     * lookups of equal (not identical) strings against a HashMap, and
+     * 3-letter prefix queries of up to 10 results
+     */
+    private static void measureNames(int count, int warmup) {
+        Random random = new Random(19);
+        Set<String> unique = new HashSet<>();
+        StringBuilder name = new StringBuilder();
+        while (unique.size() < count) {
+            name.setLength(0);
+            name.append((char) ('A' + random.nextInt(26)));
+            for (int length = 4 + random.nextInt(10); length > 0; length--) {
+                name.append((char) ('a' + random.nextInt(26)));
+            }
+            unique.add(name.toString());
+        }
+        String[] names = unique.toArray(new String[0]);
+        for (String n : names) {
+            sink += n.hashCode(); // cached from here on, for both builds alike
+        }
+        int lookups = 1 << 20;
+        String[] keys = new String[lookups];
+        String[] prefixes = new String[lookups / 16];
+        for (int i = 0; i < lookups; i++) {
+            String key = names[random.nextInt(count)];
+            keys[i] = new String(key.toCharArray());
+            keys[i].hashCode();
+            if (i < prefixes.length) {
+                prefixes[i] = key.substring(0, 3);
+            }
+        }
+
+        long start = System.nanoTime();
+        CityDictionary dictionary = CityDictionary.of(names);
+        long dictionaryBuild = System.nanoTime() - start;
+        start = System.nanoTime();
+        dictionary.withPrefix("", 0);
+        long prefixSort = System.nanoTime() - start;
+        start = System.nanoTime();
+        Map<String, Integer> map = new HashMap<>(count * 2);
+        for (int id = 0; id < count; id++) {
+            map.put(names[id], id);
+        }
+        long mapBuild = System.nanoTime() - start;
+
+        long dictionaryTime = 0;
+        long mapTime = 0;
+        long prefixTime = 0;
+        for (int round = 0; round <= warmup; round++) {
+            start = System.nanoTime();
+            for (String key : keys) {
+                sink += dictionary.getId(key);
+            }
+            dictionaryTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (String key : keys) {
+                sink += map.get(key);
+            }
+            mapTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (String prefix : prefixes) {
+                sink += dictionary.withPrefix(prefix, 10).length;
+            }
+            prefixTime = System.nanoTime() - start;
+        }
+
+        int mismatches = 0;
+        for (String key : keys) {
+            if (dictionary.getId(key) != map.get(key)) {
+                mismatches++;
+            }
+        }
+        System.out.printf("%nName lookups over %d names:%n", count);
+        System.out.printf("  %-22s %10.1f ms build %8.1f ns/lookup%n", "dictionary",
+                dictionaryBuild / 1e6, (double) dictionaryTime / lookups);
+        System.out.printf("  %-22s %10.1f ms build %8.1f ns/lookup%n", "HashMap",
+                mapBuild / 1e6, (double) mapTime / lookups);
+        System.out.printf("  %-22s %10.1f ms sort  %8.1f ns/query%n", "prefix (10 results)",
+                prefixSort / 1e6, (double) prefixTime / prefixes.length);
+        System.out.println("  mismatches: " + mismatches);
+    }
+
+    /**
+     * Nearest-city lookups for random positions in the graph's bounding box,
+     * one at a time and as one parallel batch; a sample is checked against
+     * a linear scan over all cities
+     */
+    private static void measureSnap(IndexedGraph graph, int count, int warmup) {
+        if (!graph.hasCoordinates()) {
+            System.out.println("\nSnapping: the graph has no coordinates");
+            return;
+        }
+        int n = graph.getCityCount();
+        double minLatitude = Double.POSITIVE_INFINITY;
+        double maxLatitude = Double.NEGATIVE_INFINITY;
+        double minLongitude = Double.POSITIVE_INFINITY;
+        double maxLongitude = Double.NEGATIVE_INFINITY;
+        for (int v = 0; v < n; v++) {
+            minLatitude = Math.min(minLatitude, graph.getLatitude(v));
+            maxLatitude = Math.max(maxLatitude, graph.getLatitude(v));
+            minLongitude = Math.min(minLongitude, graph.getLongitude(v));
+            maxLongitude = Math.max(maxLongitude, graph.getLongitude(v));
+        }
+        Random random = new Random(17);
+        double[] latitudes = new double[count];
+        double[] longitudes = new double[count];
+        for (int i = 0; i < count; i++) {
+            latitudes[i] = minLatitude + random.nextDouble() * (maxLatitude - minLatitude);
+            longitudes[i] = minLongitude + random.nextDouble() * (maxLongitude - minLongitude);
+        }
+
+        long start = System.nanoTime();
+        KdTree tree = KdTree.build(graph);
+        System.out.printf("%nSnapping %d positions (k-d tree built in %.1f ms):%n", count,
+                (System.nanoTime() - start) / 1e6);
+        long serialTime = 0;
+        long parallelTime = 0;
+        int[] snapped = null;
+        for (int round = 0; round <= warmup; round++) {
+            start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                sink += tree.nearest(latitudes[i], longitudes[i]);
+            }
+            serialTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            snapped = tree.nearest(latitudes, longitudes);
+            parallelTime = System.nanoTime() - start;
+        }
+        System.out.printf("  %-22s %10.1f ms %14.0f snaps/min%n", "serial",
+                serialTime / 1e6, count * 60e9 / serialTime);
+        System.out.printf("  %-22s %10.1f ms %14.0f snaps/min%n", "parallel",
+                parallelTime / 1e6, count * 60e9 / parallelTime);
+
+        // A different city at the same distance is a tie, not a mismatch
+        int checked = Math.min(count, Math.max(1, 100000000 / Math.max(1, n)));
+        int mismatches = 0;
+        for (int i = 0; i < checked; i++) {
+            double best = Double.POSITIVE_INFINITY;
+            for (int v = 0; v < n; v++) {
+                best = Math.min(best, KdTree.haversine(latitudes[i], longitudes[i],
+                        graph.getLatitude(v), graph.getLongitude(v)));
+            }
+            int city = snapped[i];
+            double found = KdTree.haversine(latitudes[i], longitudes[i],
+                    graph.getLatitude(city), graph.getLongitude(city));
+            if (found > best + 1e-6) {
+                mismatches++;
+            }
+        }
+        System.out.println("  mismatches: " + mismatches + " of " + checked + " checked");
+    }
+
+    /**
+     * Full single-source searches: sequential Dijkstra against delta-stepping
+     * on one thread and on the given number of threads, checking that all
+     * three agree on every distance
+     */
+    private static void measureSingleSource(IndexedGraph graph, int sources, int delta, int threads,
+            int warmup) {
+        int n = graph.getCityCount();
+        int[] roots = new Random(11).ints(sources, 0, n).toArray();
+        DijkstraSearch dijkstra = new DijkstraSearch(graph);
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        DeltaStepping serial = new DeltaStepping(graph, delta, single);
+        DeltaStepping parallel = new DeltaStepping(graph, delta, pool);
+
+        System.out.println("\nSingle-source searches (" + sources + " sources, delta "
+                + parallel.getDelta() + "):");
+        long mismatches = 0;
+        for (int round = 0; round <= warmup; round++) {
+            boolean measured = round == warmup;
+            long dijkstraTime = 0;
+            long serialTime = 0;
+            long parallelTime = 0;
+            for (int source : roots) {
+                long start = System.nanoTime();
+                dijkstra.search(source, -1);
+                dijkstraTime += System.nanoTime() - start;
+
+                start = System.nanoTime();
+                serial.search(source);
+                serialTime += System.nanoTime() - start;
+
+                start = System.nanoTime();
+                parallel.search(source);
+                parallelTime += System.nanoTime() - start;
+
+                if (measured) {
+                    for (int v = 0; v < n; v++) {
+                        int expected = dijkstra.getDistance(v);
+                        if (serial.getDistance(v) != expected || parallel.getDistance(v) != expected) {
+                            mismatches++;
+                        }
+                    }
+                }
+            }
+            if (measured) {
+                System.out.printf("  %-22s %10.2f ms/search%n", "dijkstra",
+                        dijkstraTime / 1e6 / sources);
+                System.out.printf("  %-22s %10.2f ms/search%n", "delta-stepping 1 thread",
+                        serialTime / 1e6 / sources);
+                System.out.printf("  %-22s %10.2f ms/search (%.2fx over 1 thread)%n",
+                        "delta-stepping " + threads + " thr", parallelTime / 1e6 / sources,
+                        (double) serialTime / parallelTime);
+                System.out.println("  distance mismatches: " + mismatches);
+            }
+        }
+        single.shutdown();
+        pool.shutdown();
+    }
+
+    /**
+     * Average cost of repairing a tracked shortest-path tree after a random
+     * edge change, compared with recomputing it by a full Dijkstra
+     */
+    private static void measureDynamic(IndexedGraph graph, int changes) {
+        Graph editable = toGraph(graph);
+        int n = graph.getCityCount();
+        DynamicShortestPathTree tree = editable.track(graph.getCityName(0));
+        DijkstraSearch search = new DijkstraSearch(editable.live());
+
+        Random random = new Random(7);
+        long repairTime = 0;
+        long fullTime = 0;
+        int applied = 0;
+        while (applied < changes) {
+            int city = random.nextInt(n);
+            if (graph.degree(city) == 0) {
+                continue;
+            }
+            int i = random.nextInt(graph.degree(city));
+            String from = graph.getCityName(city);
+            String to = graph.getCityName(graph.target(city, i));
+            int weight = Math.max(1, graph.weight(city, i) / 2 + random.nextInt(graph.weight(city, i) + 1));
+
+            long start = System.nanoTime();
+            editable.setDistance(from, to, weight);
+            repairTime += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            search.search(0, -1);
+            fullTime += System.nanoTime() - start;
+            sink += search.getDistance(n - 1) + tree.getDistance(n - 1);
+            applied++;
+        }
+
+        System.out.println("\nDynamic shortest-path tree (" + changes + " changes):");
+        System.out.printf("  repair      %12.2f us/change (%.1f vertices re-settled)%n",
+                repairTime / 1000.0 / changes, (double) tree.getRepairedCount() / changes);
+        System.out.printf("  recompute   %12.2f us/change (%d vertices)%n",
+                fullTime / 1000.0 / changes, n);
+    }
+
+    /**
+     * Throughput and allocation of the linked containers against the
+     * array-backed int ones; one operation is one push/pop or enqueue/dequeue
+     */
+    private static void measureContainers(int size, int warmup, int iterations, long iterationNanos) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        Stack<Integer> stack = new Stack<>();
+        Queue<Integer> queue = new Queue<>();
+        IntStack intStack = new IntStack();
+        IntQueue intQueue = new IntQueue();
+
+        Map<String, Runnable> rounds = new LinkedHashMap<>();
+        rounds.put("Stack", () -> {
+            for (int i = 0; i < size; i++) {
+                stack.push(i);
+            }
+            while (!stack.isEmpty()) {
+                sink += stack.pop();
+            }
+        });
+        rounds.put("IntStack", () -> {
+            for (int i = 0; i < size; i++) {
+                intStack.push(i);
+            }
+            while (!intStack.isEmpty()) {
+                sink += intStack.pop();
+            }
+        });
+        rounds.put("Queue", () -> {
+            for (int i = 0; i < size; i++) {
+                queue.enqueue(i);
+            }
+            while (!queue.isEmpty()) {
+                sink += queue.dequeue();
+            }
+        });
+        rounds.put("IntQueue", () -> {
+            for (int i = 0; i < size; i++) {
+                intQueue.enqueue(i);
+            }
+            while (!intQueue.isEmpty()) {
+                sink += intQueue.dequeue();
+            }
+        });
+
+        System.out.println("\nContainers (" + size + " ids per round):");
+        for (Map.Entry<String, Runnable> round : rounds.entrySet()) {
+            for (int i = 0; i < warmup; i++) {
+                long deadline = System.nanoTime() + iterationNanos;
+                while (System.nanoTime() < deadline) {
+                    round.getValue().run();
+                }
+            }
+            long roundsRun = 0;
+            long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+            long start = System.nanoTime();
+            long deadline = start + iterations * iterationNanos;
+            while (System.nanoTime() < deadline) {
+                round.getValue().run();
+                roundsRun++;
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+            long operations = roundsRun * size;
+            System.out.printf("  %-10s %14.1f ops/s %8.1f B/op%n", round.getKey(),
+                    operations / seconds, (double) allocated / Math.max(1, operations));
+        }
+    }
+
+    /**
+     * Mutable Graph with the edges of an undirected graph
+     */
+    private static Graph toGraph(IndexedGraph graph) {
+        Graph editable = new Graph();
+        int n = graph.getCityCount();
+        for (int city = 0; city < n; city++) {
+            editable.addCity(graph.getCityName(city));
+        }
+        for (int city = 0; city < n; city++) {
+            for (int i = 0, degree = graph.degree(city); i < degree; i++) {
+                int neighbor = graph.target(city, i);
+                if (city < neighbor) {
+                    editable.addEdge(graph.getCityName(city), graph.getCityName(neighbor),
+                            graph.weight(city, i));
+                }
+            }
+        }
+        return editable;
+    }
+
+    /**
+     * The same graph as an object-per-edge Graph, an on-heap CompactGraph
+     * and an OffHeapGraph, each alone in memory: old generation and direct
+     * memory retained after a full collection, the pause of a full
+     * collection, and Dijkstra queries per second on it
+     */
+    private static void measureStorage(IndexedGraph graph, int queries) {
+        Random random = new Random(23);
+        int n = graph.getCityCount();
+        int[] pairs = random.ints(2 * queries, 0, n).toArray();
+
+        System.out.println("\nGraph storage (" + queries + " Dijkstra queries each):");
+        System.out.printf("  %-20s %12s %12s %14s %12s%n", "storage", "old gen MB", "direct MB",
+                "full GC ms", "queries/s");
+        long[] baseline = retained();
+        Graph editable = toGraph(graph);
+        storageRow("Graph (List<Edge>)", editable.live(), baseline, pairs);
+        CompactGraph compact = editable.freeze();
+        editable = null;
+        storageRow("CompactGraph", compact, baseline, pairs);
+        OffHeapGraph offHeap = OffHeapGraph.copyOf(compact);
+        compact = null;
+        storageRow("OffHeapGraph", offHeap, baseline, pairs);
+        sink += offHeap.getEdgeCount();
+    }
+
+    private static void storageRow(String name, IndexedGraph graph, long[] baseline, int[] pairs) {
+        long[] memory = retained();
+        long pauses = 0;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            System.gc();
+            pauses += System.nanoTime() - start;
+        }
+
+        DijkstraSearch search = new DijkstraSearch(graph);
+        long start = System.nanoTime();
+        for (int i = 0; i < pairs.length; i += 2) {
+            sink += search.search(pairs[i], pairs[i + 1]);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("  %-20s %12.1f %12.1f %14.1f %12.1f%n", name,
+                (memory[0] - baseline[0]) / 1048576.0, (memory[1] - baseline[1]) / 1048576.0,
+                pauses / 3e6, pairs.length / 2 / seconds);
+    }
+
+    /**
+     * Old generation (the whole heap if no pool is named so) and direct
+     * buffer bytes in use after a full collection
+     */
+    private static long[] retained() {
+        System.gc();
+        System.gc();
+        long oldGen = -1;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            String poolName = pool.getName();
+            if (poolName.contains("Old Gen") || poolName.contains("Tenured")) {
+                oldGen = pool.getUsage().getUsed();
+            }
+        }
+        if (oldGen < 0) {
+            oldGen = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        }
+        long direct = 0;
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (pool.getName().equals("direct")) {
+                direct = pool.getMemoryUsed();
+            }
+        }
+        return new long[] { oldGen, direct };
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static class Result {
+        double throughput;
+        long[] samples;
+        long allocatedPerOp;
+        long gcCount;
+
+        long percentile(double p) {
+            if (samples.length == 0) {
+                return 0;
+            }
+            return samples[Math.min(samples.length - 1, (int) (p * samples.length))];
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/**
+ * Bidirectional Dijkstra for point-to-point queries
+ * A forward search from the source on the graph and a backward search from
+ * the target on its reverse alternate, always expanding the side with the
+ * smaller queue minimum. Every relaxed edge that touches the other side's
+ * ball updates mu, the best s-t distance seen so far.
+ * Stopping criterion: once minForward + minBackward >= mu no undiscovered
+ * path can be shorter, and mu is the shortest distance. The path is spliced
+ * at the meeting vertex from the two predecessor chains.
+ * Each side keeps its state in its own SearchWorkspace, reset in O(1).
+ * An engine is not thread-safe; use one per thread.
+ * Time Complexity: O((V + E) log V), typically about half the settled
+ * vertices of unidirectional Dijkstra on road-like graphs
+ */
+public class BidirectionalDijkstra implements SearchCounters {
+    public static final int INFINITY = Integer.MAX_VALUE;
+
+    private final IndexedGraph graph;
+    private final IndexedGraph reverse;
+    private final SearchWorkspace forward;    // previous = predecessor
+    private final SearchWorkspace backward;   // previous = successor towards the target
+    private int meeting;
+    private int settledCount;
+    private int relaxedCount;
+    private int pushCount;
+
+    public BidirectionalDijkstra(IndexedGraph graph) {
+        this(graph, new SearchWorkspace(graph.getCityCount()), new SearchWorkspace(graph.getCityCount()));
+    }
+
+    public BidirectionalDijkstra(IndexedGraph graph, SearchWorkspace forward, SearchWorkspace backward) {
+        this.graph = graph;
+        this.reverse = graph.reverse();
+        this.forward = forward;
+        this.backward = backward;
+    }
+
+    public IndexedGraph getGraph() {
+        return graph;
+    }
+
+    public SearchWorkspace getForwardWorkspace() {
+        return forward;
+    }
+
+    public SearchWorkspace getBackwardWorkspace() {
+        return backward;
+    }
+
+    /**
+     * Shortest distance source -> target, or INFINITY if unreachable
+     */
+    public int search(int source, int target) {
+        forward.reset();
+        backward.reset();
+        IndexedHeap forwardHeap = forward.heap();
+        IndexedHeap backwardHeap = backward.heap();
+        settledCount = 0;
+        relaxedCount = 0;
+        pushCount = 2;
+
+        forward.reach(source, 0, -1);
+        backward.reach(target, 0, -1);
+        forwardHeap.insert(source, 0);
+        backwardHeap.insert(target, 0);
+        int best = source == target ? 0 : INFINITY;
+        meeting = source == target ? source : -1;
+
+        while (!forwardHeap.isEmpty() && !backwardHeap.isEmpty()) {
+            int forwardMin = forwardHeap.peekKey();
+            int backwardMin = backwardHeap.peekKey();
+            if (best != INFINITY && (long) forwardMin + backwardMin >= best) {
+                break;
+            }
+
+            if (forwardMin <= backwardMin) {
+                best = expand(graph, forward, backward, best);
+            } else {
+                best = expand(reverse, backward, forward, best);
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Settle one vertex on one side; returns the updated mu
+     */
+    private int expand(IndexedGraph side, SearchWorkspace ws, SearchWorkspace other, int best) {
+        IndexedHeap heap = ws.heap();
+        int current = heap.poll();
+        settledCount++;
+
+        int currentDistance = ws.distance(current);
+        int degree = side.degree(current);
+        relaxedCount += degree;
+        for (int i = 0; i < degree; i++) {
+            int neighbor = side.target(current, i);
+            int newDist = currentDistance + side.weight(current, i);
+
+            int neighborDistance = ws.distance(neighbor);
+            if (newDist < neighborDistance) {
+                neighborDistance = newDist;
+                ws.reach(neighbor, newDist, current);
+                heap.insertOrDecrease(neighbor, newDist);
+                pushCount++;
+            }
+
+            // Both sides' distances to neighbor have consistent parent
+            // chains, so neighbor is a valid meeting point
+            int otherDistance = other.distance(neighbor);
+            if (otherDistance != INFINITY && neighborDistance + otherDistance < best) {
+                best = neighborDistance + otherDistance;
+                meeting = neighbor;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Vertices settled by both sides in the last search
+     */
+    @Override
+    public int getSettledCount() {
+        return settledCount;
+    }
+
+    @Override
+    public int getRelaxedCount() {
+        return relaxedCount;
+    }
+
+    @Override
+    public int getPushCount() {
+        return pushCount;
+    }
+
+    /**
+     * Path of the last search as city ids, empty if there was none: O(path length)
+     */
+    public int[] path() {
+        if (meeting < 0) {
+            return new int[0];
+        }
+
+        int length = 0;
+        for (int v = meeting; v != -1; v = forward.previous(v)) {
+            length++;
+        }
+        for (int v = backward.previous(meeting); v != -1; v = backward.previous(v)) {
+            length++;
+        }
+
+        int[] path = new int[length];
+        int i = 0;
+        for (int v = meeting; v != -1; v = forward.previous(v)) {
+            path[i++] = v;
+        }
+        for (int a = 0, b = i - 1; a < b; a++, b--) {
+            int swap = path[a];
+            path[a] = path[b];
+            path[b] = swap;
+        }
+        for (int v = backward.previous(meeting); v != -1; v = backward.previous(v)) {
+            path[i++] = v;
+        }
+        return path;
+    }
+}
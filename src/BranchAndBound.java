@@ -0,0 +1,314 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Exhaustive shortest simple path search by branch and bound
+ * Enumerates simple paths depth-first with an explicit stack (no recursion,
+ * so path length is bounded by V, not by the thread stack) and a bitset of
+ * the cities on the current path. A branch is cut as soon as
+ *   distance so far + weight + lowerBound(next) >= best distance found
+ * where lowerBound is the exact distance to the goal from one reverse
+ * Dijkstra. Children are tried in order of that sum, so good paths are
+ * found first and later branches die early.
+ * The top SPLIT_DEPTH levels are split into fork-join tasks: the most
+ * promising child runs first, its siblings are forked once it has set a
+ * bound. All workers share the best distance through an atomic.
+ * A search runs in parallel, but an engine answers one query at a time.
+ * Time Complexity: O(V!) worst case, O((V + E) log V) for the bound
+ */
+public class BranchAndBound implements SearchCounters {
+    public static final int INFINITY = Integer.MAX_VALUE;
+    private static final int SPLIT_DEPTH = 3;
+
+    private final IndexedGraph graph;
+    private final ForkJoinPool pool;
+    private final DijkstraSearch reverseSearch;
+    private final int[] orderStart;  // CSR offsets: children of v are order[orderStart[v]..+orderCount[v])
+    private final int[] orderCount;
+    private final int[] order;       // edge indices, by weight + lowerBound
+    private final ThreadLocal<Worker> workers;
+
+    private int target;
+    private final AtomicInteger best = new AtomicInteger(INFINITY);
+    private int[] bestPath = new int[0];
+    private final LongAdder expanded = new LongAdder();
+    private final LongAdder relaxed = new LongAdder();
+
+    public BranchAndBound(IndexedGraph graph) {
+        this(graph, ForkJoinPool.commonPool());
+    }
+
+    public BranchAndBound(IndexedGraph graph, ForkJoinPool pool) {
+        this.graph = graph;
+        this.pool = pool;
+        this.reverseSearch = new DijkstraSearch(graph.reverse());
+        int n = graph.getCityCount();
+        orderStart = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            orderStart[v + 1] = orderStart[v] + graph.degree(v);
+        }
+        orderCount = new int[n];
+        order = new int[orderStart[n]];
+        workers = ThreadLocal.withInitial(Worker::new);
+    }
+
+    public IndexedGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Shortest simple path distance source -> target, or INFINITY
+     */
+    public int search(int source, int target) {
+        this.target = target;
+        best.set(INFINITY);
+        bestPath = new int[0];
+        expanded.reset();
+        relaxed.reset();
+
+        reverseSearch.search(target, -1);
+        if (lowerBound(source) == INFINITY) {
+            return INFINITY;
+        }
+        sortChildren();
+
+        int[] prefix = { source };
+        if (pool.getParallelism() > 1) {
+            pool.invoke(new Task(prefix, 0));
+        } else {
+            workers.get().run(prefix, 0);
+        }
+        return best.get();
+    }
+
+    /**
+     * Cities of the best path found by the last search, empty if none
+     */
+    public int[] path() {
+        return bestPath.clone();
+    }
+
+    /**
+     * Search nodes expanded by the last search
+     */
+    public long getExpandedCount() {
+        return expanded.sum();
+    }
+
+    @Override
+    public int getSettledCount() {
+        return (int) Math.min(Integer.MAX_VALUE, expanded.sum());
+    }
+
+    /**
+     * Child arcs tried, pruned or not
+     */
+    @Override
+    public int getRelaxedCount() {
+        return (int) Math.min(Integer.MAX_VALUE, relaxed.sum());
+    }
+
+    /**
+     * Each expanded node was pushed on a stack (or forked) once
+     */
+    @Override
+    public int getPushCount() {
+        return getSettledCount();
+    }
+
+    private int lowerBound(int city) {
+        return reverseSearch.getDistance(city);
+    }
+
+    /**
+     * Order every city's edges by weight + lowerBound(target) and drop
+     * edges into cities that cannot reach the goal: O(E log degree)
+     */
+    private void sortChildren() {
+        for (int v = 0, n = graph.getCityCount(); v < n; v++) {
+            int start = orderStart[v];
+            int count = 0;
+            for (int i = 0, degree = graph.degree(v); i < degree; i++) {
+                if (lowerBound(graph.target(v, i)) == INFINITY) {
+                    continue;
+                }
+                // Insertion sort: degrees are small
+                int key = key(v, i);
+                int j = count++;
+                while (j > 0 && key(v, order[start + j - 1]) > key) {
+                    order[start + j] = order[start + j - 1];
+                    j--;
+                }
+                order[start + j] = i;
+            }
+            orderCount[v] = count;
+        }
+    }
+
+    private int key(int v, int i) {
+        return graph.weight(v, i) + lowerBound(graph.target(v, i));
+    }
+
+    /**
+     * Publish a complete path if it beats the shared bound
+     */
+    private synchronized void offer(int distance, int[] path, int length) {
+        if (distance < best.get()) {
+            bestPath = Arrays.copyOf(path, length);
+            best.set(distance);
+        }
+    }
+
+    /**
+     * Subtree below a fixed path prefix
+     */
+    private final class Task extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] prefix;
+        private final int distance;
+
+        Task(int[] prefix, int distance) {
+            this.prefix = prefix;
+            this.distance = distance;
+        }
+
+        @Override
+        protected void compute() {
+            int depth = prefix.length;
+            int current = prefix[depth - 1];
+            if (depth > SPLIT_DEPTH || current == target) {
+                workers.get().run(prefix, distance);
+                return;
+            }
+            expanded.increment();
+
+            Task[] children = new Task[orderCount[current]];
+            int count = 0;
+            for (int k = 0; k < orderCount[current]; k++) {
+                int i = order[orderStart[current] + k];
+                int next = graph.target(current, i);
+                if (contains(prefix, next)) {
+                    continue;
+                }
+                int nextDistance = distance + graph.weight(current, i);
+                if (nextDistance + lowerBound(next) >= best.get()) {
+                    break; // children are sorted, the rest are no better
+                }
+                int[] childPrefix = Arrays.copyOf(prefix, depth + 1);
+                childPrefix[depth] = next;
+                children[count++] = new Task(childPrefix, nextDistance);
+            }
+            if (count == 0) {
+                return;
+            }
+
+            // The most promising child sets a bound before its siblings start
+            children[0].compute();
+            Task[] rest = Arrays.copyOfRange(children, 1, count);
+            invokeAll(rest);
+        }
+
+        private boolean contains(int[] path, int city) {
+            for (int c : path) {
+                if (c == city) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Per-thread depth-first state; one stack frame per city on the path
+     */
+    private final class Worker {
+        private final long[] onPath = new long[(graph.getCityCount() + 63) >>> 6];
+        private final int[] path = new int[graph.getCityCount()];
+        private final int[] pathDistance = new int[graph.getCityCount()];
+        private final int[] nextChild = new int[graph.getCityCount()];
+
+        /**
+         * Search every simple extension of prefix
+         */
+        void run(int[] prefix, int distance) {
+            int depth = prefix.length - 1;
+            for (int d = 0; d <= depth; d++) {
+                path[d] = prefix[d];
+                mark(prefix[d]);
+            }
+            pathDistance[depth] = distance;
+            nextChild[depth] = 0;
+            long count = 0;
+            long tried = 0;
+
+            int base = depth;
+            while (depth >= base) {
+                int current = path[depth];
+                if (nextChild[depth] == 0) {
+                    count++;
+                    if (current == target) {
+                        offer(pathDistance[depth], path, depth + 1);
+                        nextChild[depth] = orderCount[current]; // nothing beyond the goal
+                    }
+                }
+
+                int next = -1;
+                int nextDistance = 0;
+                int k = nextChild[depth];
+                int end = orderCount[current];
+                int bound = best.get();
+                while (k < end) {
+                    tried++;
+                    int i = order[orderStart[current] + k++];
+                    int candidate = graph.target(current, i);
+                    int candidateDistance = pathDistance[depth] + graph.weight(current, i);
+                    if (candidateDistance + lowerBound(candidate) >= bound) {
+                        k = end; // children are sorted, the rest are no better
+                        break;
+                    }
+                    if (!marked(candidate)) {
+                        next = candidate;
+                        nextDistance = candidateDistance;
+                        break;
+                    }
+                }
+                nextChild[depth] = k;
+
+                if (next < 0) {
+                    if (depth > base) {
+                        unmark(current);
+                    }
+                    depth--;
+                } else {
+                    depth++;
+                    path[depth] = next;
+                    pathDistance[depth] = nextDistance;
+                    nextChild[depth] = 0;
+                    mark(next);
+                }
+            }
+
+            for (int d = 0; d <= base; d++) {
+                unmark(prefix[d]);
+            }
+            expanded.add(count);
+            relaxed.add(tried);
+        }
+
+        private void mark(int city) {
+            onPath[city >>> 6] |= 1L << city;
+        }
+
+        private void unmark(int city) {
+            onPath[city >>> 6] &= ~(1L << city);
+        }
+
+        private boolean marked(int city) {
+            return (onPath[city >>> 6] & (1L << city)) != 0;
+        }
+    }
+}
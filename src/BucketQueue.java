@@ -0,0 +1,189 @@
+import java.util.Arrays;
+
+/**
+ * Dial's bucket queue over int vertex ids with small non-negative int keys
+ * A monotone queue for searches on weights of at most maxWeight: every
+ * queued key lies within maxWeight of the last minimum removed, so
+ * maxWeight + 1 buckets used cyclically (rounded up to a power of two)
+ * hold them all, bucket key & mask. The minimum is found by moving a
+ * cursor forward to the next non-empty bucket, never by comparing keys.
+ * Buckets are plain vertex arrays. A decreaseKey appends the vertex to its
+ * new bucket and leaves the old entry behind; entries whose bucket no
+ * longer matches the vertex's key are skipped when they come up. Each
+ * vertex may be inserted once between clears, as in Dijkstra.
+ * Buckets and queued flags carry a generation stamp, so clear() is O(1)
+ * however many buckets there are. Arrays only grow, so a reused queue allocates nothing once it has
+ * reached its working size.
+ * Time Complexity Analysis:
+ */
+public class BucketQueue implements VertexQueue {
+    private final int mask;
+    private final int[][] buckets;
+    private final int[] bucketSize;
+    private final int[] bucketStamp;
+    private final int[] keys;         // vertex -> current key while queued
+    private final int[] queuedStamp;  // vertex is queued iff its stamp is the generation
+    private int generation = 1;
+    private int cursor;               // key of the bucket being emptied
+    private int size;
+
+    public BucketQueue(int capacity, int maxWeight) {
+        int count = Integer.highestOneBit(Math.max(1, maxWeight)) << 1;
+        mask = count - 1;
+        buckets = new int[count][];
+        bucketSize = new int[count];
+        bucketStamp = new int[count];
+        for (int b = 0; b < count; b++) {
+            buckets[b] = new int[4];
+        }
+        keys = new int[capacity];
+        queuedStamp = new int[capacity];
+    }
+
+    /**
+     * isEmpty operation: O(1) - Constant time
+     */
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Size operation: O(1) - vertices queued, not entries
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains(int vertex) {
+        return queuedStamp[vertex] == generation;
+    }
+
+    /**
+     * Insert a vertex that is not queued yet: O(1) amortized
+     * The key must lie within maxWeight of the last minimum removed.
+     */
+    @Override
+    public void insert(int vertex, int key) {
+        check(key);
+        queuedStamp[vertex] = generation;
+        keys[vertex] = key;
+        append(key & mask, vertex);
+        size++;
+    }
+
+    /**
+     * Lower the key of a queued vertex: O(1) amortized, one new entry
+     */
+    @Override
+    public void decreaseKey(int vertex, int key) {
+        check(key);
+        keys[vertex] = key;
+        append(key & mask, vertex);
+    }
+
+    /**
+     * Insert, or lower the key if the vertex is queued with a larger one
+     */
+    @Override
+    public void insertOrDecrease(int vertex, int key) {
+        if (queuedStamp[vertex] != generation) {
+            insert(vertex, key);
+        } else if (key < keys[vertex]) {
+            decreaseKey(vertex, key);
+        }
+    }
+
+    /**
+     * Key of the minimum: O(1) amortized over the cursor moves
+     */
+    @Override
+    public int peekKey() {
+        advance();
+        return cursor;
+    }
+
+    /**
+     * Vertex with the minimum key
+     */
+    @Override
+    public int peek() {
+        advance();
+        int b = cursor & mask;
+        return buckets[b][bucketSize[b] - 1];
+    }
+
+    /**
+     * Remove and return a vertex with the minimum key: O(1) amortized plus
+     * the empty buckets passed over
+     */
+    @Override
+    public int poll() {
+        advance();
+        int b = cursor & mask;
+        int min = buckets[b][--bucketSize[b]];
+        queuedStamp[min] = 0;
+        size--;
+        return min;
+    }
+
+    /**
+     * Clear operation: O(1) - bumps the generation
+     */
+    @Override
+    public void clear() {
+        if (++generation == 0) {
+            // Wrapped around: old stamps could look current again
+            Arrays.fill(bucketStamp, 0);
+            Arrays.fill(queuedStamp, 0);
+            generation = 1;
+        }
+        size = 0;
+        cursor = 0;
+    }
+
+    private void check(int key) {
+        if (key < cursor || key - cursor > mask) {
+            throw new IllegalArgumentException("Key " + key + " outside [" + cursor + ", "
+                    + (cursor + mask) + "]");
+        }
+    }
+
+    /**
+     * Move the cursor to the first bucket whose top entry is live; the
+     * queue must not be empty
+     */
+    private void advance() {
+        while (true) {
+            int b = cursor & mask;
+            int[] bucket = buckets[b];
+            if (bucketStamp[b] != generation) {
+                bucketStamp[b] = generation;
+                bucketSize[b] = 0;
+            }
+            while (bucketSize[b] > 0) {
+                int v = bucket[bucketSize[b] - 1];
+                if (queuedStamp[v] == generation && keys[v] == cursor) {
+                    return;
+                }
+                bucketSize[b]--; // stale: polled already or decreased since
+            }
+            cursor++;
+        }
+    }
+
+    private void append(int b, int vertex) {
+        if (bucketStamp[b] != generation) {
+            bucketStamp[b] = generation;
+            bucketSize[b] = 0;
+        }
+        int n = bucketSize[b];
+        if (n == buckets[b].length) {
+            buckets[b] = Arrays.copyOf(buckets[b], n * 2);
+        }
+        buckets[b][n] = vertex;
+        bucketSize[b] = n + 1;
+    }
+}
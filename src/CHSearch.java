@@ -0,0 +1,279 @@
+import java.util.Arrays;
+
+/**
+ * Point-to-point query on a ContractionHierarchy
+ * A forward search from the source climbs the up arcs and a backward search
+ * from the target climbs the down arcs; every shortest path has an up-down
+ * form meeting at its highest vertex. Each side stops once its queue minimum
+ * reaches mu, the best s-t distance seen so far.
+ * Stall-on-demand: a vertex reachable more cheaply from a higher vertex
+ * through an arc of the opposite direction is not on a shortest up path,
+ * so its arcs are not relaxed.
+ * Distances use generation stamps, so a query costs only the few hundred
+ * vertices it touches, not O(V) array resets.
+ * An engine is not thread-safe; use one per thread.
+ */
+public class CHSearch implements SearchCounters {
+    public static final int INFINITY = Integer.MAX_VALUE;
+
+    private final ContractionHierarchy hierarchy;
+    private final int[] forwardDistance;
+    private final int[] backwardDistance;
+    private final int[] forwardPrevious;
+    private final int[] backwardNext;
+    private final int[] forwardStamp;
+    private final int[] backwardStamp;
+    private final IndexedHeap forwardHeap;
+    private final IndexedHeap backwardHeap;
+    private int generation;
+    private int meeting;
+    private int settledCount;
+    private int relaxedCount;
+    private int pushCount;
+    private int stalledCount;
+
+    public CHSearch(ContractionHierarchy hierarchy) {
+        this.hierarchy = hierarchy;
+        int n = hierarchy.getCityCount();
+        forwardDistance = new int[n];
+        backwardDistance = new int[n];
+        forwardPrevious = new int[n];
+        backwardNext = new int[n];
+        forwardStamp = new int[n];
+        backwardStamp = new int[n];
+        forwardHeap = new IndexedHeap(n);
+        backwardHeap = new IndexedHeap(n);
+    }
+
+    public ContractionHierarchy getHierarchy() {
+        return hierarchy;
+    }
+
+    /**
+     * Shortest distance source -> target, or INFINITY if unreachable
+     */
+    public int search(int source, int target) {
+        generation++;
+        forwardHeap.clear();
+        backwardHeap.clear();
+        settledCount = 0;
+        relaxedCount = 0;
+        pushCount = 2;
+        stalledCount = 0;
+
+        reach(forwardDistance, forwardStamp, forwardPrevious, source, 0, -1);
+        reach(backwardDistance, backwardStamp, backwardNext, target, 0, -1);
+        forwardHeap.insert(source, 0);
+        backwardHeap.insert(target, 0);
+        int best = source == target ? 0 : INFINITY;
+        meeting = source == target ? source : -1;
+
+        boolean forwardDone = false;
+        boolean backwardDone = false;
+        while (true) {
+            forwardDone |= forwardHeap.isEmpty() || forwardHeap.peekKey() >= best;
+            backwardDone |= backwardHeap.isEmpty() || backwardHeap.peekKey() >= best;
+            if (forwardDone && backwardDone) {
+                break;
+            }
+
+            boolean forward = backwardDone
+                    || (!forwardDone && forwardHeap.peekKey() <= backwardHeap.peekKey());
+            if (forward) {
+                best = expandForward(best);
+            } else {
+                best = expandBackward(best);
+            }
+        }
+
+        return best;
+    }
+
+    private int expandForward(int best) {
+        int current = forwardHeap.poll();
+        settledCount++;
+        int currentDistance = forwardDistance[current];
+
+        // Stalled if a higher vertex reaches current more cheaply
+        for (int a = hierarchy.downStart(current), end = hierarchy.downEnd(current); a < end; a++) {
+            int higher = hierarchy.downSource(a);
+            if (forwardStamp[higher] == generation
+                    && (long) forwardDistance[higher] + hierarchy.downWeight(a) < currentDistance) {
+                settledCount--;
+                stalledCount++;
+                return best;
+            }
+        }
+
+        relaxedCount += hierarchy.upEnd(current) - hierarchy.upStart(current);
+        for (int a = hierarchy.upStart(current), end = hierarchy.upEnd(current); a < end; a++) {
+            int neighbor = hierarchy.upTarget(a);
+            int newDist = currentDistance + hierarchy.upWeight(a);
+            if (newDist < distance(forwardDistance, forwardStamp, neighbor)) {
+                reach(forwardDistance, forwardStamp, forwardPrevious, neighbor, newDist, current);
+                forwardHeap.insertOrDecrease(neighbor, newDist);
+                pushCount++;
+            }
+            best = meet(neighbor, best);
+        }
+        return best;
+    }
+
+    private int expandBackward(int best) {
+        int current = backwardHeap.poll();
+        settledCount++;
+        int currentDistance = backwardDistance[current];
+
+        for (int a = hierarchy.upStart(current), end = hierarchy.upEnd(current); a < end; a++) {
+            int higher = hierarchy.upTarget(a);
+            if (backwardStamp[higher] == generation
+                    && (long) backwardDistance[higher] + hierarchy.upWeight(a) < currentDistance) {
+                settledCount--;
+                stalledCount++;
+                return best;
+            }
+        }
+
+        relaxedCount += hierarchy.downEnd(current) - hierarchy.downStart(current);
+        for (int a = hierarchy.downStart(current), end = hierarchy.downEnd(current); a < end; a++) {
+            int neighbor = hierarchy.downSource(a);
+            int newDist = currentDistance + hierarchy.downWeight(a);
+            if (newDist < distance(backwardDistance, backwardStamp, neighbor)) {
+                reach(backwardDistance, backwardStamp, backwardNext, neighbor, newDist, current);
+                backwardHeap.insertOrDecrease(neighbor, newDist);
+                pushCount++;
+            }
+            best = meet(neighbor, best);
+        }
+        return best;
+    }
+
+    /**
+     * Update mu if vertex has been reached from both sides
+     */
+    private int meet(int vertex, int best) {
+        int forward = distance(forwardDistance, forwardStamp, vertex);
+        int backward = distance(backwardDistance, backwardStamp, vertex);
+        if (forward != INFINITY && backward != INFINITY && forward + backward < best) {
+            meeting = vertex;
+            return forward + backward;
+        }
+        return best;
+    }
+
+    private int distance(int[] distance, int[] stamp, int vertex) {
+        return stamp[vertex] == generation ? distance[vertex] : INFINITY;
+    }
+
+    private void reach(int[] distance, int[] stamp, int[] parent, int vertex, int value, int from) {
+        distance[vertex] = value;
+        stamp[vertex] = generation;
+        parent[vertex] = from;
+    }
+
+    /**
+     * Vertices settled (and not stalled) by both sides in the last search
+     */
+    @Override
+    public int getSettledCount() {
+        return settledCount;
+    }
+
+    @Override
+    public int getRelaxedCount() {
+        return relaxedCount;
+    }
+
+    @Override
+    public int getPushCount() {
+        return pushCount;
+    }
+
+    /**
+     * Vertices popped but stalled, so their arcs were not relaxed
+     */
+    @Override
+    public int getStaleCount() {
+        return stalledCount;
+    }
+
+    /**
+     * Path of the last search as original city ids, shortcuts unpacked,
+     * empty if there was none: O(path length x degree)
+     */
+    public int[] path() {
+        if (meeting < 0) {
+            return new int[0];
+        }
+
+        // Hierarchy path: source ... meeting ... target
+        int upLength = 0;
+        for (int v = meeting; v != -1; v = forwardPrevious[v]) {
+            upLength++;
+        }
+        int[] packed = new int[upLength];
+        int length = upLength;
+        for (int v = meeting; v != -1; v = forwardPrevious[v]) {
+            packed[--length] = v;
+        }
+        length = upLength;
+        for (int v = backwardNext[meeting]; v != -1; v = backwardNext[v]) {
+            if (length == packed.length) {
+                packed = Arrays.copyOf(packed, packed.length * 2);
+            }
+            packed[length++] = v;
+        }
+
+        // Unpack each arc: from -> to via middle becomes from -> middle -> to
+        IntArray result = new IntArray();
+        IntArray pending = new IntArray();
+        result.add(packed[0]);
+        for (int i = 0; i + 1 < length; i++) {
+            pending.add(packed[i + 1]);
+            int from = packed[i];
+            while (pending.size() > 0) {
+                int to = pending.last();
+                int middle = hierarchy.middle(from, to);
+                if (middle < 0) {
+                    result.add(to);
+                    pending.removeLast();
+                    from = to;
+                } else {
+                    pending.add(middle);
+                }
+            }
+        }
+        return result.toArray();
+    }
+
+    /**
+     * Growable int array used as a stack during unpacking
+     */
+    private static class IntArray {
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int last() {
+            return values[size - 1];
+        }
+
+        void removeLast() {
+            size--;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
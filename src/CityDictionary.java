@@ -0,0 +1,165 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable city-name dictionary: dense int ids, exact lookup and prefix search
+ * Every name is stored once, at its id; getName always returns that same
+ * instance. Exact lookups probe an open-addressing table (linear probing,
+ * at most half full) whose slots hold a name's hash code next to its id,
+ * so a probe reads one cache line and equals is only called on an id whose
+ * full hash code matches - normally exactly one.
+ * Prefix queries binary-search an id array sorted by name ignoring case:
+ * the names sharing a prefix form one contiguous run of it, so a compact
+ * sorted array does what a trie would without a node per character. The
+ * sort is the expensive part (seconds for millions of names), so it is
+ * only done by the first prefix query.
+ * Time Complexity Analysis: O(V) build, O(1) expected lookup, O(V log V)
+ * once for the first prefix query, then O(log V + k) returning k names
+ */
+public class CityDictionary {
+    private final String[] names;
+    private final int[] table;     // slot s: hash code at 2s, id + 1 at 2s + 1 (0 if empty)
+    private final int mask;
+    private volatile int[] sorted; // ids in case-insensitive name order, null until needed
+
+    private CityDictionary(String[] names) {
+        this.names = names;
+        int n = names.length;
+        int slots = Math.max(2, Integer.highestOneBit(Math.max(1, n)) << 2);
+        table = new int[2 * slots];
+        mask = slots - 1;
+        for (int id = 0; id < n; id++) {
+            String name = names[id];
+            if (name == null) {
+                throw new IllegalArgumentException("City " + id + " has no name");
+            }
+            if (getId(name) >= 0) {
+                throw new IllegalArgumentException("Duplicate city name: " + name);
+            }
+            int hash = name.hashCode();
+            int slot = spread(hash) & mask;
+            while (table[2 * slot + 1] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[2 * slot] = hash;
+            table[2 * slot + 1] = id + 1;
+        }
+    }
+
+    /**
+     * Ids in case-insensitive name order, sorted on first use; a racy
+     * second sort is harmless
+     */
+    private int[] sorted() {
+        int[] result = sorted;
+        if (result != null) {
+            return result;
+        }
+        int n = names.length;
+
+        // Fold case once, so the sort compares plain strings; folding every
+        // char as CASE_INSENSITIVE_ORDER does keeps the two orders identical
+        String[] folded = new String[n];
+        Integer[] order = new Integer[n];
+        for (int id = 0; id < n; id++) {
+            folded[id] = fold(names[id]);
+            order[id] = id;
+        }
+        Arrays.parallelSort(order, (a, b) -> folded[a].compareTo(folded[b]));
+        result = new int[n];
+        for (int i = 0; i < n; i++) {
+            result[i] = order[i];
+        }
+        sorted = result;
+        return result;
+    }
+
+    /**
+     * Dictionary of names[id] for every id: O(V)
+     * The array is not copied; names must be unique.
+     */
+    public static CityDictionary of(String[] names) {
+        return new CityDictionary(names);
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Id of a name, -1 if it is unknown: O(1) expected
+     */
+    public int getId(String name) {
+        int hash = name.hashCode();
+        int slot = spread(hash) & mask;
+        int entry;
+        while ((entry = table[2 * slot + 1]) != 0) {
+            if (table[2 * slot] == hash && names[entry - 1].equals(name)) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    public boolean contains(String name) {
+        return getId(name) >= 0;
+    }
+
+    public String getName(int id) {
+        return names[id];
+    }
+
+    /**
+     * Up to limit ids whose names start with prefix, ignoring case, in name
+     * order: O(log V + limit)
+     */
+    public int[] withPrefix(String prefix, int limit) {
+        int[] sorted = sorted();
+        int low = 0;
+        int high = names.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (String.CASE_INSENSITIVE_ORDER.compare(names[sorted[mid]], prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        int end = low;
+        while (end < names.length && end - low < limit
+                && names[sorted[end]].regionMatches(true, 0, prefix, 0, prefix.length())) {
+            end++;
+        }
+        return Arrays.copyOfRange(sorted, low, end);
+    }
+
+    /**
+     * Up to limit names starting with prefix, ignoring case, in name order
+     */
+    public List<String> complete(String prefix, int limit) {
+        int[] ids = withPrefix(prefix, limit);
+        List<String> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            result.add(names[id]);
+        }
+        return result;
+    }
+
+    private static String fold(String name) {
+        char[] chars = name.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Mix the high bits in, since the table only uses the low ones
+     */
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,246 @@
+import java.util.*;
+
+/**
+ * Immutable graph in compressed sparse row (CSR) form
+ * Vertex ids are the dense city indices of the Graph it was frozen from.
+ * The edges of vertex v are targets[offsets[v] .. offsets[v + 1]) with the
+ * matching weights, in the same order as Graph.getNeighbors returns them.
+ * Weights are whole kilometres (truncated like PathFinder always did).
+ * Graphs built from bare arc lists have no name table; their vertices are
+ * named by 1-based id ("1", "2", ...) as in DIMACS files.
+ * Undirected graphs (every edge stored both ways) are their own reverse.
+ */
+public class CompactGraph implements IndexedGraph {
+    private final CityDictionary names;   // null for id-named vertices
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] weights;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final boolean undirected;
+    private volatile CompactGraph reverse;
+    private int maxWeight = -1;  // computed on first use; a racy recompute is harmless
+
+    CompactGraph(CityDictionary names,
+            int[] offsets, int[] targets, int[] weights, boolean undirected) {
+        this(names, offsets, targets, weights, null, null, undirected);
+    }
+
+    CompactGraph(CityDictionary names,
+            int[] offsets, int[] targets, int[] weights,
+            double[] latitudes, double[] longitudes, boolean undirected) {
+        this.names = names;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.undirected = undirected;
+    }
+
+    /**
+     * Same graph with per-vertex coordinates in degrees: O(1), arrays are shared
+     */
+    public CompactGraph withCoordinates(double[] latitudes, double[] longitudes) {
+        return new CompactGraph(names, offsets, targets, weights,
+                latitudes, longitudes, undirected);
+    }
+
+    /**
+     * Heaviest arc weight: O(E) once, then O(1)
+     */
+    @Override
+    public int getMaxWeight() {
+        int result = maxWeight;
+        if (result < 0) {
+            int max = 0;
+            for (int w : weights) {
+                max = Math.max(max, w);
+            }
+            result = max;
+            maxWeight = result;
+        }
+        return result;
+    }
+
+    @Override
+    public boolean isUndirected() {
+        return undirected;
+    }
+
+    /**
+     * Graph with every arc flipped: O(1) if undirected, else O(V + E) once
+     */
+    @Override
+    public CompactGraph reverse() {
+        if (undirected) {
+            return this;
+        }
+        CompactGraph result = reverse;
+        if (result == null) {
+            result = transpose(this, names);
+            reverse = result;
+        }
+        return result;
+    }
+
+    /**
+     * Transposed copy of any graph, sharing the given name table: O(V + E)
+     */
+    static CompactGraph transpose(IndexedGraph graph, CityDictionary names) {
+        int n = graph.getCityCount();
+        int[] offsets = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            for (int i = 0, degree = graph.degree(v); i < degree; i++) {
+                offsets[graph.target(v, i) + 1]++;
+            }
+        }
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+
+        int[] next = Arrays.copyOf(offsets, n);
+        int[] targets = new int[offsets[n]];
+        int[] weights = new int[offsets[n]];
+        for (int v = 0; v < n; v++) {
+            for (int i = 0, degree = graph.degree(v); i < degree; i++) {
+                int e = next[graph.target(v, i)]++;
+                targets[e] = v;
+                weights[e] = graph.weight(v, i);
+            }
+        }
+        return new CompactGraph(names, offsets, targets, weights, false);
+    }
+
+    @Override
+    public boolean hasCoordinates() {
+        return latitudes != null;
+    }
+
+    @Override
+    public double getLatitude(int city) {
+        return latitudes[city];
+    }
+
+    @Override
+    public double getLongitude(int city) {
+        return longitudes[city];
+    }
+
+    @Override
+    public int getCityCount() {
+        return offsets.length - 1;
+    }
+
+    @Override
+    public int getEdgeCount() {
+        return targets.length;
+    }
+
+    /**
+     * Build from an arc list by counting sort: O(V + E)
+     * Arcs keep their input order within each source vertex.
+     * cities may be null for id-named vertices. Pass undirected = true only
+     * if every arc has a reverse arc of the same weight.
+     */
+    public static CompactGraph fromArcs(int n, String[] cities, int[] from, int[] to,
+            int[] weight, int arcCount, boolean undirected) {
+        int[] offsets = new int[n + 1];
+        for (int i = 0; i < arcCount; i++) {
+            offsets[from[i] + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+
+        int[] next = Arrays.copyOf(offsets, n);
+        int[] targets = new int[arcCount];
+        int[] weights = new int[arcCount];
+        for (int i = 0; i < arcCount; i++) {
+            int e = next[from[i]]++;
+            targets[e] = to[i];
+            weights[e] = weight[i];
+        }
+
+        return new CompactGraph(cities == null ? null : CityDictionary.of(cities),
+                offsets, targets, weights, undirected);
+    }
+
+    /**
+     * City id lookup: O(1) average, -1 if the city is unknown
+     */
+    @Override
+    public int getCityIndex(String city) {
+        if (names == null) {
+            try {
+                int index = Integer.parseInt(city) - 1;
+                return index >= 0 && index < getCityCount() ? index : -1;
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        return names.getId(city);
+    }
+
+    @Override
+    public String getCityName(int index) {
+        return names == null ? Integer.toString(index + 1) : names.getName(index);
+    }
+
+    @Override
+    public boolean hasCityNames() {
+        return names != null;
+    }
+
+    /**
+     * The name dictionary, null for id-named vertices
+     */
+    public CityDictionary getDictionary() {
+        return names;
+    }
+
+    /**
+     * Prefix search through the dictionary: O(log V + limit)
+     */
+    @Override
+    public int[] citiesWithPrefix(String prefix, int limit) {
+        return names == null ? IndexedGraph.super.citiesWithPrefix(prefix, limit) : names.withPrefix(prefix, limit);
+    }
+
+    /**
+     * Degree: O(1)
+     */
+    @Override
+    public int degree(int city) {
+        return offsets[city + 1] - offsets[city];
+    }
+
+    /**
+     * i-th neighbor of city: O(1)
+     */
+    @Override
+    public int target(int city, int i) {
+        return targets[offsets[city] + i];
+    }
+
+    /**
+     * Weight of the edge to the i-th neighbor of city: O(1)
+     */
+    @Override
+    public int weight(int city, int i) {
+        return weights[offsets[city] + i];
+    }
+
+    /**
+     * Weight of the first edge city1 -> city2: O(degree), -1 if there is none
+     */
+    @Override
+    public int getDistance(int city1, int city2) {
+        for (int e = offsets[city1]; e < offsets[city1 + 1]; e++) {
+            if (targets[e] == city2) {
+                return weights[e];
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,590 @@
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Undirected graph that can be updated while queries run
+ * Readers call snapshot() and search an immutable Snapshot: no locks, no
+ * copying, and the snapshot never changes under them. Writers collect
+ * mutations in a Batch and commit() it; the new snapshot is published with
+ * one atomic reference write, so readers see all of a batch or none of it.
+ *
+ * Copy-on-write segments: vertices are split into segments of
+ * SEGMENT_SIZE, each a small CSR block with its own name table. A commit
+ * rebuilds only the segments its mutations touch and shares every other
+ * segment with the previous snapshot, so its cost is proportional to the
+ * touched segments, not to the graph. Old snapshots are reclaimed by the
+ * garbage collector once no reader holds them.
+ *
+ * City ids are stable: a city keeps its id across snapshots and cities are
+ * never removed. Writers are serialized with a lock; readers never take it.
+ * Positions live in the segments too; a snapshot has coordinates once
+ * every city in it has a position.
+ */
+public class ConcurrentGraph {
+    private static final int SEGMENT_SHIFT = 10;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    // Append-only; a snapshot ignores ids at or beyond its own city count
+    private final Map<String, Integer> cityIndex = new ConcurrentHashMap<>();
+    private final AtomicReference<Snapshot> current;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private long commits;
+    private long mutations;
+
+    public ConcurrentGraph() {
+        current = new AtomicReference<>(new Snapshot(this, 0, 0, 0, 0, new Segment[0]));
+    }
+
+    /**
+     * Concurrent graph with the cities, edges and coordinates (if any) of an
+     * undirected graph: O(V + E)
+     */
+    public static ConcurrentGraph of(IndexedGraph graph) {
+        ConcurrentGraph result = new ConcurrentGraph();
+        int n = graph.getCityCount();
+        boolean located = graph.hasCoordinates();
+        Segment[] segments = new Segment[(n + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT];
+        for (int s = 0; s < segments.length; s++) {
+            int first = s << SEGMENT_SHIFT;
+            int length = Math.min(SEGMENT_SIZE, n - first);
+            String[] names = new String[length];
+            int[] offsets = new int[length + 1];
+            for (int local = 0; local < length; local++) {
+                names[local] = graph.getCityName(first + local);
+                offsets[local + 1] = offsets[local] + graph.degree(first + local);
+            }
+            int[] targets = new int[offsets[length]];
+            int[] weights = new int[offsets[length]];
+            for (int local = 0, e = 0; local < length; local++) {
+                for (int i = 0, degree = graph.degree(first + local); i < degree; i++, e++) {
+                    targets[e] = graph.target(first + local, i);
+                    weights[e] = graph.weight(first + local, i);
+                }
+            }
+            double[] latitudes = null;
+            double[] longitudes = null;
+            if (located) {
+                latitudes = new double[length];
+                longitudes = new double[length];
+                for (int local = 0; local < length; local++) {
+                    latitudes[local] = graph.getLatitude(first + local);
+                    longitudes[local] = graph.getLongitude(first + local);
+                }
+            }
+            segments[s] = new Segment(names, offsets, targets, weights, latitudes, longitudes);
+        }
+        for (int v = 0; v < n; v++) {
+            result.cityIndex.put(graph.getCityName(v), v);
+        }
+        result.current.set(new Snapshot(result, 0, n, graph.getEdgeCount(), located ? n : 0, segments));
+        return result;
+    }
+
+    /**
+     * The latest published snapshot: O(1), lock-free
+     */
+    public Snapshot snapshot() {
+        return current.get();
+    }
+
+    /**
+     * Start collecting mutations; nothing is visible until commit()
+     */
+    public Batch batch() {
+        return new Batch(this);
+    }
+
+    /**
+     * Committed batches so far
+     */
+    public long getCommitCount() {
+        writeLock.lock();
+        try {
+            return commits;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Mutations applied by all committed batches
+     */
+    public long getMutationCount() {
+        writeLock.lock();
+        try {
+            return mutations;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Apply a batch to the latest snapshot and publish the result
+     */
+    private Snapshot commit(Batch batch) {
+        writeLock.lock();
+        try {
+            Snapshot base = current.get();
+            Snapshot next = new Commit(base).apply(batch);
+            current.set(next);
+            commits++;
+            mutations += batch.size;
+            return next;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Immutable view of one graph version; safe to search from any thread
+     */
+    public static final class Snapshot implements IndexedGraph {
+        private final ConcurrentGraph owner;
+        private final long version;
+        private final int cityCount;
+        private final int edgeCount;
+        private final int locatedCount;
+        private final Segment[] segments;
+        private int maxWeight = -1;  // computed on first use; a racy recompute is harmless
+
+        private Snapshot(ConcurrentGraph owner, long version, int cityCount, int edgeCount,
+                int locatedCount, Segment[] segments) {
+            this.owner = owner;
+            this.version = version;
+            this.cityCount = cityCount;
+            this.edgeCount = edgeCount;
+            this.locatedCount = locatedCount;
+            this.segments = segments;
+        }
+
+        /**
+         * Commits that led to this snapshot
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        @Override
+        public int getCityCount() {
+            return cityCount;
+        }
+
+        @Override
+        public int getEdgeCount() {
+            return edgeCount;
+        }
+
+        /**
+         * Heaviest arc weight: O(E) once per snapshot, then O(1)
+         */
+        @Override
+        public int getMaxWeight() {
+            int result = maxWeight;
+            if (result < 0) {
+                result = IndexedGraph.super.getMaxWeight();
+                maxWeight = result;
+            }
+            return result;
+        }
+
+        @Override
+        public int getCityIndex(String city) {
+            Integer index = owner.cityIndex.get(city);
+            return index != null && index < cityCount ? index : -1;
+        }
+
+        @Override
+        public String getCityName(int index) {
+            return segments[index >>> SEGMENT_SHIFT].names[index & SEGMENT_MASK];
+        }
+
+        @Override
+        public boolean hasCityNames() {
+            return true;
+        }
+
+        @Override
+        public int degree(int city) {
+            int[] offsets = segments[city >>> SEGMENT_SHIFT].offsets;
+            int local = city & SEGMENT_MASK;
+            return offsets[local + 1] - offsets[local];
+        }
+
+        @Override
+        public int target(int city, int i) {
+            Segment segment = segments[city >>> SEGMENT_SHIFT];
+            return segment.targets[segment.offsets[city & SEGMENT_MASK] + i];
+        }
+
+        @Override
+        public int weight(int city, int i) {
+            Segment segment = segments[city >>> SEGMENT_SHIFT];
+            return segment.weights[segment.offsets[city & SEGMENT_MASK] + i];
+        }
+
+        /**
+         * Every edge is stored both ways, so the snapshot is its own reverse
+         */
+        @Override
+        public IndexedGraph reverse() {
+            return this;
+        }
+
+        /**
+         * True once every city of this snapshot has a position
+         */
+        @Override
+        public boolean hasCoordinates() {
+            return cityCount > 0 && locatedCount == cityCount;
+        }
+
+        @Override
+        public double getLatitude(int city) {
+            return position(city).latitudes[city & SEGMENT_MASK];
+        }
+
+        @Override
+        public double getLongitude(int city) {
+            return position(city).longitudes[city & SEGMENT_MASK];
+        }
+
+        private Segment position(int city) {
+            Segment segment = segments[city >>> SEGMENT_SHIFT];
+            if (segment.latitudes == null || Double.isNaN(segment.latitudes[city & SEGMENT_MASK])) {
+                throw new UnsupportedOperationException("City " + city + " has no position");
+            }
+            return segment;
+        }
+    }
+
+    /**
+     * Mutations applied together by commit(); not thread-safe itself
+     * Edges are undirected like Graph's, weights truncated to whole km.
+     */
+    public static final class Batch {
+        private static final byte ADD_CITY = 0;
+        private static final byte ADD_EDGE = 1;
+        private static final byte REMOVE_EDGE = 2;
+        private static final byte SET_DISTANCE = 3;
+
+        private final ConcurrentGraph graph;
+        private byte[] ops = new byte[16];
+        private String[] first = new String[16];
+        private String[] second = new String[16];
+        private int[] weights = new int[16];
+        private double[] latitudes = new double[16];
+        private double[] longitudes = new double[16];
+        private int size;
+        private boolean committed;
+
+        private Batch(ConcurrentGraph graph) {
+            this.graph = graph;
+        }
+
+        public Batch addCity(String city) {
+            return add(ADD_CITY, city, null, 0);
+        }
+
+        /**
+         * Add a city at a position in degrees; an existing city gets the
+         * new position
+         */
+        public Batch addCity(String city, double latitude, double longitude) {
+            if (!(latitude >= -90 && latitude <= 90) || !(longitude >= -180 && longitude <= 180)) {
+                throw new IllegalArgumentException("Invalid coordinates for " + city + ": "
+                        + latitude + ", " + longitude);
+            }
+            add(ADD_CITY, city, null, 0);
+            latitudes[size - 1] = latitude;
+            longitudes[size - 1] = longitude;
+            return this;
+        }
+
+        /**
+         * Add an edge, creating its cities if needed
+         */
+        public Batch addEdge(String city1, String city2, double distance) {
+            return add(ADD_EDGE, city1, city2, (int) distance);
+        }
+
+        /**
+         * Remove every edge between the two cities
+         */
+        public Batch removeEdge(String city1, String city2) {
+            return add(REMOVE_EDGE, city1, city2, 0);
+        }
+
+        /**
+         * Replace every edge between the two cities with one of this distance
+         */
+        public Batch setDistance(String city1, String city2, double distance) {
+            return add(SET_DISTANCE, city1, city2, (int) distance);
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Publish all mutations atomically; returns the new snapshot
+         */
+        public Snapshot commit() {
+            if (committed) {
+                throw new IllegalStateException("Batch already committed");
+            }
+            committed = true;
+            return graph.commit(this);
+        }
+
+        private Batch add(byte op, String city1, String city2, int weight) {
+            if (size == ops.length) {
+                int capacity = size * 2;
+                ops = Arrays.copyOf(ops, capacity);
+                first = Arrays.copyOf(first, capacity);
+                second = Arrays.copyOf(second, capacity);
+                weights = Arrays.copyOf(weights, capacity);
+                latitudes = Arrays.copyOf(latitudes, capacity);
+                longitudes = Arrays.copyOf(longitudes, capacity);
+            }
+            ops[size] = op;
+            first[size] = city1;
+            second[size] = city2;
+            weights[size] = weight;
+            latitudes[size] = Double.NaN;
+            longitudes[size] = Double.NaN;
+            size++;
+            return this;
+        }
+    }
+
+    /**
+     * CSR block of up to SEGMENT_SIZE consecutive vertices; never modified
+     * Positions are NaN for cities without one, and the arrays are null if
+     * no city of the segment has one.
+     */
+    private static final class Segment {
+        final String[] names;
+        final int[] offsets;
+        final int[] targets;
+        final int[] weights;
+        final double[] latitudes;
+        final double[] longitudes;
+
+        Segment(String[] names, int[] offsets, int[] targets, int[] weights,
+                double[] latitudes, double[] longitudes) {
+            this.names = names;
+            this.offsets = offsets;
+            this.targets = targets;
+            this.weights = weights;
+            this.latitudes = latitudes;
+            this.longitudes = longitudes;
+        }
+    }
+
+    /**
+     * One commit: mutable copies of the touched vertices' edge lists, then
+     * rebuilt segments for just those vertices
+     */
+    private final class Commit {
+        private final Snapshot base;
+        private final Map<Integer, Adjacency> touched = new HashMap<>();
+        private final Map<Integer, double[]> positions = new HashMap<>();
+        private final List<String> newCities = new ArrayList<>();
+        private int cityCount;
+
+        Commit(Snapshot base) {
+            this.base = base;
+            this.cityCount = base.cityCount;
+        }
+
+        Snapshot apply(Batch batch) {
+            boolean published = false;
+            try {
+                for (int i = 0; i < batch.size; i++) {
+                    String a = batch.first[i];
+                    String b = batch.second[i];
+                    int w = batch.weights[i];
+                    switch (batch.ops[i]) {
+                        case Batch.ADD_CITY:
+                            int id = city(a, true);
+                            if (!Double.isNaN(batch.latitudes[i])) {
+                                positions.put(id, new double[] { batch.latitudes[i], batch.longitudes[i] });
+                            }
+                            break;
+                        case Batch.ADD_EDGE:
+                            addEdge(city(a, true), city(b, true), w);
+                            break;
+                        case Batch.REMOVE_EDGE:
+                            removeEdge(city(a, false), city(b, false));
+                            break;
+                        default:
+                            int u = city(a, true);
+                            int v = city(b, true);
+                            removeEdge(u, v);
+                            addEdge(u, v, w);
+                    }
+                }
+                Snapshot next = build();
+                published = true;
+                return next;
+            } finally {
+                if (!published) {
+                    // Ids of cities that never got published must not stay taken
+                    for (String city : newCities) {
+                        cityIndex.remove(city);
+                    }
+                }
+            }
+        }
+
+        private int city(String name, boolean create) {
+            Integer index = cityIndex.get(name);
+            if (index != null && index < cityCount) {
+                return index;
+            }
+            if (!create) {
+                return -1;
+            }
+            int id = cityCount++;
+            cityIndex.put(name, id);
+            newCities.add(name);
+            touched.put(id, new Adjacency());
+            return id;
+        }
+
+        private void addEdge(int u, int v, int weight) {
+            adjacency(u).add(v, weight);
+            adjacency(v).add(u, weight);
+        }
+
+        private void removeEdge(int u, int v) {
+            if (u < 0 || v < 0) {
+                return;
+            }
+            adjacency(u).remove(v);
+            adjacency(v).remove(u);
+        }
+
+        private Adjacency adjacency(int v) {
+            Adjacency adjacency = touched.get(v);
+            if (adjacency == null) {
+                adjacency = new Adjacency();
+                for (int i = 0, degree = base.degree(v); i < degree; i++) {
+                    adjacency.add(base.target(v, i), base.weight(v, i));
+                }
+                touched.put(v, adjacency);
+            }
+            return adjacency;
+        }
+
+        private Snapshot build() {
+            int segmentCount = (cityCount + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT;
+            Segment[] segments = Arrays.copyOf(base.segments, segmentCount);
+            Set<Integer> dirty = new TreeSet<>();
+            for (int v : touched.keySet()) {
+                dirty.add(v >>> SEGMENT_SHIFT);
+            }
+            int locatedCount = base.locatedCount;
+            for (int v : positions.keySet()) {
+                dirty.add(v >>> SEGMENT_SHIFT);
+                if (v >= base.cityCount || !hasPosition(base, v)) {
+                    locatedCount++;
+                }
+            }
+
+            int edgeCount = base.edgeCount;
+            for (int s : dirty) {
+                Segment old = s < base.segments.length ? base.segments[s] : null;
+                int first = s << SEGMENT_SHIFT;
+                int length = Math.min(SEGMENT_SIZE, cityCount - first);
+                String[] names = new String[length];
+                int[] offsets = new int[length + 1];
+                for (int local = 0; local < length; local++) {
+                    int v = first + local;
+                    names[local] = v < base.cityCount ? old.names[local] : newCities.get(v - base.cityCount);
+                    Adjacency adjacency = touched.get(v);
+                    int degree = adjacency != null ? adjacency.size : base.degree(v);
+                    offsets[local + 1] = offsets[local] + degree;
+                    if (adjacency != null) {
+                        edgeCount += degree - (v < base.cityCount ? base.degree(v) : 0);
+                    }
+                }
+
+                int[] targets = new int[offsets[length]];
+                int[] weights = new int[offsets[length]];
+                for (int local = 0; local < length; local++) {
+                    int v = first + local;
+                    Adjacency adjacency = touched.get(v);
+                    int start = offsets[local];
+                    int degree = offsets[local + 1] - start;
+                    if (adjacency != null) {
+                        System.arraycopy(adjacency.targets, 0, targets, start, degree);
+                        System.arraycopy(adjacency.weights, 0, weights, start, degree);
+                    } else {
+                        System.arraycopy(old.targets, old.offsets[local], targets, start, degree);
+                        System.arraycopy(old.weights, old.offsets[local], weights, start, degree);
+                    }
+                }
+                double[] latitudes = null;
+                double[] longitudes = null;
+                for (int local = 0; local < length; local++) {
+                    int v = first + local;
+                    double[] position = positions.get(v);
+                    if (position == null && !(v < base.cityCount && hasPosition(base, v))) {
+                        continue;
+                    }
+                    if (latitudes == null) {
+                        latitudes = new double[length];
+                        longitudes = new double[length];
+                        Arrays.fill(latitudes, Double.NaN);
+                        Arrays.fill(longitudes, Double.NaN);
+                    }
+                    latitudes[local] = position != null ? position[0] : old.latitudes[local];
+                    longitudes[local] = position != null ? position[1] : old.longitudes[local];
+                }
+                segments[s] = new Segment(names, offsets, targets, weights, latitudes, longitudes);
+            }
+            return new Snapshot(ConcurrentGraph.this, base.version + 1, cityCount, edgeCount,
+                    locatedCount, segments);
+        }
+
+        private boolean hasPosition(Snapshot snapshot, int v) {
+            double[] latitudes = snapshot.segments[v >>> SEGMENT_SHIFT].latitudes;
+            return latitudes != null && !Double.isNaN(latitudes[v & SEGMENT_MASK]);
+        }
+    }
+
+    /**
+     * Growable edge list of one vertex during a commit
+     */
+    private static final class Adjacency {
+        int[] targets = new int[4];
+        int[] weights = new int[4];
+        int size;
+
+        void add(int target, int weight) {
+            if (size == targets.length) {
+                targets = Arrays.copyOf(targets, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            targets[size] = target;
+            weights[size] = weight;
+            size++;
+        }
+
+        void remove(int target) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (targets[i] != target) {
+                    targets[kept] = targets[i];
+                    weights[kept] = weights[i];
+                    kept++;
+                }
+            }
+            size = kept;
+        }
+    }
+}
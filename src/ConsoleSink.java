@@ -0,0 +1,35 @@
+import java.io.PrintStream;
+
+/**
+ * Prints each query the way PathFinder always has
+ * This is PathFinder's default sink; setVerbose(false) removes it.
+ */
+public class ConsoleSink implements MetricsSink {
+    private final PrintStream out;
+
+    public ConsoleSink(PrintStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void record(QueryMetrics metrics) {
+        long time = metrics.getElapsedNanos();
+        if (!metrics.isFound()) {
+            out.println(metrics.getAlgorithm() + " - No path found from " + metrics.getStart()
+                    + " to " + metrics.getGoal());
+            out.println("Execution time: " + time + " ns");
+            return;
+        }
+
+        String algorithm = metrics.getAlgorithm() + (metrics.isCached() ? " (cached)" : "");
+        out.println("\n" + algorithm + " Results:");
+        out.println("Path: " + String.join(" -> ", metrics.getPath()));
+        out.println("Total Distance: " + metrics.getDistance() + " km");
+        out.println("Execution Time: " + time + " ns (" + (time / 1000000.0) + " ms)");
+        if (metrics.getSettledCount() > 0) {
+            out.println("Vertices settled: " + metrics.getSettledCount()
+                    + ", edges relaxed: " + metrics.getRelaxedCount()
+                    + ", hops: " + metrics.getHops());
+        }
+    }
+}
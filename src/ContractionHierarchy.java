@@ -0,0 +1,567 @@
+import java.nio.IntBuffer;
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Contraction Hierarchies: preprocessing output and (de)serialization
+ *
+ * Preprocessing contracts vertices one importance level at a time. Removing
+ * v adds a shortcut u -> w (weight d(u,v) + d(v,w), middle vertex v) for every
+ * in-neighbor u and out-neighbor w unless a witness search finds a path
+ * u -> w avoiding v that is no longer. Vertices are ordered by
+ *   priority = 2 x edge difference (shortcuts added - edges removed)
+ *            + deleted neighbors (contracted neighbors so far)
+ * The deleted-neighbors term spreads contractions evenly over the graph.
+ * Each round contracts, in parallel, every vertex whose priority is a strict
+ * local minimum among its remaining neighbors. Such a set is independent,
+ * and its witness searches avoid the whole set, so the shortcuts of one
+ * vertex never rely on a path through another vertex of the same round.
+ *
+ * The result is two upward graphs in CSR form, indexed by the lower vertex:
+ *   up    v -> w with rank[w] > rank[v]         (forward search)
+ *   down  w -> v with rank[w] > rank[v], at v   (backward search)
+ * Each arc carries the middle vertex of its shortcut, or -1 for an original
+ * edge, so CHSearch can unpack paths back to original edges.
+ * The arrays are IntBuffers so a hierarchy can be served from a mapped
+ * GraphFile section as well as from the heap.
+ */
+public class ContractionHierarchy {
+    public static final int INFINITY = Integer.MAX_VALUE;
+
+    // Witness searches give up after this many settled vertices; giving up
+    // only costs a possibly unnecessary shortcut, never correctness.
+    // Priority estimates use a much smaller budget than real contractions.
+    private static final int WITNESS_SETTLE_LIMIT = 500;
+    private static final int ESTIMATE_SETTLE_LIMIT = 30;
+
+    private final int cityCount;
+    private final IntBuffer rank;
+    private final IntBuffer upOffsets;
+    private final IntBuffer upTargets;
+    private final IntBuffer upWeights;
+    private final IntBuffer upMiddles;
+    private final IntBuffer downOffsets;
+    private final IntBuffer downSources;
+    private final IntBuffer downWeights;
+    private final IntBuffer downMiddles;
+
+    private ContractionHierarchy(int cityCount, IntBuffer rank,
+            IntBuffer upOffsets, IntBuffer upTargets, IntBuffer upWeights, IntBuffer upMiddles,
+            IntBuffer downOffsets, IntBuffer downSources, IntBuffer downWeights, IntBuffer downMiddles) {
+        this.cityCount = cityCount;
+        this.rank = rank;
+        this.upOffsets = upOffsets;
+        this.upTargets = upTargets;
+        this.upWeights = upWeights;
+        this.upMiddles = upMiddles;
+        this.downOffsets = downOffsets;
+        this.downSources = downSources;
+        this.downWeights = downWeights;
+        this.downMiddles = downMiddles;
+    }
+
+    public int getCityCount() {
+        return cityCount;
+    }
+
+    public int getRank(int city) {
+        return rank.get(city);
+    }
+
+    /**
+     * Number of arcs in both upward graphs, shortcuts included
+     */
+    public int getArcCount() {
+        return upTargets.capacity() + downSources.capacity();
+    }
+
+    int upStart(int city) {
+        return upOffsets.get(city);
+    }
+
+    int upEnd(int city) {
+        return upOffsets.get(city + 1);
+    }
+
+    int upTarget(int arc) {
+        return upTargets.get(arc);
+    }
+
+    int upWeight(int arc) {
+        return upWeights.get(arc);
+    }
+
+    int upMiddle(int arc) {
+        return upMiddles.get(arc);
+    }
+
+    int downStart(int city) {
+        return downOffsets.get(city);
+    }
+
+    int downEnd(int city) {
+        return downOffsets.get(city + 1);
+    }
+
+    int downSource(int arc) {
+        return downSources.get(arc);
+    }
+
+    int downWeight(int arc) {
+        return downWeights.get(arc);
+    }
+
+    int downMiddle(int arc) {
+        return downMiddles.get(arc);
+    }
+
+    /**
+     * Middle vertex of the hierarchy arc from -> to (-1 for an original edge)
+     * The arc lives with whichever endpoint has the lower rank: O(degree)
+     */
+    int middle(int from, int to) {
+        if (rank.get(from) < rank.get(to)) {
+            for (int a = upStart(from), end = upEnd(from); a < end; a++) {
+                if (upTarget(a) == to) {
+                    return upMiddle(a);
+                }
+            }
+        } else {
+            for (int a = downStart(to), end = downEnd(to); a < end; a++) {
+                if (downSource(a) == from) {
+                    return downMiddle(a);
+                }
+            }
+        }
+        throw new IllegalStateException("No hierarchy arc " + from + " -> " + to);
+    }
+
+    /**
+     * Build the hierarchy: O(rounds x contracted neighborhoods), parallel per round
+     */
+    public static ContractionHierarchy build(IndexedGraph graph) {
+        return new Contraction(graph).run();
+    }
+
+    /**
+     * Serialize as one int section for GraphFile:
+     * n, up arc count, down arc count, rank, up CSR (offsets, targets, weights,
+     * middles), down CSR (offsets, sources, weights, middles)
+     */
+    public int[] toSection() {
+        int n = cityCount;
+        int up = upTargets.capacity();
+        int down = downSources.capacity();
+        int[] section = new int[3 + n + 2 * (n + 1) + 3 * up + 3 * down];
+        section[0] = n;
+        section[1] = up;
+        section[2] = down;
+        int position = 3;
+        for (IntBuffer part : new IntBuffer[] { rank, upOffsets, upTargets, upWeights, upMiddles,
+                downOffsets, downSources, downWeights, downMiddles }) {
+            part.get(0, section, position, part.capacity());
+            position += part.capacity();
+        }
+        return section;
+    }
+
+    /**
+     * Hierarchy backed by a (possibly memory-mapped) section: O(1), no copying
+     */
+    public static ContractionHierarchy fromSection(IntBuffer section) {
+        int n = section.get(0);
+        int up = section.get(1);
+        int down = section.get(2);
+        int[] sizes = { n, n + 1, up, up, up, n + 1, down, down, down };
+        IntBuffer[] parts = new IntBuffer[sizes.length];
+        int position = 3;
+        for (int i = 0; i < sizes.length; i++) {
+            parts[i] = section.slice(position, sizes[i]);
+            position += sizes[i];
+        }
+        return new ContractionHierarchy(n, parts[0], parts[1], parts[2], parts[3], parts[4],
+                parts[5], parts[6], parts[7], parts[8]);
+    }
+
+    /**
+     * Mutable state of one preprocessing run
+     * Adjacency lists hold (neighbor, weight, middle) triples of the graph
+     * that is left after the contractions so far, shortcuts included.
+     */
+    private static class Contraction {
+        private final int n;
+        private final int[][] out;
+        private final int[][] in;
+        private final int[] outSize;
+        private final int[] inSize;
+        private final boolean[] contracted;
+        private final boolean[] inRound;
+        private final int[] deleted;
+        private final int[] priority;
+        private final int[] rank;
+        private final int[][] up;
+        private final int[][] down;
+        private final ThreadLocal<WitnessSearch> witness;
+
+        Contraction(IndexedGraph graph) {
+            n = graph.getCityCount();
+            out = new int[n][];
+            in = new int[n][];
+            outSize = new int[n];
+            inSize = new int[n];
+            contracted = new boolean[n];
+            inRound = new boolean[n];
+            deleted = new int[n];
+            priority = new int[n];
+            rank = new int[n];
+            up = new int[n][];
+            down = new int[n][];
+            witness = ThreadLocal.withInitial(() -> new WitnessSearch(this));
+
+            for (int v = 0; v < n; v++) {
+                out[v] = new int[3 * Math.max(1, graph.degree(v))];
+                in[v] = new int[3 * Math.max(1, graph.degree(v))];
+            }
+            for (int v = 0; v < n; v++) {
+                for (int i = 0, degree = graph.degree(v); i < degree; i++) {
+                    int w = graph.target(v, i);
+                    if (w != v) {
+                        addArc(out, outSize, v, w, graph.weight(v, i), -1);
+                        addArc(in, inSize, w, v, graph.weight(v, i), -1);
+                    }
+                }
+            }
+        }
+
+        ContractionHierarchy run() {
+            IntStream.range(0, n).parallel().forEach(v -> priority[v] = computePriority(v));
+
+            int[] remaining = new int[n];
+            for (int v = 0; v < n; v++) {
+                remaining[v] = v;
+            }
+            int remainingCount = n;
+            int nextRank = 0;
+            boolean[] affected = new boolean[n];
+
+            while (remainingCount > 0) {
+                // Independent set: strict local minima of (priority, id)
+                int[] round = new int[remainingCount];
+                int roundSize = 0;
+                for (int i = 0; i < remainingCount; i++) {
+                    int v = remaining[i];
+                    if (isLocalMinimum(v)) {
+                        round[roundSize++] = v;
+                    }
+                }
+                for (int i = 0; i < roundSize; i++) {
+                    inRound[round[i]] = true;
+                }
+
+                // Witness searches in parallel; the graph is read-only here
+                int[][] shortcuts = new int[roundSize][];
+                final int[] members = round;
+                IntStream.range(0, roundSize).parallel().forEach(i -> {
+                    IntList list = new IntList();
+                    witness.get().shortcuts(members[i], list);
+                    shortcuts[i] = list.toArray();
+                });
+
+                // Apply sequentially
+                int affectedCount = 0;
+                int[] affectedList = new int[16];
+                for (int i = 0; i < roundSize; i++) {
+                    int v = round[i];
+                    rank[v] = nextRank++;
+                    up[v] = Arrays.copyOf(out[v], 3 * outSize[v]);
+                    down[v] = Arrays.copyOf(in[v], 3 * inSize[v]);
+
+                    for (int a = 0; a < outSize[v]; a++) {
+                        int w = out[v][3 * a];
+                        removeArc(in, inSize, w, v);
+                        deleted[w]++;
+                        if (!affected[w]) {
+                            affected[w] = true;
+                            affectedList = push(affectedList, affectedCount++, w);
+                        }
+                    }
+                    for (int a = 0; a < inSize[v]; a++) {
+                        int u = in[v][3 * a];
+                        removeArc(out, outSize, u, v);
+                        deleted[u]++;
+                        if (!affected[u]) {
+                            affected[u] = true;
+                            affectedList = push(affectedList, affectedCount++, u);
+                        }
+                    }
+                    int[] added = shortcuts[i];
+                    for (int s = 0; s < added.length; s += 3) {
+                        addArc(out, outSize, added[s], added[s + 1], added[s + 2], v);
+                        addArc(in, inSize, added[s + 1], added[s], added[s + 2], v);
+                    }
+                    contracted[v] = true;
+                    out[v] = null;
+                    in[v] = null;
+                }
+                for (int i = 0; i < roundSize; i++) {
+                    inRound[round[i]] = false;
+                }
+
+                // Neighbors' priorities changed; recompute them in parallel
+                final int[] touched = affectedList;
+                IntStream.range(0, affectedCount).parallel().forEach(i -> {
+                    int v = touched[i];
+                    if (!contracted[v]) {
+                        priority[v] = computePriority(v);
+                    }
+                });
+                for (int i = 0; i < affectedCount; i++) {
+                    affected[affectedList[i]] = false;
+                }
+
+                int kept = 0;
+                for (int i = 0; i < remainingCount; i++) {
+                    if (!contracted[remaining[i]]) {
+                        remaining[kept++] = remaining[i];
+                    }
+                }
+                remainingCount = kept;
+            }
+
+            return toHierarchy();
+        }
+
+        private boolean isLocalMinimum(int v) {
+            long key = ((long) priority[v] << 32) | v;
+            for (int a = 0; a < outSize[v]; a++) {
+                int w = out[v][3 * a];
+                if ((((long) priority[w] << 32) | w) < key) {
+                    return false;
+                }
+            }
+            for (int a = 0; a < inSize[v]; a++) {
+                int u = in[v][3 * a];
+                if ((((long) priority[u] << 32) | u) < key) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int computePriority(int v) {
+            int shortcuts = witness.get().shortcuts(v, null);
+            int edgeDifference = shortcuts - outSize[v] - inSize[v];
+            return 2 * edgeDifference + deleted[v];
+        }
+
+        private ContractionHierarchy toHierarchy() {
+            int[] upOffsets = new int[n + 1];
+            int[] downOffsets = new int[n + 1];
+            for (int v = 0; v < n; v++) {
+                upOffsets[v + 1] = upOffsets[v] + up[v].length / 3;
+                downOffsets[v + 1] = downOffsets[v] + down[v].length / 3;
+            }
+            int[] upTargets = new int[upOffsets[n]];
+            int[] upWeights = new int[upOffsets[n]];
+            int[] upMiddles = new int[upOffsets[n]];
+            int[] downSources = new int[downOffsets[n]];
+            int[] downWeights = new int[downOffsets[n]];
+            int[] downMiddles = new int[downOffsets[n]];
+            for (int v = 0; v < n; v++) {
+                for (int a = 0, e = upOffsets[v]; a < up[v].length; a += 3, e++) {
+                    upTargets[e] = up[v][a];
+                    upWeights[e] = up[v][a + 1];
+                    upMiddles[e] = up[v][a + 2];
+                }
+                for (int a = 0, e = downOffsets[v]; a < down[v].length; a += 3, e++) {
+                    downSources[e] = down[v][a];
+                    downWeights[e] = down[v][a + 1];
+                    downMiddles[e] = down[v][a + 2];
+                }
+            }
+            return new ContractionHierarchy(n, IntBuffer.wrap(rank),
+                    IntBuffer.wrap(upOffsets), IntBuffer.wrap(upTargets),
+                    IntBuffer.wrap(upWeights), IntBuffer.wrap(upMiddles),
+                    IntBuffer.wrap(downOffsets), IntBuffer.wrap(downSources),
+                    IntBuffer.wrap(downWeights), IntBuffer.wrap(downMiddles));
+        }
+
+        /**
+         * Add or shorten the arc v -> neighbor in one adjacency direction
+         */
+        private static void addArc(int[][] lists, int[] sizes, int v, int neighbor, int weight, int middle) {
+            int[] list = lists[v];
+            int size = sizes[v];
+            for (int a = 0; a < size; a++) {
+                if (list[3 * a] == neighbor) {
+                    if (weight < list[3 * a + 1]) {
+                        list[3 * a + 1] = weight;
+                        list[3 * a + 2] = middle;
+                    }
+                    return;
+                }
+            }
+            if (3 * size + 3 > list.length) {
+                list = Arrays.copyOf(list, Math.max(6, list.length * 2));
+                lists[v] = list;
+            }
+            list[3 * size] = neighbor;
+            list[3 * size + 1] = weight;
+            list[3 * size + 2] = middle;
+            sizes[v] = size + 1;
+        }
+
+        private static void removeArc(int[][] lists, int[] sizes, int v, int neighbor) {
+            int[] list = lists[v];
+            int size = sizes[v];
+            for (int a = 0; a < size; a++) {
+                if (list[3 * a] == neighbor) {
+                    int last = 3 * (size - 1);
+                    list[3 * a] = list[last];
+                    list[3 * a + 1] = list[last + 1];
+                    list[3 * a + 2] = list[last + 2];
+                    sizes[v] = size - 1;
+                    return;
+                }
+            }
+        }
+
+        private static int[] push(int[] list, int index, int value) {
+            if (index == list.length) {
+                list = Arrays.copyOf(list, list.length * 2);
+            }
+            list[index] = value;
+            return list;
+        }
+    }
+
+    /**
+     * Per-thread local Dijkstra for witness searches
+     * Generation stamps make the reset between searches O(1).
+     */
+    private static class WitnessSearch {
+        private final Contraction c;
+        private final int[] distance;
+        private final int[] stamp;
+        private final int[] targetStamp;
+        private final IndexedHeap heap;
+        private int generation;
+
+        WitnessSearch(Contraction c) {
+            this.c = c;
+            distance = new int[c.n];
+            stamp = new int[c.n];
+            targetStamp = new int[c.n];
+            heap = new IndexedHeap(c.n);
+        }
+
+        /**
+         * Shortcuts needed to contract v; appended to result as
+         * (from, to, weight) triples when result is not null
+         */
+        int shortcuts(int v, IntList result) {
+            int count = 0;
+            int[] in = c.in[v];
+            int[] out = c.out[v];
+            for (int a = 0; a < c.inSize[v]; a++) {
+                int u = in[3 * a];
+                int toV = in[3 * a + 1];
+
+                generation++;
+                int limit = -1;
+                int targets = 0;
+                for (int b = 0; b < c.outSize[v]; b++) {
+                    int w = out[3 * b];
+                    if (w != u) {
+                        limit = Math.max(limit, toV + out[3 * b + 1]);
+                        targetStamp[w] = generation;
+                        targets++;
+                    }
+                }
+                if (limit < 0) {
+                    continue; // u is v's only out-neighbor
+                }
+                search(u, v, limit, targets,
+                        result == null ? ESTIMATE_SETTLE_LIMIT : WITNESS_SETTLE_LIMIT);
+
+                for (int b = 0; b < c.outSize[v]; b++) {
+                    int w = out[3 * b];
+                    if (w == u) {
+                        continue;
+                    }
+                    int via = toV + out[3 * b + 1];
+                    if (distance(w) > via) {
+                        count++;
+                        if (result != null) {
+                            result.add(u);
+                            result.add(w);
+                            result.add(via);
+                        }
+                    }
+                }
+            }
+            return count;
+        }
+
+        private int distance(int vertex) {
+            return stamp[vertex] == generation ? distance[vertex] : INFINITY;
+        }
+
+        /**
+         * Dijkstra from source avoiding the vertex being contracted, the rest
+         * of its round and everything already contracted; stops once all
+         * targets are settled or the distance exceeds limit
+         */
+        private void search(int source, int avoid, int limit, int targets, int settleLimit) {
+            heap.clear();
+            distance[source] = 0;
+            stamp[source] = generation;
+            heap.insert(source, 0);
+            int settled = 0;
+
+            while (!heap.isEmpty() && settled < settleLimit) {
+                int current = heap.poll();
+                settled++;
+                int currentDistance = distance[current];
+                if (currentDistance > limit) {
+                    break;
+                }
+                if (targetStamp[current] == generation && --targets == 0) {
+                    break;
+                }
+                int[] list = c.out[current];
+                for (int a = 0; a < c.outSize[current]; a++) {
+                    int next = list[3 * a];
+                    if (next == avoid || c.inRound[next]) {
+                        continue;
+                    }
+                    int newDist = currentDistance + list[3 * a + 1];
+                    if (newDist < distance(next)) {
+                        distance[next] = newDist;
+                        stamp[next] = generation;
+                        heap.insertOrDecrease(next, newDist);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Growable int list for collecting shortcut triples
+     */
+    private static class IntList {
+        private int[] values = new int[12];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
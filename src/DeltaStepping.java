@@ -0,0 +1,414 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Parallel single-source shortest paths by delta-stepping (Meyer-Sanders)
+ * Vertices are kept in buckets of width delta by tentative distance. The
+ * lowest non-empty bucket is settled in phases: all its vertices relax
+ * their light arcs (weight <= delta) in parallel, which may refill the same
+ * bucket, until it stays empty; then the vertices settled in it relax
+ * their heavy arcs once. Each phase is split into fork-join tasks of GRAIN
+ * vertices.
+ * Distances are lowered lock-free by compare-and-set on an
+ * AtomicIntegerArray. Tasks collect improved vertices in thread-local
+ * buffers per bucket and hand them over as whole int[] chunks, so the
+ * shared buckets see one lock-free append per task, not per vertex.
+ * Buckets are cyclic: no arc spans more than maxWeight / delta + 1 of
+ * them, so that many (+1) are ever live.
+ * The distances are exactly those of sequential Dijkstra; predecessors are
+ * derived afterwards in a parallel pass over the reverse arcs, taking only
+ * strictly closer cities, so they always form a tree. Cities reached only
+ * over 0-weight arcs (edges under 1 km) are linked by a short sequential
+ * pass after it.
+ * A search runs in parallel, but an engine answers one search at a time.
+ * Time Complexity: O(V + E + L / delta) phases of parallel work, L the
+ * largest distance; O((V + E) log V)-like total work for a fitting delta
+ */
+public class DeltaStepping implements SearchCounters {
+    public static final int INFINITY = Integer.MAX_VALUE;
+    private static final int GRAIN = 512;
+    private static final int MAX_BUCKETS = 1 << 16;
+
+    private static final int RESET = 0;
+    private static final int LIGHT = 1;
+    private static final int HEAVY = 2;
+    private static final int PREVIOUS = 3;
+
+    private final IndexedGraph graph;
+    private final ForkJoinPool pool;
+    private final int delta;
+    private final int bucketCount;
+    private final AtomicIntegerArray distance;
+    private final AtomicIntegerArray lightDone;  // distance at which light arcs were relaxed, -1 if not
+    private final AtomicIntegerArray heavyDone;
+    private final ConcurrentLinkedQueue<int[]>[] buckets;
+    private final ConcurrentLinkedQueue<int[]> settledChunks = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<Worker> workers;
+    private final LongAdder settledCount = new LongAdder();
+    private final LongAdder relaxedCount = new LongAdder();
+    private final LongAdder pushCount = new LongAdder();
+
+    private int source = -1;
+    private int currentBucket;
+    private int[] previous;
+
+    public DeltaStepping(IndexedGraph graph) {
+        this(graph, defaultDelta(graph), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Engine with the given bucket width; a width too small for the
+     * heaviest arc is raised so that at most MAX_BUCKETS buckets are live
+     */
+    @SuppressWarnings("unchecked")
+    public DeltaStepping(IndexedGraph graph, int delta, ForkJoinPool pool) {
+        if (delta <= 0) {
+            throw new IllegalArgumentException("delta must be positive: " + delta);
+        }
+        this.graph = graph;
+        this.pool = pool;
+        int maxWeight = Math.max(1, graph.getMaxWeight());
+        this.delta = Math.max(delta, (int) (((long) maxWeight + MAX_BUCKETS - 3) / (MAX_BUCKETS - 2)));
+        this.bucketCount = maxWeight / this.delta + 2;
+        int n = graph.getCityCount();
+        distance = new AtomicIntegerArray(n);
+        lightDone = new AtomicIntegerArray(n);
+        heavyDone = new AtomicIntegerArray(n);
+        buckets = (ConcurrentLinkedQueue<int[]>[]) new ConcurrentLinkedQueue<?>[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new ConcurrentLinkedQueue<>();
+        }
+        workers = ThreadLocal.withInitial(Worker::new);
+    }
+
+    /**
+     * Heaviest arc over the average degree: about one light arc per vertex
+     */
+    public static int defaultDelta(IndexedGraph graph) {
+        int n = Math.max(1, graph.getCityCount());
+        double averageDegree = Math.max(1.0, (double) graph.getEdgeCount() / n);
+        return Math.max(1, (int) (graph.getMaxWeight() / averageDegree));
+    }
+
+    public IndexedGraph getGraph() {
+        return graph;
+    }
+
+    public int getDelta() {
+        return delta;
+    }
+
+    /**
+     * Distances from source to every city
+     */
+    public void search(int source) {
+        this.source = source;
+        previous = null;
+        settledCount.reset();
+        relaxedCount.reset();
+        pushCount.reset();
+        run(new Phase(null, 0, graph.getCityCount(), RESET));
+
+        distance.set(source, 0);
+        buckets[0].add(new int[] { source });
+        pushCount.increment();
+
+        int bucket = 0;
+        while (true) {
+            // Next non-empty bucket; a full empty cycle means done
+            int empty = 0;
+            while (buckets[bucket % bucketCount].isEmpty()) {
+                if (++empty == bucketCount) {
+                    return;
+                }
+                bucket++;
+            }
+            currentBucket = bucket;
+
+            int[] frontier;
+            while ((frontier = drain(buckets[bucket % bucketCount])) != null) {
+                run(new Phase(frontier, 0, frontier.length, LIGHT));
+            }
+            int[] settled = drain(settledChunks);
+            if (settled != null) {
+                run(new Phase(settled, 0, settled.length, HEAVY));
+            }
+            bucket++;
+        }
+    }
+
+    /**
+     * Distance from the last source, INFINITY if unreachable
+     */
+    public int getDistance(int city) {
+        return distance.get(city);
+    }
+
+    /**
+     * Predecessor of every city on a shortest path from the last source,
+     * -1 for the source and unreachable cities; computed in parallel on
+     * first use: O(E) work
+     */
+    public int[] predecessors() {
+        if (previous == null) {
+            previous = new int[graph.getCityCount()];
+            run(new Phase(null, 0, previous.length, PREVIOUS));
+            linkZeroWeightArcs();
+        }
+        return previous;
+    }
+
+    @Override
+    public int getSettledCount() {
+        return (int) Math.min(Integer.MAX_VALUE, settledCount.sum());
+    }
+
+    @Override
+    public int getRelaxedCount() {
+        return (int) Math.min(Integer.MAX_VALUE, relaxedCount.sum());
+    }
+
+    @Override
+    public int getPushCount() {
+        return (int) Math.min(Integer.MAX_VALUE, pushCount.sum());
+    }
+
+    /**
+     * Bucket entries whose vertex had moved on: improved into a lower
+     * bucket or already relaxed at the same distance
+     */
+    @Override
+    public int getStaleCount() {
+        return Math.max(0, getPushCount() - getSettledCount());
+    }
+
+    private void run(Phase phase) {
+        if (pool.getParallelism() > 1) {
+            pool.invoke(phase);
+        } else {
+            phase.compute();
+        }
+    }
+
+    /**
+     * All chunks queued so far as one array, null if there are none
+     */
+    private static int[] drain(ConcurrentLinkedQueue<int[]> chunks) {
+        if (chunks.isEmpty()) {
+            return null;
+        }
+        List<int[]> drained = new ArrayList<>();
+        int length = 0;
+        int[] chunk;
+        while ((chunk = chunks.poll()) != null) {
+            drained.add(chunk);
+            length += chunk.length;
+        }
+        int[] items = new int[length];
+        int offset = 0;
+        for (int[] c : drained) {
+            System.arraycopy(c, 0, items, offset, c.length);
+            offset += c.length;
+        }
+        return items;
+    }
+
+    /**
+     * One parallel pass over items[from..to) (or over cities from..to when
+     * items is null)
+     */
+    private final class Phase extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] items;
+        private final int from;
+        private final int to;
+        private final int kind;
+
+        Phase(int[] items, int from, int to, int kind) {
+            this.items = items;
+            this.from = from;
+            this.to = to;
+            this.kind = kind;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > GRAIN && inForkJoinPool()) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Phase(items, from, middle, kind), new Phase(items, middle, to, kind));
+                return;
+            }
+            Worker worker = workers.get();
+            switch (kind) {
+                case RESET:
+                    for (int v = from; v < to; v++) {
+                        distance.set(v, INFINITY);
+                        lightDone.set(v, -1);
+                        heavyDone.set(v, -1);
+                    }
+                    break;
+                case LIGHT:
+                    worker.relaxLight(items, from, to);
+                    break;
+                case HEAVY:
+                    worker.relaxHeavy(items, from, to);
+                    break;
+                default:
+                    findPredecessors(from, to);
+            }
+        }
+    }
+
+    private void findPredecessors(int from, int to) {
+        IndexedGraph reverse = graph.reverse();
+        for (int v = from; v < to; v++) {
+            previous[v] = -1;
+            int d = distance.get(v);
+            if (v == source || d == INFINITY) {
+                continue;
+            }
+            for (int i = 0, degree = reverse.degree(v); i < degree; i++) {
+                int u = reverse.target(v, i);
+                int du = distance.get(u);
+                // du < d: two cities joined by a 0-weight arc must not
+                // become each other's predecessor
+                if (du != INFINITY && du < d && du + reverse.weight(v, i) == d) {
+                    previous[v] = u;
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Give a predecessor to the cities left without one: each sits behind
+     * 0-weight arcs from a city at the same distance that has one. Linked
+     * breadth-first from the cities that do, so no cycle can form: O(V + E)
+     */
+    private void linkZeroWeightArcs() {
+        IndexedGraph reverse = graph.reverse();
+        IntQueue queue = new IntQueue();
+        for (int v = 0; v < previous.length; v++) {
+            if (previous[v] != -1 || v == source || distance.get(v) == INFINITY) {
+                continue;
+            }
+            for (int i = 0, degree = reverse.degree(v); i < degree; i++) {
+                int u = reverse.target(v, i);
+                if (reverse.weight(v, i) == 0 && (u == source || previous[u] != -1)
+                        && distance.get(u) == distance.get(v)) {
+                    previous[v] = u;
+                    queue.enqueue(v);
+                    break;
+                }
+            }
+        }
+        while (!queue.isEmpty()) {
+            int u = queue.dequeue();
+            for (int i = 0, degree = graph.degree(u); i < degree; i++) {
+                int v = graph.target(u, i);
+                if (graph.weight(u, i) == 0 && v != source && previous[v] == -1
+                        && distance.get(v) == distance.get(u)) {
+                    previous[v] = u;
+                    queue.enqueue(v);
+                }
+            }
+        }
+    }
+
+    /**
+     * Per-thread output buffers, one per bucket, created on first use
+     */
+    private final class Worker {
+        private final IntStack[] out = new IntStack[bucketCount];
+        private final IntStack touched = new IntStack();
+        private final IntStack settled = new IntStack();
+
+        void relaxLight(int[] items, int from, int to) {
+            long count = 0;
+            long tried = 0;
+            for (int k = from; k < to; k++) {
+                int v = items[k];
+                int d = distance.get(v);
+                if (d / delta != currentBucket || lightDone.getAndSet(v, d) == d) {
+                    continue; // stale entry
+                }
+                count++;
+                settled.push(v);
+                for (int i = 0, degree = graph.degree(v); i < degree; i++) {
+                    int w = graph.weight(v, i);
+                    if (w <= delta) {
+                        tried++;
+                        relax(graph.target(v, i), d + w);
+                    }
+                }
+            }
+            settledCount.add(count);
+            relaxedCount.add(tried);
+            if (!settled.isEmpty()) {
+                settledChunks.add(settled.toArray());
+                settled.clear();
+            }
+            flush();
+        }
+
+        void relaxHeavy(int[] items, int from, int to) {
+            long tried = 0;
+            for (int k = from; k < to; k++) {
+                int v = items[k];
+                int d = distance.get(v);
+                if (heavyDone.getAndSet(v, d) == d) {
+                    continue;
+                }
+                for (int i = 0, degree = graph.degree(v); i < degree; i++) {
+                    int w = graph.weight(v, i);
+                    if (w > delta) {
+                        tried++;
+                        relax(graph.target(v, i), d + w);
+                    }
+                }
+            }
+            relaxedCount.add(tried);
+            flush();
+        }
+
+        /**
+         * Lower distance[next] to newDist by compare-and-set, retrying
+         * while other threads lower it less
+         */
+        private void relax(int next, int newDist) {
+            int old;
+            do {
+                old = distance.get(next);
+                if (newDist >= old) {
+                    return;
+                }
+            } while (!distance.compareAndSet(next, old, newDist));
+
+            int bucket = (newDist / delta) % bucketCount;
+            if (out[bucket] == null) {
+                out[bucket] = new IntStack();
+            }
+            if (out[bucket].isEmpty()) {
+                touched.push(bucket);
+            }
+            out[bucket].push(next);
+        }
+
+        private void flush() {
+            long pushes = 0;
+            while (!touched.isEmpty()) {
+                int bucket = touched.pop();
+                pushes += out[bucket].size();
+                buckets[bucket].add(out[bucket].toArray());
+                out[bucket].clear();
+            }
+            pushCount.add(pushes);
+        }
+    }
+}
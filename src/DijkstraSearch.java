@@ -0,0 +1,206 @@
+/**
+ * Dijkstra engine over int vertex ids using a decrease-key vertex queue
+ * Weights are whole kilometres, so on graphs large enough for it the queue
+ * is a monotone integer one (Dial's buckets or a radix heap) instead of the
+ * comparison-based IndexedHeap. Ties between equally short predecessors
+ * go to the lowest id, so with positive weights every queue yields the
+ * same paths. A 0-weight arc (an edge under 1 km) never takes a tie, as
+ * two vertices at the same distance could then point at each other, so
+ * across such arcs the queues may pick different, equally short paths.
+ * Distances and predecessors live in a SearchWorkspace, reset in O(1)
+ * between searches, so a search allocates nothing and only touches the
+ * vertices it reaches.
+ * An engine is not thread-safe; use one per thread.
+ * Time Complexity: O((V + E) log V), O(V + E + L) on Dial's buckets with L
+ * the largest distance settled
+ */
+public class DijkstraSearch implements SearchCounters {
+    public static final int INFINITY = Integer.MAX_VALUE;
+    private static final int MIN_MONOTONE_CITIES = 4096;
+    private static final int MAX_BUCKETS = 1 << 16;
+    private static final int CITIES_PER_BUCKET = 16;
+
+    private final IndexedGraph graph;
+    private final SearchWorkspace workspace;
+    private final boolean monotone;
+    private final int bucketWeight;  // Dial's bucket span, -1 for the radix heap
+    private int settledCount;
+    private int relaxedCount;
+    private int pushCount;
+
+    public DijkstraSearch(IndexedGraph graph) {
+        this(graph, new SearchWorkspace(graph.getCityCount()));
+    }
+
+    /**
+     * Search in a given workspace, e.g. one from SearchWorkspace.acquire
+     */
+    public DijkstraSearch(IndexedGraph graph, SearchWorkspace workspace) {
+        this(graph, workspace, prefersMonotoneQueue(graph));
+    }
+
+    /**
+     * Search on a monotone queue (Dial's buckets when the weights are small
+     * next to the city count, else a RadixHeap) or on the IndexedHeap,
+     * whatever the graph; distances are the same either way, and so are
+     * paths unless ties run over 0-weight arcs
+     */
+    public DijkstraSearch(IndexedGraph graph, SearchWorkspace workspace, boolean monotone) {
+        this.graph = graph;
+        this.workspace = workspace;
+        this.monotone = monotone;
+        // Dial's buckets while the cursor sweeps few empty buckets per vertex
+        int maxWeight = monotone ? graph.getMaxWeight() : Integer.MAX_VALUE;
+        boolean fewBuckets = maxWeight <= MAX_BUCKETS
+                && maxWeight <= graph.getCityCount() / CITIES_PER_BUCKET;
+        this.bucketWeight = fewBuckets ? maxWeight : -1;
+    }
+
+    /**
+     * Monotone queues pay off once searches settle thousands of vertices;
+     * on smaller graphs the comparison heap is as fast
+     */
+    static boolean prefersMonotoneQueue(IndexedGraph graph) {
+        return graph.getCityCount() >= MIN_MONOTONE_CITIES;
+    }
+
+    /**
+     * Whether this engine's searches run on a monotone queue
+     */
+    public boolean isMonotone() {
+        return monotone;
+    }
+
+    private VertexQueue queue(SearchWorkspace ws) {
+        if (!monotone) {
+            return ws.heap();
+        }
+        return bucketWeight >= 0 ? ws.bucketQueue(bucketWeight) : ws.radixHeap();
+    }
+
+    public IndexedGraph getGraph() {
+        return graph;
+    }
+
+    public SearchWorkspace getWorkspace() {
+        return workspace;
+    }
+
+    /**
+     * Search from source until target is settled: O((V + E) log V)
+     * Pass target = -1 to build the full shortest-path tree.
+     * Returns the distance to target, or INFINITY if it is unreachable.
+     */
+    public int search(int source, int target) {
+        run(source, target, null, 0);
+        return target >= 0 ? workspace.distance(target) : 0;
+    }
+
+    /**
+     * Search from source until every city in targets[0..targetCount) is
+     * settled: O((V + E) log V); duplicates are allowed
+     * One such search answers a whole group of queries sharing a source.
+     */
+    public void search(int source, int[] targets, int targetCount) {
+        run(source, -1, targets, targetCount);
+    }
+
+    private void run(int source, int target, int[] targets, int targetCount) {
+        SearchWorkspace ws = workspace;
+        ws.reset();
+        VertexQueue heap = queue(ws);
+        settledCount = 0;
+        relaxedCount = 0;
+        pushCount = 1;
+
+        // Targets are marked with label 1 for this search
+        int remaining = 0;
+        for (int i = 0; i < targetCount; i++) {
+            if (ws.label(targets[i]) != 1) {
+                ws.setLabel(targets[i], 1);
+                remaining++;
+            }
+        }
+
+        ws.reach(source, 0, -1);
+        heap.insert(source, 0);
+
+        while (!heap.isEmpty()) {
+            int current = heap.poll();
+            settledCount++;
+
+            if (current == target)
+                break;
+            if (remaining > 0 && ws.label(current) == 1 && --remaining == 0)
+                break;
+
+            int currentDistance = ws.distance(current);
+            int degree = graph.degree(current);
+            relaxedCount += degree;
+            for (int i = 0; i < degree; i++) {
+                int neighbor = graph.target(current, i);
+                int newDist = currentDistance + graph.weight(current, i);
+
+                int oldDist = ws.distance(neighbor);
+                if (newDist < oldDist) {
+                    ws.reach(neighbor, newDist, current);
+                    heap.insertOrDecrease(neighbor, newDist);
+                    pushCount++;
+                } else if (newDist == oldDist && current < ws.previous(neighbor)
+                        && graph.weight(current, i) > 0) {
+                    // Ties go to the lowest predecessor id, whatever the
+                    // queue's settle order; 0-weight arcs are left out so
+                    // that predecessors never form a cycle
+                    ws.reach(neighbor, newDist, current);
+                }
+            }
+        }
+    }
+
+    public int getDistance(int city) {
+        return workspace.distance(city);
+    }
+
+    public int getPrevious(int city) {
+        return workspace.previous(city);
+    }
+
+    /**
+     * Number of vertices removed from the heap by the last search
+     */
+    @Override
+    public int getSettledCount() {
+        return settledCount;
+    }
+
+    @Override
+    public int getRelaxedCount() {
+        return relaxedCount;
+    }
+
+    @Override
+    public int getPushCount() {
+        return pushCount;
+    }
+
+    /**
+     * Path from the last source to target as city ids: O(path length)
+     * Returns an empty array if target was not reached.
+     */
+    public int[] path(int target) {
+        if (workspace.distance(target) == INFINITY) {
+            return new int[0];
+        }
+
+        int length = 0;
+        for (int current = target; current != -1; current = workspace.previous(current)) {
+            length++;
+        }
+
+        int[] path = new int[length];
+        for (int current = target; current != -1; current = workspace.previous(current)) {
+            path[--length] = current;
+        }
+        return path;
+    }
+}
@@ -0,0 +1,273 @@
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * All-pairs shortest-path distances in one flat row-major int array
+ * get(from, to) is distances[from * n + to]; unreachable pairs hold INFINITY.
+ *
+ * Two engines, both parallelised over the common fork-join pool:
+ * - blocked Floyd-Warshall for dense graphs, O(V^3) in cache-sized tiles
+ * - one Dijkstra per source for sparse graphs, O(V (V + E) log V)
+ * compute() picks whichever is cheaper for the graph's density.
+ *
+ * After an arc changes, arcDecreased / arcIncreased repair the matrix in
+ * place (Ramalingam-Reps style), touching only rows and entries whose
+ * shortest paths can use the arc, instead of recomputing everything.
+ */
+public class DistanceMatrix {
+    // Half of Integer.MAX_VALUE so INFINITY + INFINITY cannot overflow
+    public static final int INFINITY = Integer.MAX_VALUE / 2;
+
+    // 64 x 64 ints = 16 KB per tile, three tiles fit in L1/L2
+    private static final int BLOCK = 64;
+
+    private final int size;
+    private final int[] distances;
+
+    private DistanceMatrix(int size, int[] distances) {
+        this.size = size;
+        this.distances = distances;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Shortest distance from -> to: O(1), INFINITY if unreachable
+     */
+    public int get(int from, int to) {
+        return distances[from * size + to];
+    }
+
+    /**
+     * The backing row-major array (not a copy)
+     */
+    public int[] getDistances() {
+        return distances;
+    }
+
+    /**
+     * Pick the engine by density: Floyd-Warshall once E reaches about V^2 / 3,
+     * where its tight inner loop overtakes V heap-based searches
+     */
+    public static DistanceMatrix compute(IndexedGraph graph) {
+        int n = graph.getCityCount();
+        if (3.0 * graph.getEdgeCount() >= (double) n * n) {
+            return floydWarshall(graph);
+        }
+        return dijkstra(graph);
+    }
+
+    /**
+     * Cache-blocked parallel Floyd-Warshall: O(V^3) work, O(V^2) memory
+     * For each diagonal tile k: update tile (k,k), then row k and column k
+     * tiles in parallel, then every remaining tile in parallel.
+     */
+    public static DistanceMatrix floydWarshall(IndexedGraph graph) {
+        int n = graph.getCityCount();
+        int[] d = allocate(n);
+        Arrays.fill(d, INFINITY);
+        for (int i = 0; i < n; i++) {
+            d[i * n + i] = 0;
+            for (int e = 0, degree = graph.degree(i); e < degree; e++) {
+                int j = graph.target(i, e);
+                d[i * n + j] = Math.min(d[i * n + j], graph.weight(i, e));
+            }
+        }
+
+        int blocks = (n + BLOCK - 1) / BLOCK;
+        for (int k = 0; k < blocks; k++) {
+            final int kb = k;
+            updateTile(d, n, kb, kb, kb);
+
+            IntStream.range(0, blocks).parallel().forEach(b -> {
+                if (b != kb) {
+                    updateTile(d, n, kb, b, kb);
+                    updateTile(d, n, b, kb, kb);
+                }
+            });
+
+            IntStream.range(0, blocks * blocks).parallel().forEach(t -> {
+                int ib = t / blocks;
+                int jb = t % blocks;
+                if (ib != kb && jb != kb) {
+                    updateTile(d, n, ib, jb, kb);
+                }
+            });
+        }
+        return new DistanceMatrix(n, d);
+    }
+
+    /**
+     * Relax tile (ib, jb) through the intermediate vertices of tile kb
+     */
+    private static void updateTile(int[] d, int n, int ib, int jb, int kb) {
+        int iEnd = Math.min(n, (ib + 1) * BLOCK);
+        int jStart = jb * BLOCK;
+        int jEnd = Math.min(n, jStart + BLOCK);
+        int kEnd = Math.min(n, (kb + 1) * BLOCK);
+
+        for (int k = kb * BLOCK; k < kEnd; k++) {
+            int kRow = k * n;
+            for (int i = ib * BLOCK; i < iEnd; i++) {
+                int iRow = i * n;
+                int dik = d[iRow + k];
+                if (dik == INFINITY) {
+                    continue;
+                }
+                for (int j = jStart; j < jEnd; j++) {
+                    int through = dik + d[kRow + j];
+                    if (through < d[iRow + j]) {
+                        d[iRow + j] = through;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * One full Dijkstra tree per source, sources in parallel: O(V (V + E) log V)
+     * Each worker thread reuses its own DijkstraSearch.
+     */
+    public static DistanceMatrix dijkstra(IndexedGraph graph) {
+        int n = graph.getCityCount();
+        int[] d = allocate(n);
+        ThreadLocal<DijkstraSearch> searches = ThreadLocal.withInitial(() -> new DijkstraSearch(graph));
+
+        IntStream.range(0, n).parallel().forEach(source -> {
+            DijkstraSearch search = searches.get();
+            search.search(source, -1);
+            int row = source * n;
+            for (int v = 0; v < n; v++) {
+                int distance = search.getDistance(v);
+                d[row + v] = distance == DijkstraSearch.INFINITY ? INFINITY : distance;
+            }
+        });
+        return new DistanceMatrix(n, d);
+    }
+
+    /**
+     * Repair after the arc from -> to got cheaper or was added: O(n) to find
+     * the affected rows, O(n) per affected row
+     * Any new shortest path x -> y through the arc is x -> from -> to -> y,
+     * so each improved row only needs row "to" added on.
+     */
+    public void arcDecreased(int from, int to, int weight) {
+        int n = size;
+        int[] d = distances;
+        int toRow = to * n;
+        for (int x = 0; x < n; x++) {
+            int xFrom = d[x * n + from];
+            if (xFrom == INFINITY || xFrom + weight >= d[x * n + to]) {
+                continue; // x reaches "to" no faster, so nothing from x improves
+            }
+            int base = xFrom + weight;
+            int xRow = x * n;
+            for (int y = 0; y < n; y++) {
+                int toY = d[toRow + y];
+                if (toY != INFINITY && base + toY < d[xRow + y]) {
+                    d[xRow + y] = base + toY;
+                }
+            }
+        }
+    }
+
+    /**
+     * Repair after the arc from -> to got more expensive or was removed
+     * graph must already reflect the change. A row is affected only where
+     * the arc was tight (d[s][from] + oldWeight == d[s][to]); in such a row
+     * the affected targets are those with a shortest path through the arc.
+     * Their distances are reset, seeded from unaffected in-neighbors and
+     * settled by a Dijkstra confined to them: O(affected arcs log V) per row.
+     */
+    public void arcIncreased(IndexedGraph graph, int from, int to, int oldWeight) {
+        int n = size;
+        int[] d = distances;
+        int[] toRow = Arrays.copyOfRange(d, to * n, to * n + n);
+        IndexedGraph reverse = graph.reverse();
+        IndexedHeap heap = null;
+        boolean[] affected = null;
+        int[] members = null;
+
+        for (int s = 0; s < n; s++) {
+            int row = s * n;
+            int sFrom = d[row + from];
+            if (sFrom == INFINITY || sFrom + oldWeight != d[row + to]) {
+                continue;
+            }
+            if (heap == null) {
+                heap = new IndexedHeap(n);
+                affected = new boolean[n];
+                members = new int[n];
+            }
+
+            int count = 0;
+            int through = sFrom + oldWeight;
+            // The source stays at 0, even when a 0-weight arc back to it was tight
+            for (int y = 0; y < n; y++) {
+                if (y != s && toRow[y] != INFINITY && through + toRow[y] == d[row + y]) {
+                    affected[y] = true;
+                    members[count++] = y;
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                d[row + members[i]] = INFINITY;
+            }
+
+            // Best distance into each affected vertex from outside the set
+            for (int i = 0; i < count; i++) {
+                int a = members[i];
+                int best = INFINITY;
+                for (int e = 0, degree = reverse.degree(a); e < degree; e++) {
+                    int p = reverse.target(a, e);
+                    if (!affected[p] && d[row + p] != INFINITY) {
+                        best = Math.min(best, d[row + p] + reverse.weight(a, e));
+                    }
+                }
+                if (best != INFINITY) {
+                    d[row + a] = best;
+                    heap.insert(a, best);
+                }
+            }
+
+            while (!heap.isEmpty()) {
+                int current = heap.poll();
+                int currentDistance = d[row + current];
+                for (int e = 0, degree = graph.degree(current); e < degree; e++) {
+                    int next = graph.target(current, e);
+                    int newDist = currentDistance + graph.weight(current, e);
+                    if (newDist < d[row + next]) {
+                        d[row + next] = newDist;
+                        heap.insertOrDecrease(next, newDist);
+                    }
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                affected[members[i]] = false;
+            }
+        }
+    }
+
+    /**
+     * Copy with room for cities added since: O(n^2); new cities start unreachable
+     */
+    public DistanceMatrix grow(int newSize) {
+        int[] d = allocate(newSize);
+        Arrays.fill(d, INFINITY);
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(distances, i * size, d, i * newSize, size);
+        }
+        for (int i = size; i < newSize; i++) {
+            d[i * newSize + i] = 0;
+        }
+        return new DistanceMatrix(newSize, d);
+    }
+
+    private static int[] allocate(int n) {
+        if ((long) n * n > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many cities for a full distance matrix: " + n);
+        }
+        return new int[n * n];
+    }
+}
@@ -0,0 +1,215 @@
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Many-to-many distances |sources| x |targets| in one flat row-major int array
+ * get(i, j) is distances[i * columns + j], the distance from sources[i] to
+ * targets[j]; unreachable pairs (and unknown cities, id -1) hold INFINITY.
+ *
+ * Two engines, both parallelised over the common fork-join pool:
+ * - one Dijkstra per source that stops once every target is settled,
+ *   O(|S| (V + E) log V) at worst, far less when targets are near
+ * - bucket-based many-to-many on a ContractionHierarchy: an upward search
+ *   from every target over the down arcs drops (target, distance) into a
+ *   bucket at each vertex it settles; an upward search from every source
+ *   then scans the buckets of the vertices it settles. Every shortest path
+ *   has an up-down form, so d(s, t) = min over v of up(s, v) + down(v, t).
+ *   Each search only covers a few hundred vertices, so the table costs
+ *   O(|S| + |T|) small searches plus the bucket scans.
+ * Each row is written by exactly one source's search, so rows need no
+ * synchronization.
+ */
+public class DistanceTable {
+    public static final int INFINITY = Integer.MAX_VALUE;
+
+    private final int rows;
+    private final int columns;
+    private final int[] distances;
+
+    private DistanceTable(int rows, int columns, int[] distances) {
+        this.rows = rows;
+        this.columns = columns;
+        this.distances = distances;
+    }
+
+    public int getRowCount() {
+        return rows;
+    }
+
+    public int getColumnCount() {
+        return columns;
+    }
+
+    /**
+     * Distance from sources[row] to targets[column]
+     */
+    public int get(int row, int column) {
+        return distances[row * columns + column];
+    }
+
+    /**
+     * The backing row-major array (not a copy)
+     */
+    public int[] getDistances() {
+        return distances;
+    }
+
+    /**
+     * One multi-target Dijkstra per source, sources in parallel
+     * Each worker thread reuses its own DijkstraSearch.
+     */
+    public static DistanceTable compute(IndexedGraph graph, int[] sources, int[] targets) {
+        int columns = targets.length;
+        int[] d = allocate(sources.length, columns);
+        int[] known = Arrays.stream(targets).filter(t -> t >= 0).toArray();
+        ThreadLocal<DijkstraSearch> searches = ThreadLocal.withInitial(() -> new DijkstraSearch(graph));
+
+        IntStream.range(0, sources.length).parallel().forEach(i -> {
+            if (sources[i] < 0 || known.length == 0) {
+                return;
+            }
+            DijkstraSearch search = searches.get();
+            search.search(sources[i], known, known.length);
+            int row = i * columns;
+            for (int j = 0; j < columns; j++) {
+                if (targets[j] >= 0) {
+                    d[row + j] = search.getDistance(targets[j]);
+                }
+            }
+        });
+        return new DistanceTable(sources.length, columns, d);
+    }
+
+    /**
+     * Bucket-based many-to-many on a hierarchy: backward searches in
+     * parallel, buckets gathered into CSR arrays, forward searches in parallel
+     */
+    public static DistanceTable compute(ContractionHierarchy hierarchy, int[] sources, int[] targets) {
+        int n = hierarchy.getCityCount();
+        int columns = targets.length;
+
+        // Backward: the search space of each target, as (vertex, distance) pairs
+        int[][] spaceVertices = new int[columns][];
+        int[][] spaceDistances = new int[columns][];
+        IntStream.range(0, columns).parallel().forEach(j -> {
+            if (targets[j] < 0) {
+                spaceVertices[j] = new int[0];
+                spaceDistances[j] = new int[0];
+                return;
+            }
+            try (SearchWorkspace ws = SearchWorkspace.acquire(n)) {
+                IntStack settled = new IntStack();
+                upward(hierarchy, ws, targets[j], false, settled);
+                int[] vertices = settled.toArray();
+                int[] distances = new int[vertices.length];
+                for (int k = 0; k < vertices.length; k++) {
+                    distances[k] = ws.distance(vertices[k]);
+                }
+                spaceVertices[j] = vertices;
+                spaceDistances[j] = distances;
+            }
+        });
+
+        // Buckets in CSR form: entries of v are bucketStart[v]..bucketStart[v + 1]
+        int[] bucketStart = new int[n + 1];
+        for (int[] vertices : spaceVertices) {
+            for (int v : vertices) {
+                bucketStart[v + 1]++;
+            }
+        }
+        for (int v = 0; v < n; v++) {
+            bucketStart[v + 1] += bucketStart[v];
+        }
+        int[] fill = Arrays.copyOf(bucketStart, n);
+        int[] bucketColumn = new int[bucketStart[n]];
+        int[] bucketDistance = new int[bucketStart[n]];
+        for (int j = 0; j < columns; j++) {
+            int[] vertices = spaceVertices[j];
+            for (int k = 0; k < vertices.length; k++) {
+                int slot = fill[vertices[k]]++;
+                bucketColumn[slot] = j;
+                bucketDistance[slot] = spaceDistances[j][k];
+            }
+        }
+
+        // Forward: each source scans the buckets of its search space
+        int[] d = allocate(sources.length, columns);
+        IntStream.range(0, sources.length).parallel().forEach(i -> {
+            if (sources[i] < 0) {
+                return;
+            }
+            try (SearchWorkspace ws = SearchWorkspace.acquire(n)) {
+                IntStack settled = new IntStack();
+                upward(hierarchy, ws, sources[i], true, settled);
+                int row = i * columns;
+                while (!settled.isEmpty()) {
+                    int v = settled.pop();
+                    int up = ws.distance(v);
+                    for (int b = bucketStart[v], end = bucketStart[v + 1]; b < end; b++) {
+                        int distance = up + bucketDistance[b];
+                        if (distance < d[row + bucketColumn[b]]) {
+                            d[row + bucketColumn[b]] = distance;
+                        }
+                    }
+                }
+            }
+        });
+        return new DistanceTable(sources.length, columns, d);
+    }
+
+    /**
+     * Full upward search from root (up arcs if forward, down arcs if not)
+     * with stall-on-demand; settled receives every vertex that was not
+     * stalled, whose distance is then in the workspace
+     */
+    private static void upward(ContractionHierarchy h, SearchWorkspace ws, int root, boolean forward,
+            IntStack settled) {
+        IndexedHeap heap = ws.heap();
+        ws.reach(root, 0, -1);
+        heap.insert(root, 0);
+        while (!heap.isEmpty()) {
+            int current = heap.poll();
+            int currentDistance = ws.distance(current);
+            if (stalled(h, ws, current, currentDistance, forward)) {
+                continue;
+            }
+            settled.push(current);
+
+            int start = forward ? h.upStart(current) : h.downStart(current);
+            int end = forward ? h.upEnd(current) : h.downEnd(current);
+            for (int a = start; a < end; a++) {
+                int next = forward ? h.upTarget(a) : h.downSource(a);
+                int newDist = currentDistance + (forward ? h.upWeight(a) : h.downWeight(a));
+                if (newDist < ws.distance(next)) {
+                    ws.reach(next, newDist, current);
+                    heap.insertOrDecrease(next, newDist);
+                }
+            }
+        }
+    }
+
+    /**
+     * A higher vertex reaches current more cheaply through an arc of the
+     * opposite direction, so current is not on a shortest up path
+     */
+    private static boolean stalled(ContractionHierarchy h, SearchWorkspace ws, int current,
+            int currentDistance, boolean forward) {
+        int start = forward ? h.downStart(current) : h.upStart(current);
+        int end = forward ? h.downEnd(current) : h.upEnd(current);
+        for (int a = start; a < end; a++) {
+            int higher = forward ? h.downSource(a) : h.upTarget(a);
+            int higherDistance = ws.distance(higher);
+            if (higherDistance != INFINITY
+                    && (long) higherDistance + (forward ? h.downWeight(a) : h.upWeight(a)) < currentDistance) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int[] allocate(int rows, int columns) {
+        int[] d = new int[Math.multiplyExact(rows, columns)];
+        Arrays.fill(d, INFINITY);
+        return d;
+    }
+}
@@ -0,0 +1,204 @@
+import java.util.Arrays;
+
+/**
+ * Single-source shortest-path tree kept current as arcs change
+ * Instead of a new Dijkstra per change, only the affected part of the tree
+ * is repaired (Ramalingam-Reps style):
+ *   decrease / insert  if the arc shortens the path to its head, Dijkstra
+ *                      from the head, relaxing only vertices that improve
+ *   increase / delete  if the arc was a tree arc, the subtree below it is
+ *                      cut off, every vertex in it is re-seeded from its
+ *                      best in-neighbor outside the subtree, and Dijkstra
+ *                      settles the subtree again
+ * Changes to non-tree arcs that do not shorten anything cost O(1).
+ * The graph must be a live view that already reflects each change when
+ * arcChanged is called (e.g. Graph.live(), which also reports the changes
+ * through Graph.track).
+ * Not thread-safe.
+ */
+public class DynamicShortestPathTree implements Graph.Listener {
+    public static final int INFINITY = Integer.MAX_VALUE;
+
+    private final IndexedGraph graph;
+    private final int source;
+    private int[] distance;
+    private int[] previous;
+    private boolean[] affected;
+    private int[] members;
+    private IndexedHeap heap;
+    private long repairedCount;
+
+    /**
+     * Build the initial tree with one full Dijkstra: O((V + E) log V)
+     */
+    public DynamicShortestPathTree(IndexedGraph graph, int source) {
+        this.graph = graph;
+        this.source = source;
+        allocate(graph.getCityCount());
+        Arrays.fill(distance, INFINITY);
+        Arrays.fill(previous, -1);
+        distance[source] = 0;
+        heap.insert(source, 0);
+        propagate();
+        repairedCount = 0;
+    }
+
+    private void allocate(int n) {
+        int old = distance == null ? 0 : distance.length;
+        distance = distance == null ? new int[n] : Arrays.copyOf(distance, n);
+        previous = previous == null ? new int[n] : Arrays.copyOf(previous, n);
+        Arrays.fill(distance, old, n, INFINITY);
+        Arrays.fill(previous, old, n, -1);
+        affected = new boolean[n];
+        members = new int[n];
+        heap = new IndexedHeap(n);
+    }
+
+    public int getSource() {
+        return source;
+    }
+
+    public int getDistance(int city) {
+        return distance[city];
+    }
+
+    public int getPrevious(int city) {
+        return previous[city];
+    }
+
+    /**
+     * Vertices whose distance was re-settled by repairs so far
+     */
+    public long getRepairedCount() {
+        return repairedCount;
+    }
+
+    /**
+     * Path from the source to target as city ids, empty if unreachable
+     */
+    public int[] path(int target) {
+        if (distance[target] == INFINITY) {
+            return new int[0];
+        }
+
+        int length = 0;
+        for (int current = target; current != -1; current = previous[current]) {
+            length++;
+        }
+
+        int[] path = new int[length];
+        for (int current = target; current != -1; current = previous[current]) {
+            path[--length] = current;
+        }
+        return path;
+    }
+
+    @Override
+    public void cityAdded(int city) {
+        if (city >= distance.length) {
+            allocate(Math.max(city + 1, distance.length * 2));
+        }
+    }
+
+    /**
+     * Undirected change: both arcs between the cities changed
+     */
+    @Override
+    public void distanceChanged(int city1, int city2, int oldDistance, int newDistance) {
+        arcChanged(city1, city2, oldDistance, newDistance);
+        arcChanged(city2, city1, oldDistance, newDistance);
+    }
+
+    /**
+     * The cheapest arc from -> to went from oldWeight to newWeight
+     * (INFINITY meaning no arc). Called after the graph changed.
+     */
+    public void arcChanged(int from, int to, int oldWeight, int newWeight) {
+        if (newWeight < oldWeight) {
+            decrease(from, to, newWeight);
+        } else if (newWeight > oldWeight && previous[to] == from
+                && distance[from] != INFINITY && distance[from] + oldWeight == distance[to]) {
+            increase(to);
+        }
+    }
+
+    private void decrease(int from, int to, int weight) {
+        if (distance[from] == INFINITY) {
+            return;
+        }
+        int newDist = distance[from] + weight;
+        if (newDist < distance[to]) {
+            distance[to] = newDist;
+            previous[to] = from;
+            heap.insertOrDecrease(to, newDist);
+            propagate();
+        }
+    }
+
+    /**
+     * The tree arc into root got worse: re-settle root's subtree
+     */
+    private void increase(int root) {
+        // Collect the subtree: children of x are out-neighbors whose parent is x
+        int count = 0;
+        members[count++] = root;
+        affected[root] = true;
+        for (int i = 0; i < count; i++) {
+            int x = members[i];
+            for (int e = 0, degree = graph.degree(x); e < degree; e++) {
+                int child = graph.target(x, e);
+                if (!affected[child] && previous[child] == x) {
+                    affected[child] = true;
+                    members[count++] = child;
+                }
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            distance[members[i]] = INFINITY;
+            previous[members[i]] = -1;
+        }
+
+        // Seed each cut-off vertex from its best in-neighbor outside the subtree
+        IndexedGraph reverse = graph.reverse();
+        for (int i = 0; i < count; i++) {
+            int a = members[i];
+            for (int e = 0, degree = reverse.degree(a); e < degree; e++) {
+                int p = reverse.target(a, e);
+                if (!affected[p] && distance[p] != INFINITY) {
+                    int newDist = distance[p] + reverse.weight(a, e);
+                    if (newDist < distance[a]) {
+                        distance[a] = newDist;
+                        previous[a] = p;
+                    }
+                }
+            }
+            if (distance[a] != INFINITY) {
+                heap.insert(a, distance[a]);
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            affected[members[i]] = false;
+        }
+        propagate();
+    }
+
+    /**
+     * Dijkstra from the queued vertices; only improving vertices are queued
+     */
+    private void propagate() {
+        while (!heap.isEmpty()) {
+            int current = heap.poll();
+            repairedCount++;
+            int currentDistance = distance[current];
+            for (int e = 0, degree = graph.degree(current); e < degree; e++) {
+                int next = graph.target(current, e);
+                int newDist = currentDistance + graph.weight(current, e);
+                if (newDist < distance[next]) {
+                    distance[next] = newDist;
+                    previous[next] = current;
+                    heap.insertOrDecrease(next, newDist);
+                }
+            }
+        }
+    }
+}
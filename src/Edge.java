@@ -1,9 +1,11 @@
 public class Edge {
     String city;
+    int target;      // id of city in the owning Graph
     double distance;
 
-    public Edge(String city, double distance) {
+    public Edge(String city, int target, double distance) {
         this.city = city;
+        this.target = target;
         this.distance = distance;
     }
 }
@@ -0,0 +1,173 @@
+/**
+ * A* search with a straight-line lower bound from city coordinates
+ * The heap key of v is dist(s, v) + h(v) with h(v) = scale * |p(v) - p(t)|,
+ * where p is the unit vector of a city's position (so |p(v) - p(t)| is the
+ * chord, never longer than the great-circle arc). The scale is the lowest
+ * weight per unit of chord over all arcs, found in one pass when the
+ * engine is built; it converts chords into the graph's weight unit and
+ * makes h a lower bound even where a road is shorter than its endpoints'
+ * recorded distance, or where weights are not kilometres at all. Chords
+ * obey the triangle inequality, so h is consistent and every vertex is
+ * settled at most once.
+ * No preprocessing beyond that scan; on a graph without coordinates h is
+ * 0 and the search is plain Dijkstra.
+ * An engine is not thread-safe; use one per thread.
+ */
+public class GeometricSearch implements SearchCounters {
+    public static final int INFINITY = Integer.MAX_VALUE;
+
+    private final IndexedGraph graph;
+    private final SearchWorkspace workspace;
+    private final double[] points;   // x, y, z of city v at 3v .. 3v + 2, null without coordinates
+    private final double scale;
+    private int settledCount;
+    private int relaxedCount;
+    private int pushCount;
+
+    public GeometricSearch(IndexedGraph graph) {
+        this(graph, new SearchWorkspace(graph.getCityCount()));
+    }
+
+    public GeometricSearch(IndexedGraph graph, SearchWorkspace workspace) {
+        this.graph = graph;
+        this.workspace = workspace;
+        if (graph.hasCoordinates()) {
+            int n = graph.getCityCount();
+            points = new double[3 * n];
+            for (int v = 0; v < n; v++) {
+                KdTree.toUnitVector(graph.getLatitude(v), graph.getLongitude(v), points, 3 * v);
+            }
+            scale = scale(graph, points);
+        } else {
+            points = null;
+            scale = 0;
+        }
+    }
+
+    /**
+     * Lowest weight per unit of chord over all arcs between distinct
+     * positions, shaved slightly against rounding: O(E)
+     */
+    private static double scale(IndexedGraph graph, double[] points) {
+        double min = Double.POSITIVE_INFINITY;
+        for (int v = 0, n = graph.getCityCount(); v < n; v++) {
+            for (int i = 0, degree = graph.degree(v); i < degree; i++) {
+                double chord = chord(points, v, graph.target(v, i));
+                if (chord > 0) {
+                    min = Math.min(min, graph.weight(v, i) / chord);
+                }
+            }
+        }
+        return min == Double.POSITIVE_INFINITY ? 0 : min * (1 - 1e-9);
+    }
+
+    private static double chord(double[] points, int u, int v) {
+        double dx = points[3 * u] - points[3 * v];
+        double dy = points[3 * u + 1] - points[3 * v + 1];
+        double dz = points[3 * u + 2] - points[3 * v + 2];
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    public IndexedGraph getGraph() {
+        return graph;
+    }
+
+    public SearchWorkspace getWorkspace() {
+        return workspace;
+    }
+
+    /**
+     * Weight units per unit of chord in h, 0 when there is no usable bound
+     */
+    public double getScale() {
+        return scale;
+    }
+
+    /**
+     * Shortest distance source -> target, or INFINITY if unreachable
+     */
+    public int search(int source, int target) {
+        SearchWorkspace ws = workspace;
+        IndexedHeap heap = ws.heap();
+        ws.reset();
+        settledCount = 0;
+        relaxedCount = 0;
+        pushCount = 1;
+
+        ws.reach(source, 0, -1);
+        heap.insert(source, heuristic(source, target));
+
+        while (!heap.isEmpty()) {
+            int current = heap.poll();
+            settledCount++;
+
+            if (current == target)
+                break;
+
+            int currentDistance = ws.distance(current);
+            int degree = graph.degree(current);
+            relaxedCount += degree;
+            for (int i = 0; i < degree; i++) {
+                int neighbor = graph.target(current, i);
+                int newDist = currentDistance + graph.weight(current, i);
+
+                if (newDist < ws.distance(neighbor)) {
+                    ws.reach(neighbor, newDist, current);
+                    long key = (long) newDist + heuristic(neighbor, target);
+                    heap.insertOrDecrease(neighbor, (int) Math.min(key, INFINITY - 1));
+                    pushCount++;
+                }
+            }
+        }
+
+        return ws.distance(target);
+    }
+
+    /**
+     * h(v): the scaled chord to target, rounded down like the weights
+     */
+    private int heuristic(int v, int target) {
+        if (scale == 0) {
+            return 0;
+        }
+        return (int) Math.min(scale * chord(points, v, target), INFINITY - 1);
+    }
+
+    /**
+     * Number of vertices removed from the heap by the last search
+     */
+    @Override
+    public int getSettledCount() {
+        return settledCount;
+    }
+
+    @Override
+    public int getRelaxedCount() {
+        return relaxedCount;
+    }
+
+    @Override
+    public int getPushCount() {
+        return pushCount;
+    }
+
+    /**
+     * Path from the last source to target as city ids, empty if unreached
+     */
+    public int[] path(int target) {
+        if (workspace.distance(target) == INFINITY) {
+            return new int[0];
+        }
+
+        int length = 0;
+        for (int current = target; current != -1; current = workspace.previous(current)) {
+            length++;
+        }
+
+        int[] path = new int[length];
+        for (int current = target; current != -1; current = workspace.previous(current)) {
+            path[--length] = current;
+        }
+        return path;
+    }
+}
@@ -7,7 +7,34 @@ public class Graph {
     private Map<String, List<Edge>> adjacencyList;
     private List<String> cities;
     private Map<String, Integer> cityIndex;
-    private int[][] distanceMatrix;
+    private DistanceMatrix distanceMatrix;
+    private CompactGraph frozen;
+    private CityDictionary dictionary;  // kept across edge changes, dropped by addCity
+    private long version;
+    private List<List<Edge>> neighborsByIndex = new ArrayList<>();
+    private List<double[]> coordinates = new ArrayList<>();  // {latitude, longitude}, null if unknown
+    private int locatedCount;
+    private List<Listener> listeners = new ArrayList<>();
+    private LiveView live;
+
+    /**
+     * No edge between two cities, in Listener notifications
+     */
+    public static final int NO_EDGE = Integer.MAX_VALUE;
+
+    /**
+     * Notified after every change that can affect shortest paths
+     */
+    public interface Listener {
+        default void cityAdded(int city) {
+        }
+
+        /**
+         * The shortest edge between two cities changed (whole km,
+         * NO_EDGE when there is none); the graph already shows the change
+         */
+        void distanceChanged(int city1, int city2, int oldDistance, int newDistance);
+    }
 
     public Graph() {
         adjacencyList = new HashMap<>();
@@ -20,12 +47,50 @@ public class Graph {
      */
     public void addCity(String city) {
         if (!adjacencyList.containsKey(city)) {
-            adjacencyList.put(city, new ArrayList<>());
+            List<Edge> edges = new ArrayList<>();
+            adjacencyList.put(city, edges);
+            neighborsByIndex.add(edges);
+            coordinates.add(null);
             cityIndex.put(city, cities.size());
             cities.add(city);
+            dictionary = null;
+            changed();
+
+            int index = cities.size() - 1;
+            if (distanceMatrix != null) {
+                distanceMatrix = distanceMatrix.grow(cities.size());
+            }
+            for (Listener listener : listeners) {
+                listener.cityAdded(index);
+            }
         }
     }
 
+    /**
+     * Add city at a position in degrees: O(1) average
+     * An existing city keeps its edges and gets the new position.
+     */
+    public void addCity(String city, double latitude, double longitude) {
+        if (!(latitude >= -90 && latitude <= 90) || !(longitude >= -180 && longitude <= 180)) {
+            throw new IllegalArgumentException("Invalid coordinates for " + city + ": "
+                    + latitude + ", " + longitude);
+        }
+        addCity(city);
+        int index = cityIndex.get(city);
+        if (coordinates.get(index) == null) {
+            locatedCount++;
+        }
+        coordinates.set(index, new double[] { latitude, longitude });
+        changed();
+    }
+
+    /**
+     * True once every city has a position, which freeze() then carries over
+     */
+    public boolean hasCoordinates() {
+        return !cities.isEmpty() && locatedCount == cities.size();
+    }
+
     /**
      * Add edge: O(1) average
      */
@@ -35,20 +100,160 @@ public class Graph {
         if (!adjacencyList.containsKey(city2))
             addCity(city2);
 
-        adjacencyList.get(city1).add(new Edge(city2, distance));
-        adjacencyList.get(city2).add(new Edge(city1, distance));
+        int oldDistance = shortestEdge(city1, city2);
+        adjacencyList.get(city1).add(new Edge(city2, cityIndex.get(city2), distance));
+        adjacencyList.get(city2).add(new Edge(city1, cityIndex.get(city1), distance));
+        changed();
+        distanceChanged(city1, city2, oldDistance);
+    }
+
+    /**
+     * Replace every edge between two existing cities with one of this distance: O(degree)
+     * Throws IllegalArgumentException if either city is unknown.
+     */
+    public void setDistance(String city1, String city2, double distance) {
+        if (!adjacencyList.containsKey(city1) || !adjacencyList.containsKey(city2)) {
+            throw new IllegalArgumentException("Unknown city: "
+                    + (adjacencyList.containsKey(city1) ? city2 : city1));
+        }
+        int oldDistance = shortestEdge(city1, city2);
+        removeEdges(city1, city2);
+        adjacencyList.get(city1).add(new Edge(city2, cityIndex.get(city2), distance));
+        adjacencyList.get(city2).add(new Edge(city1, cityIndex.get(city1), distance));
+        changed();
+        distanceChanged(city1, city2, oldDistance);
+    }
+
+    /**
+     * Remove every edge between two cities: O(degree)
+     * Returns false if there was none.
+     */
+    public boolean removeEdge(String city1, String city2) {
+        if (!adjacencyList.containsKey(city1) || !adjacencyList.containsKey(city2)) {
+            return false;
+        }
+        int oldDistance = shortestEdge(city1, city2);
+        if (oldDistance == NO_EDGE) {
+            return false;
+        }
+        removeEdges(city1, city2);
+        changed();
+        distanceChanged(city1, city2, oldDistance);
+        return true;
+    }
+
+    private void removeEdges(String city1, String city2) {
+        int u = cityIndex.get(city1);
+        int v = cityIndex.get(city2);
+        adjacencyList.get(city1).removeIf(edge -> edge.target == v);
+        adjacencyList.get(city2).removeIf(edge -> edge.target == u);
+    }
+
+    /**
+     * Shortest edge city1 - city2 in whole km, NO_EDGE if none: O(degree)
+     */
+    private int shortestEdge(String city1, String city2) {
+        int shortest = NO_EDGE;
+        int target = cityIndex.get(city2);
+        for (Edge edge : adjacencyList.get(city1)) {
+            if (edge.target == target) {
+                shortest = Math.min(shortest, (int) edge.distance);
+            }
+        }
+        return shortest;
+    }
+
+    /**
+     * Repair the distance matrix and tell listeners, if anything changed
+     */
+    private void distanceChanged(String city1, String city2, int oldDistance) {
+        int newDistance = shortestEdge(city1, city2);
+        if (newDistance == oldDistance || city1.equals(city2)) {
+            return;
+        }
+        int u = cityIndex.get(city1);
+        int v = cityIndex.get(city2);
+
+        if (distanceMatrix != null) {
+            if (newDistance < oldDistance) {
+                distanceMatrix.arcDecreased(u, v, newDistance);
+                distanceMatrix.arcDecreased(v, u, newDistance);
+            } else {
+                distanceMatrix.arcIncreased(live(), u, v, oldDistance);
+                distanceMatrix.arcIncreased(live(), v, u, oldDistance);
+            }
+        }
+        for (Listener listener : listeners) {
+            listener.distanceChanged(u, v, oldDistance, newDistance);
+        }
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Shortest-path tree from source that is repaired, not rebuilt, on
+     * every later change to this graph
+     */
+    public DynamicShortestPathTree track(String source) {
+        DynamicShortestPathTree tree = new DynamicShortestPathTree(live(), cityIndex.get(source));
+        addListener(tree);
+        return tree;
+    }
+
+    /**
+     * Int-id view of the current adjacency lists, without freezing
+     * It always shows the latest state, so it is what incremental repairs
+     * read. Edges carry their target's id, so no neighbor visit touches a name.
+     */
+    public IndexedGraph live() {
+        if (live == null) {
+            live = new LiveView();
+        }
+        return live;
+    }
+
+    /**
+     * Every mutation drops the frozen view and bumps the version
+     */
+    private void changed() {
+        frozen = null;
+        version++;
+    }
+
+    /**
+     * Mutation counter; caches compare it to detect stale results
+     */
+    public long getVersion() {
+        return version;
     }
 
     public List<Edge> getNeighbors(String city) {
         return adjacencyList.getOrDefault(city, new ArrayList<>());
     }
 
+    /**
+     * Read-only view of the city names in id order: O(1)
+     */
     public List<String> getCityList() {
-        return new ArrayList<>(adjacencyList.keySet());
+        return Collections.unmodifiableList(cities);
+    }
+
+    public boolean hasCity(String city) {
+        return cityIndex.containsKey(city);
     }
 
+    /**
+     * City id lookup, -1 if the city is unknown
+     */
     public int getCityIndex(String city) {
-        return cityIndex.get(city);
+        Integer index = cityIndex.get(city);
+        return index != null ? index : -1;
     }
 
     public String getCityName(int index) {
@@ -60,8 +265,9 @@ public class Graph {
     }
 
     public boolean hasEdge(String city1, String city2) {
+        int target = getCityIndex(city2);
         for (Edge edge : adjacencyList.get(city1)) {
-            if (edge.city.equals(city2)) {
+            if (edge.target == target) {
                 return true;
             }
         }
@@ -69,8 +275,9 @@ public class Graph {
     }
 
     public double getDistance(String city1, String city2) {
+        int target = getCityIndex(city2);
         for (Edge edge : adjacencyList.get(city1)) {
-            if (edge.city.equals(city2)) {
+            if (edge.target == target) {
                 return edge.distance;
             }
         }
@@ -78,26 +285,142 @@ public class Graph {
     }
 
     /**
-     * Build distance matrix for Dijkstra: O(V²)
+     * Build all-pairs shortest distance matrix: O(V³) dense, O(V (V + E) log V) sparse
+     * Unreachable pairs hold DistanceMatrix.INFINITY. Later edge changes
+     * repair the matrix in place instead of requiring a rebuild.
      */
     public void buildDistanceMatrix() {
+        distanceMatrix = DistanceMatrix.compute(freeze());
+    }
+
+    /**
+     * Freeze into an immutable CSR graph: O(V + E)
+     * The result is cached until the next addCity/addEdge.
+     */
+    public CompactGraph freeze() {
+        if (frozen != null) {
+            return frozen;
+        }
+
         int n = cities.size();
-        distanceMatrix = new int[n][n];
+        int[] offsets = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            offsets[i + 1] = offsets[i] + adjacencyList.get(cities.get(i)).size();
+        }
 
+        int[] targets = new int[offsets[n]];
+        int[] weights = new int[offsets[n]];
         for (int i = 0; i < n; i++) {
-            for (int j = 0; j < n; j++) {
-                if (i == j) {
-                    distanceMatrix[i][j] = 0;
-                } else {
-                    String city1 = getCityName(i);
-                    String city2 = getCityName(j);
-                    distanceMatrix[i][j] = (int) getDistance(city1, city2);
-                }
+            int e = offsets[i];
+            for (Edge edge : adjacencyList.get(cities.get(i))) {
+                targets[e] = edge.target;
+                weights[e] = (int) edge.distance;
+                e++;
+            }
+        }
+
+        double[] latitudes = null;
+        double[] longitudes = null;
+        if (hasCoordinates()) {
+            latitudes = new double[n];
+            longitudes = new double[n];
+            for (int i = 0; i < n; i++) {
+                latitudes[i] = coordinates.get(i)[0];
+                longitudes[i] = coordinates.get(i)[1];
             }
         }
+
+        if (dictionary == null) {
+            dictionary = CityDictionary.of(cities.toArray(new String[0]));
+        }
+        frozen = new CompactGraph(dictionary, offsets, targets, weights, latitudes, longitudes, true);
+        return frozen;
     }
 
-    public int[][] getDistanceMatrix() {
+    public DistanceMatrix getDistanceMatrix() {
         return distanceMatrix;
     }
-}
\ No newline at end of file
+
+    private class LiveView implements IndexedGraph {
+        @Override
+        public int getCityCount() {
+            return cities.size();
+        }
+
+        @Override
+        public int getEdgeCount() {
+            int count = 0;
+            for (List<Edge> edges : neighborsByIndex) {
+                count += edges.size();
+            }
+            return count;
+        }
+
+        /**
+         * Unbounded: distances can still grow under an engine's feet
+         */
+        @Override
+        public int getMaxWeight() {
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        public int getCityIndex(String city) {
+            Integer index = cityIndex.get(city);
+            return index != null ? index : -1;
+        }
+
+        @Override
+        public String getCityName(int index) {
+            return cities.get(index);
+        }
+
+        @Override
+        public boolean hasCityNames() {
+            return true;
+        }
+
+        @Override
+        public int degree(int city) {
+            return neighborsByIndex.get(city).size();
+        }
+
+        @Override
+        public int target(int city, int i) {
+            return neighborsByIndex.get(city).get(i).target;
+        }
+
+        @Override
+        public int weight(int city, int i) {
+            return (int) neighborsByIndex.get(city).get(i).distance;
+        }
+
+        @Override
+        public IndexedGraph reverse() {
+            return this;
+        }
+
+        @Override
+        public boolean hasCoordinates() {
+            return Graph.this.hasCoordinates();
+        }
+
+        @Override
+        public double getLatitude(int city) {
+            return position(city)[0];
+        }
+
+        @Override
+        public double getLongitude(int city) {
+            return position(city)[1];
+        }
+
+        private double[] position(int city) {
+            double[] position = coordinates.get(city);
+            if (position == null) {
+                throw new UnsupportedOperationException("No coordinates for " + cities.get(city));
+            }
+            return position;
+        }
+    }
+}
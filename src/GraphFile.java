@@ -0,0 +1,347 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Versioned binary graph file (.spg), opened with FileChannel.map
+ *
+ * Layout, little-endian:
+ *   header   magic "SPGRAPH\0", int version, int flags, int n, int m,
+ *            int sectionCount, int reserved
+ *   table    sectionCount x (int id, int reserved, long offset, long length)
+ *   sections each 8-byte aligned:
+ *            NAME_OFFSETS int[n + 1] into NAME_BYTES (UTF-8)
+ *            NAME_ORDER   int[n] vertex ids sorted by name, for lookups
+ *            OFFSETS int[n + 1], TARGETS int[m], WEIGHTS int[m]  (CSR)
+ *            LATITUDES/LONGITUDES double[n] if FLAG_COORDINATES is set
+ *            any number of extra sections with ids >= FIRST_EXTRA_SECTION
+ *            (preprocessing data such as landmark tables)
+ * Graphs without a name table (FLAG_NAMES clear) use 1-based id names.
+ * FLAG_UNDIRECTED marks graphs that are their own reverse.
+ *
+ * Readers reject files whose version they do not know. Every section is
+ * mapped read-only, so nothing is copied onto the heap and processes that
+ * open the same file share its pages through the OS page cache.
+ * A single section must stay below 2 GB (about 500M arcs).
+ */
+public class GraphFile {
+    static final long MAGIC = 0x0048504152475053L; // "SPGRAPH\0" little-endian
+    static final int VERSION = 1;
+
+    static final int FLAG_NAMES = 1;
+    static final int FLAG_COORDINATES = 2;
+    static final int FLAG_UNDIRECTED = 4;
+
+    static final int NAME_OFFSETS = 1;
+    static final int NAME_BYTES = 2;
+    static final int NAME_ORDER = 3;
+    static final int OFFSETS = 4;
+    static final int TARGETS = 5;
+    static final int WEIGHTS = 6;
+    static final int LATITUDES = 7;
+    static final int LONGITUDES = 8;
+    public static final int FIRST_EXTRA_SECTION = 100;
+    public static final int LANDMARKS = FIRST_EXTRA_SECTION;
+    public static final int CONTRACTION = FIRST_EXTRA_SECTION + 1;
+
+    private static final int HEADER_SIZE = 32;
+    private static final int TABLE_ENTRY_SIZE = 24;
+    private static final int CHUNK_SIZE = 1 << 20;
+
+    /**
+     * Convert a loaded graph file:
+     * java GraphFile input.gr|input.csv [input.co] output.spg [landmarks=K] [ch]
+     * With landmarks=K the ALT tables for K landmarks are stored as well,
+     * with ch the contraction hierarchy.
+     */
+    public static void main(String[] args) throws IOException {
+        int landmarkCount = 0;
+        boolean contraction = false;
+        while (args.length > 0) {
+            String last = args[args.length - 1];
+            if (last.startsWith("landmarks=")) {
+                landmarkCount = Integer.parseInt(last.substring("landmarks=".length()));
+            } else if (last.equals("ch")) {
+                contraction = true;
+            } else {
+                break;
+            }
+            args = Arrays.copyOf(args, args.length - 1);
+        }
+        if (args.length < 2) {
+            System.out.println("Usage: java GraphFile input.gr|input.csv [input.co] output.spg [landmarks=K] [ch]");
+            return;
+        }
+        long start = System.nanoTime();
+        IndexedGraph graph = GraphLoader.load(Path.of(args[0]),
+                args.length > 2 ? Path.of(args[1]) : null);
+        Path output = Path.of(args[args.length - 1]);
+        Map<Integer, int[]> extra = new HashMap<>();
+        if (landmarkCount > 0) {
+            Landmarks landmarks = Landmarks.compute(graph, landmarkCount, Landmarks.Selection.AVOID, 1);
+            extra.put(LANDMARKS, landmarks.toSection());
+        }
+        if (contraction) {
+            extra.put(CONTRACTION, ContractionHierarchy.build(graph).toSection());
+        }
+        write(output, graph, extra);
+        System.out.printf("Wrote %d cities, %d arcs to %s in %.1f ms%n", graph.getCityCount(),
+                graph.getEdgeCount(), output, (System.nanoTime() - start) / 1000000.0);
+    }
+
+    /**
+     * Write a graph: O(V + E), streamed through a fixed-size buffer
+     */
+    public static void write(Path file, IndexedGraph graph) throws IOException {
+        write(file, graph, Collections.emptyMap());
+    }
+
+    /**
+     * Write a graph plus extra int sections, keyed by id >= FIRST_EXTRA_SECTION
+     */
+    public static void write(Path file, IndexedGraph graph, Map<Integer, int[]> extraSections)
+            throws IOException {
+        int n = graph.getCityCount();
+        int m = graph.getEdgeCount();
+        boolean named = graph.hasCityNames();
+        boolean coordinates = graph.hasCoordinates();
+
+        // Encode names up front; they are needed to size the name section
+        byte[][] names = null;
+        long nameBytes = 0;
+        if (named) {
+            names = new byte[n][];
+            for (int v = 0; v < n; v++) {
+                names[v] = graph.getCityName(v).getBytes(StandardCharsets.UTF_8);
+                nameBytes += names[v].length;
+            }
+        }
+
+        List<long[]> sections = new ArrayList<>(); // {id, length}
+        if (named) {
+            sections.add(new long[] { NAME_OFFSETS, 4L * (n + 1) });
+            sections.add(new long[] { NAME_BYTES, nameBytes });
+            sections.add(new long[] { NAME_ORDER, 4L * n });
+        }
+        sections.add(new long[] { OFFSETS, 4L * (n + 1) });
+        sections.add(new long[] { TARGETS, 4L * m });
+        sections.add(new long[] { WEIGHTS, 4L * m });
+        if (coordinates) {
+            sections.add(new long[] { LATITUDES, 8L * n });
+            sections.add(new long[] { LONGITUDES, 8L * n });
+        }
+        for (Map.Entry<Integer, int[]> extra : new TreeMap<>(extraSections).entrySet()) {
+            if (extra.getKey() < FIRST_EXTRA_SECTION) {
+                throw new IllegalArgumentException("Extra section ids start at " + FIRST_EXTRA_SECTION);
+            }
+            sections.add(new long[] { extra.getKey(), 4L * extra.getValue().length });
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Output out = new Output(channel);
+
+            out.putLong(MAGIC);
+            out.putInt(VERSION);
+            out.putInt((named ? FLAG_NAMES : 0) | (coordinates ? FLAG_COORDINATES : 0)
+                    | (graph.isUndirected() ? FLAG_UNDIRECTED : 0));
+            out.putInt(n);
+            out.putInt(m);
+            out.putInt(sections.size());
+            out.putInt(0);
+
+            long offset = align(HEADER_SIZE + (long) TABLE_ENTRY_SIZE * sections.size());
+            for (long[] section : sections) {
+                out.putInt((int) section[0]);
+                out.putInt(0);
+                out.putLong(offset);
+                out.putLong(section[1]);
+                offset = align(offset + section[1]);
+            }
+
+            for (long[] section : sections) {
+                out.pad();
+                int id = (int) section[0];
+                switch (id) {
+                    case NAME_OFFSETS:
+                        int position = 0;
+                        out.putInt(0);
+                        for (int v = 0; v < n; v++) {
+                            position += names[v].length;
+                            out.putInt(position);
+                        }
+                        break;
+                    case NAME_BYTES:
+                        for (int v = 0; v < n; v++) {
+                            out.putBytes(names[v]);
+                        }
+                        break;
+                    case NAME_ORDER:
+                        for (int v : sortedByName(names)) {
+                            out.putInt(v);
+                        }
+                        break;
+                    case OFFSETS:
+                        int edges = 0;
+                        out.putInt(0);
+                        for (int v = 0; v < n; v++) {
+                            edges += graph.degree(v);
+                            out.putInt(edges);
+                        }
+                        break;
+                    case TARGETS:
+                        for (int v = 0; v < n; v++) {
+                            for (int i = 0, degree = graph.degree(v); i < degree; i++) {
+                                out.putInt(graph.target(v, i));
+                            }
+                        }
+                        break;
+                    case WEIGHTS:
+                        for (int v = 0; v < n; v++) {
+                            for (int i = 0, degree = graph.degree(v); i < degree; i++) {
+                                out.putInt(graph.weight(v, i));
+                            }
+                        }
+                        break;
+                    case LATITUDES:
+                        for (int v = 0; v < n; v++) {
+                            out.putDouble(graph.getLatitude(v));
+                        }
+                        break;
+                    case LONGITUDES:
+                        for (int v = 0; v < n; v++) {
+                            out.putDouble(graph.getLongitude(v));
+                        }
+                        break;
+                    default:
+                        for (int value : extraSections.get(id)) {
+                            out.putInt(value);
+                        }
+                }
+            }
+            out.flush();
+        }
+    }
+
+    /**
+     * Open a graph file by mapping it: O(1) in the graph size
+     */
+    public static MappedGraph open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException(file + ": not a graph file");
+            }
+            ByteBuffer header = map(channel, 0, Math.min(channel.size(), 1 << 16));
+            if (header.getLong(0) != MAGIC) {
+                throw new IOException(file + ": not a graph file");
+            }
+            int version = header.getInt(8);
+            if (version != VERSION) {
+                throw new IOException(file + ": unsupported graph file version " + version);
+            }
+            int flags = header.getInt(12);
+            int n = header.getInt(16);
+            int m = header.getInt(20);
+            int sectionCount = header.getInt(24);
+
+            Map<Integer, ByteBuffer> sections = new HashMap<>();
+            for (int s = 0; s < sectionCount; s++) {
+                int entry = HEADER_SIZE + s * TABLE_ENTRY_SIZE;
+                int id = header.getInt(entry);
+                long offset = header.getLong(entry + 8);
+                long length = header.getLong(entry + 16);
+                if (offset + length > channel.size()) {
+                    throw new IOException(file + ": section " + id + " runs past end of file");
+                }
+                sections.put(id, map(channel, offset, length));
+            }
+
+            return new MappedGraph(n, m, flags, sections);
+        }
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long offset, long length)
+            throws IOException {
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("section of " + length + " bytes is too large to map");
+        }
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+    private static Integer[] sortedByName(byte[][] names) {
+        Integer[] order = new Integer[names.length];
+        for (int v = 0; v < order.length; v++) {
+            order[v] = v;
+        }
+        Arrays.sort(order, (a, b) -> Arrays.compareUnsigned(names[a], names[b]));
+        return order;
+    }
+
+    private static long align(long offset) {
+        return (offset + 7) & ~7L;
+    }
+
+    /**
+     * Buffered little-endian writer that tracks its file position
+     */
+    private static class Output {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        private long written;
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            ensure(8);
+            buffer.putLong(value);
+        }
+
+        void putDouble(double value) throws IOException {
+            ensure(8);
+            buffer.putDouble(value);
+        }
+
+        void putBytes(byte[] bytes) throws IOException {
+            for (int i = 0; i < bytes.length; i++) {
+                ensure(1);
+                buffer.put(bytes[i]);
+            }
+        }
+
+        void pad() throws IOException {
+            while (((written + buffer.position()) & 7) != 0) {
+                ensure(1);
+                buffer.put((byte) 0);
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                written += channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Synthetic graphs for benchmarks
+ * All graphs are undirected (every edge is stored in both directions) and
+ * built straight into CSR form without going through Graph.
+ */
+public class GraphGenerator {
+    private static final double KM_PER_DEGREE = Math.PI * KdTree.EARTH_RADIUS_KM / 180;
+
+    /**
+     * Road-like grid: side x side vertices, 4-neighbour edges of 10..100 km
+     * Vertices are placed 1 km apart on a patch of the globe starting at
+     * 36N 26E, so the grid also has coordinates.
+     */
+    public static CompactGraph grid(int side, long seed) {
+        Random random = new Random(seed);
+        int n = side * side;
+        EdgeList edges = new EdgeList(4 * n);
+
+        for (int y = 0; y < side; y++) {
+            for (int x = 0; x < side; x++) {
+                int v = y * side + x;
+                if (x + 1 < side) {
+                    edges.add(v, v + 1, 10 + random.nextInt(91));
+                }
+                if (y + 1 < side) {
+                    edges.add(v, v + side, 10 + random.nextInt(91));
+                }
+            }
+        }
+
+        double[] latitudes = new double[n];
+        double[] longitudes = new double[n];
+        for (int y = 0; y < side; y++) {
+            double latitude = 36 + y / KM_PER_DEGREE;
+            double degreesPerKm = 1 / (KM_PER_DEGREE * Math.cos(Math.toRadians(latitude)));
+            for (int x = 0; x < side; x++) {
+                latitudes[y * side + x] = latitude;
+                longitudes[y * side + x] = 26 + x * degreesPerKm;
+            }
+        }
+        return edges.build(n).withCoordinates(latitudes, longitudes);
+    }
+
+    /**
+     * Connected random graph with the given average degree, edges of 1..1000 km
+     * A random spanning tree guarantees connectivity; the rest are uniform pairs.
+     */
+    public static CompactGraph random(int n, double averageDegree, long seed) {
+        Random random = new Random(seed);
+        long edgeCount = Math.max(n - 1, (long) (n * averageDegree / 2));
+        EdgeList edges = new EdgeList(Math.toIntExact(2 * edgeCount));
+
+        for (int v = 1; v < n; v++) {
+            edges.add(v, random.nextInt(v), 1 + random.nextInt(1000));
+        }
+        for (long i = n - 1; i < edgeCount; i++) {
+            int u = random.nextInt(n);
+            int v = random.nextInt(n);
+            if (u != v) {
+                edges.add(u, v, 1 + random.nextInt(1000));
+            }
+        }
+        return edges.build(n);
+    }
+
+    /**
+     * Growable arc list; each undirected edge becomes two arcs
+     */
+    private static class EdgeList {
+        int[] from;
+        int[] to;
+        int[] weight;
+        int size;
+
+        EdgeList(int capacity) {
+            from = new int[capacity];
+            to = new int[capacity];
+            weight = new int[capacity];
+        }
+
+        void add(int u, int v, int w) {
+            if (size + 2 > from.length) {
+                int capacity = Math.max(16, from.length * 2);
+                from = Arrays.copyOf(from, capacity);
+                to = Arrays.copyOf(to, capacity);
+                weight = Arrays.copyOf(weight, capacity);
+            }
+            from[size] = u;
+            to[size] = v;
+            weight[size++] = w;
+            from[size] = v;
+            to[size] = u;
+            weight[size++] = w;
+        }
+
+        CompactGraph build(int n) {
+            return CompactGraph.fromArcs(n, null, from, to, weight, size, true);
+        }
+    }
+}
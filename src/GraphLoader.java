@@ -0,0 +1,367 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Streaming loaders for road-network files, straight into CSR form
+ *
+ * DIMACS shortest-path files (9th DIMACS challenge):
+ *   .gr  "p sp n m" header, then one "a u v w" line per arc (1-based ids)
+ *   .co  "v id x y" lines, x/y = longitude/latitude in millionths of a degree
+ * The .gr file is read twice: the first pass only counts out-degrees, the
+ * second writes arcs into their final CSR slots, so the heap never holds
+ * more than the finished graph (8 bytes per arc plus offsets).
+ *
+ * CSV edge lists: "from,to,distance" per line, optional header line.
+ * Edges are undirected like Graph.addEdge and distances are truncated to
+ * whole kilometres like Graph.freeze. A first pass only counts lines, so
+ * the arc arrays are allocated once at their final size; building the CSR
+ * from them then briefly needs both (about 20 bytes per arc).
+ *
+ * Every search assumes non-negative weights, so a negative .gr weight or
+ * a negative, NaN or infinite CSV distance is rejected with the line
+ * it is on.
+ */
+public class GraphLoader {
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    /**
+     * Load by file extension: .gr (with optional .co), .csv, or a mapped .spg
+     */
+    public static IndexedGraph load(Path file, Path coordinates) throws IOException {
+        String name = file.getFileName().toString().toLowerCase();
+        if (name.endsWith(".spg")) {
+            return GraphFile.open(file);
+        } else if (name.endsWith(".gr")) {
+            return coordinates == null ? loadDimacs(file) : loadDimacs(file, coordinates);
+        } else if (name.endsWith(".csv")) {
+            return loadCsv(file);
+        }
+        throw new IOException("Unknown graph file type: " + file);
+    }
+
+    /**
+     * Load a DIMACS .gr file: O(V + E) time, two sequential passes
+     */
+    public static CompactGraph loadDimacs(Path gr) throws IOException {
+        int n = -1;
+        int m = -1;
+        int[] offsets = null;
+        int arcs = 0;
+
+        // Pass 1: header and out-degrees
+        try (ChannelReader reader = new ChannelReader(gr)) {
+            int type;
+            while ((type = reader.read()) != -1) {
+                if (type == 'p') {
+                    reader.skipBlanks();
+                    reader.skipToken(); // "sp"
+                    n = reader.readInt();
+                    m = reader.readInt();
+                    offsets = new int[n + 1];
+                } else if (type == 'a') {
+                    if (offsets == null) {
+                        throw new IOException(gr + ": arc before problem line");
+                    }
+                    int from = reader.readInt();
+                    checkVertex(gr, from, n);
+                    offsets[from]++;
+                    arcs++;
+                }
+                reader.skipLine();
+            }
+        }
+
+        if (offsets == null) {
+            throw new IOException(gr + ": missing problem line");
+        }
+        if (arcs != m) {
+            throw new IOException(gr + ": header declares " + m + " arcs but file has " + arcs);
+        }
+
+        // offsets[v + 1] holds the degree of v (1-based ids); prefix-sum it
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+        int[] next = Arrays.copyOf(offsets, n);
+        int[] targets = new int[m];
+        int[] weights = new int[m];
+
+        // Pass 2: arcs into their CSR slots
+        try (ChannelReader reader = new ChannelReader(gr)) {
+            int type;
+            while ((type = reader.read()) != -1) {
+                if (type == 'a') {
+                    int from = reader.readInt() - 1;
+                    int to = reader.readInt();
+                    checkVertex(gr, to, n);
+                    int e = next[from]++;
+                    targets[e] = to - 1;
+                    weights[e] = reader.readInt();
+                    if (weights[e] < 0) {
+                        throw new IOException(gr + ":" + reader.getLine()
+                                + ": negative arc weight " + weights[e]);
+                    }
+                }
+                reader.skipLine();
+            }
+        }
+
+        return new CompactGraph(null, offsets, targets, weights, false);
+    }
+
+    /**
+     * Load a DIMACS .gr file plus its .co coordinates: O(V + E)
+     */
+    public static CompactGraph loadDimacs(Path gr, Path co) throws IOException {
+        CompactGraph graph = loadDimacs(gr);
+        int n = graph.getCityCount();
+        double[] latitudes = new double[n];
+        double[] longitudes = new double[n];
+
+        try (ChannelReader reader = new ChannelReader(co)) {
+            int type;
+            while ((type = reader.read()) != -1) {
+                if (type == 'v') {
+                    int id = reader.readInt();
+                    checkVertex(co, id, n);
+                    longitudes[id - 1] = reader.readInt() / 1e6;
+                    latitudes[id - 1] = reader.readInt() / 1e6;
+                }
+                reader.skipLine();
+            }
+        }
+
+        return graph.withCoordinates(latitudes, longitudes);
+    }
+
+    /**
+     * Load a "from,to,distance" CSV edge list: O(V + E), a line count then
+     * one parsing pass
+     * Only names are boxed (once per vertex); arcs go into int arrays.
+     */
+    public static CompactGraph loadCsv(Path csv) throws IOException {
+        Map<String, Integer> cityIndex = new HashMap<>();
+        List<String> cities = new ArrayList<>();
+        // Two arcs per line at most
+        long lines;
+        try (ChannelReader reader = new ChannelReader(csv)) {
+            lines = reader.countLines();
+        }
+        if (2 * lines > Integer.MAX_VALUE - 8) {
+            throw new IOException(csv + ": too many lines (" + lines + ")");
+        }
+        int[] from = new int[(int) (2 * lines)];
+        int[] to = new int[(int) (2 * lines)];
+        int[] weight = new int[(int) (2 * lines)];
+        int arcs = 0;
+        boolean firstLine = true;
+
+        try (ChannelReader reader = new ChannelReader(csv)) {
+            while (!reader.atEnd()) {
+                int line = reader.getLine();
+                String city1 = reader.readField(',');
+                String city2 = reader.readField(',');
+                String distance = reader.readField(',');
+                reader.skipLine();
+
+                if (city1.isEmpty() && city2.isEmpty()) {
+                    continue; // blank line
+                }
+                double km;
+                try {
+                    km = Double.parseDouble(distance);
+                } catch (NumberFormatException e) {
+                    if (firstLine) {
+                        firstLine = false;
+                        continue; // header
+                    }
+                    throw new IOException(csv + ":" + line + ": bad distance '" + distance + "'");
+                }
+                firstLine = false;
+                if (!(km >= 0) || Double.isInfinite(km)) {
+                    throw new IOException(csv + ":" + line + ": bad distance '" + distance + "'");
+                }
+
+                int u = cityId(city1, cityIndex, cities);
+                int v = cityId(city2, cityIndex, cities);
+                from[arcs] = u;
+                to[arcs] = v;
+                weight[arcs++] = (int) km;
+                from[arcs] = v;
+                to[arcs] = u;
+                weight[arcs++] = (int) km;
+            }
+        }
+
+        return CompactGraph.fromArcs(cities.size(), cities.toArray(new String[0]),
+                from, to, weight, arcs, true);
+    }
+
+    private static int cityId(String city, Map<String, Integer> cityIndex, List<String> cities) {
+        Integer id = cityIndex.get(city);
+        if (id == null) {
+            id = cities.size();
+            cityIndex.put(city, id);
+            cities.add(city);
+        }
+        return id;
+    }
+
+    private static void checkVertex(Path file, int id, int n) throws IOException {
+        if (id < 1 || id > n) {
+            throw new IOException(file + ": vertex id " + id + " out of range 1.." + n);
+        }
+    }
+
+    /**
+     * Byte-level line reader over a FileChannel
+     * Numbers are parsed from the buffer without creating Strings.
+     */
+    private static class ChannelReader implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private final byte[] bytes = buffer.array();
+        private byte[] field = new byte[64];
+        private int position;
+        private int limit;
+        private int line = 1;
+
+        ChannelReader(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+        }
+
+        private int peek() throws IOException {
+            if (position == limit && !fill()) {
+                return -1;
+            }
+            return bytes[position] & 0xFF;
+        }
+
+        private boolean fill() throws IOException {
+            buffer.clear();
+            int read;
+            do {
+                read = channel.read(buffer);
+            } while (read == 0);
+            position = 0;
+            limit = Math.max(read, 0);
+            return read > 0;
+        }
+
+        boolean atEnd() throws IOException {
+            return peek() == -1;
+        }
+
+        int read() throws IOException {
+            int b = peek();
+            if (b != -1) {
+                position++;
+                if (b == '\n') {
+                    line++;
+                }
+            }
+            return b;
+        }
+
+        /**
+         * 1-based number of the line being read
+         */
+        int getLine() {
+            return line;
+        }
+
+        /**
+         * Lines from here to the end of the file, a last unterminated one
+         * included; consumes the reader
+         */
+        long countLines() throws IOException {
+            long count = 0;
+            boolean open = false;
+            while (position < limit || fill()) {
+                for (int i = position; i < limit; i++) {
+                    if (bytes[i] == '\n') {
+                        count++;
+                        open = false;
+                    } else {
+                        open = true;
+                    }
+                }
+                position = limit;
+            }
+            return open ? count + 1 : count;
+        }
+
+        void skipLine() throws IOException {
+            int b;
+            while ((b = read()) != -1 && b != '\n') {
+                // skip
+            }
+        }
+
+        void skipBlanks() throws IOException {
+            int b;
+            while ((b = peek()) == ' ' || b == '\t') {
+                position++;
+            }
+        }
+
+        void skipToken() throws IOException {
+            int b;
+            while ((b = peek()) != -1 && b != ' ' && b != '\t' && b != '\n' && b != '\r') {
+                position++;
+            }
+        }
+
+        int readInt() throws IOException {
+            skipBlanks();
+            boolean negative = false;
+            if (peek() == '-') {
+                negative = true;
+                position++;
+            }
+            int b = peek();
+            if (b < '0' || b > '9') {
+                throw new IOException("expected a number");
+            }
+            long value = 0;
+            while ((b = peek()) >= '0' && b <= '9') {
+                value = value * 10 + (b - '0');
+                if (value > Integer.MAX_VALUE + 1L) {
+                    throw new IOException("number out of int range");
+                }
+                position++;
+            }
+            return (int) (negative ? -value : value);
+        }
+
+        /**
+         * Read up to the delimiter or end of line, trimmed; the delimiter is consumed
+         */
+        String readField(char delimiter) throws IOException {
+            int length = 0;
+            int b;
+            while ((b = peek()) != -1 && b != delimiter && b != '\n') {
+                if (length == field.length) {
+                    field = Arrays.copyOf(field, length * 2);
+                }
+                field[length++] = (byte) b;
+                position++;
+            }
+            if (b == delimiter) {
+                position++;
+            }
+            return new String(field, 0, length, StandardCharsets.UTF_8).trim();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read-only graph over dense int vertex ids
+ * This is the neighbor-iteration contract the search engines run on:
+ * the edges of city are (target(city, i), weight(city, i)) for
+ * i in [0, degree(city)), weights in whole kilometres.
+ * Implementations: CompactGraph (on-heap CSR), MappedGraph (memory-mapped file),
+ * ConcurrentGraph.Snapshot (copy-on-write segments).
+ */
+public interface IndexedGraph {
+
+    int getCityCount();
+
+    int getEdgeCount();
+
+    /**
+     * City id lookup, -1 if the city is unknown
+     */
+    int getCityIndex(String city);
+
+    String getCityName(int index);
+
+    /**
+     * False for graphs whose vertices are named by 1-based id
+     */
+    boolean hasCityNames();
+
+    /**
+     * Up to limit cities whose names start with prefix, ignoring case, in
+     * name order: O(V) scan by default; CompactGraph answers from its
+     * CityDictionary in O(log V + limit)
+     */
+    default int[] citiesWithPrefix(String prefix, int limit) {
+        List<String> matches = new ArrayList<>();
+        for (int v = 0, n = getCityCount(); v < n; v++) {
+            String name = getCityName(v);
+            if (name.regionMatches(true, 0, prefix, 0, prefix.length())) {
+                matches.add(name);
+            }
+        }
+        matches.sort(String.CASE_INSENSITIVE_ORDER);
+        int[] ids = new int[Math.max(0, Math.min(limit, matches.size()))];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = getCityIndex(matches.get(i));
+        }
+        return ids;
+    }
+
+    int degree(int city);
+
+    int target(int city, int i);
+
+    int weight(int city, int i);
+
+    /**
+     * The graph with every arc flipped, for backward searches
+     * Undirected graphs return themselves. Name lookups should go through
+     * the original graph.
+     */
+    IndexedGraph reverse();
+
+    /**
+     * Whether every arc has a reverse arc of the same weight, so that
+     * reverse() is the graph itself; implementations that know it answer
+     * without building a reverse
+     */
+    default boolean isUndirected() {
+        return reverse() == this;
+    }
+
+    boolean hasCoordinates();
+
+    double getLatitude(int city);
+
+    double getLongitude(int city);
+
+    /**
+     * Upper bound on every arc weight, by default the heaviest one (0 for a
+     * graph without arcs): O(E). Immutable implementations cache it; views
+     * whose weights can still grow return Integer.MAX_VALUE.
+     */
+    default int getMaxWeight() {
+        int max = 0;
+        for (int v = 0, n = getCityCount(); v < n; v++) {
+            for (int i = 0, degree = degree(v); i < degree; i++) {
+                max = Math.max(max, weight(v, i));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Weight of the first edge city1 -> city2: O(degree), -1 if there is none
+     */
+    default int getDistance(int city1, int city2) {
+        for (int i = 0, degree = degree(city1); i < degree; i++) {
+            if (target(city1, i) == city2) {
+                return weight(city1, i);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Convert a path of city ids back to city names: O(path length)
+     */
+    default List<String> toNames(int[] path, int length) {
+        List<String> names = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            names.add(getCityName(path[i]));
+        }
+        return names;
+    }
+}
@@ -0,0 +1,177 @@
+import java.util.Arrays;
+
+/**
+ * Indexed 4-ary min-heap over int vertex ids with int keys
+ * Each vertex is in the heap at most once, so decreaseKey replaces the
+ * duplicate pushes a plain PriorityQueue needs. Nothing is allocated after
+ * construction.
+ * Time Complexity Analysis:
+ */
+public class IndexedHeap implements VertexQueue {
+    private static final int ARITY = 4;
+
+    private final int[] heap;      // heap slot -> vertex
+    private final int[] keys;      // heap slot -> key
+    private final int[] position;  // vertex -> heap slot, -1 if absent
+    private int size;
+
+    public IndexedHeap(int capacity) {
+        heap = new int[capacity];
+        keys = new int[capacity];
+        position = new int[capacity];
+        Arrays.fill(position, -1);
+    }
+
+    /**
+     * isEmpty operation: O(1) - Constant time
+     */
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Size operation: O(1) - Constant time
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Contains operation: O(1) - Constant time
+     */
+    @Override
+    public boolean contains(int vertex) {
+        return position[vertex] >= 0;
+    }
+
+    /**
+     * Insert operation: O(log n)
+     */
+    @Override
+    public void insert(int vertex, int key) {
+        int slot = size++;
+        heap[slot] = vertex;
+        keys[slot] = key;
+        position[vertex] = slot;
+        siftUp(slot);
+    }
+
+    /**
+     * Decrease-key operation: O(log n)
+     * The new key must not be larger than the current one.
+     */
+    @Override
+    public void decreaseKey(int vertex, int key) {
+        int slot = position[vertex];
+        keys[slot] = key;
+        siftUp(slot);
+    }
+
+    /**
+     * Insert the vertex, or lower its key if it is already queued: O(log n)
+     */
+    @Override
+    public void insertOrDecrease(int vertex, int key) {
+        if (position[vertex] >= 0) {
+            decreaseKey(vertex, key);
+        } else {
+            insert(vertex, key);
+        }
+    }
+
+    /**
+     * Key of the minimum: O(1)
+     */
+    @Override
+    public int peekKey() {
+        return keys[0];
+    }
+
+    /**
+     * Vertex with the minimum key: O(1)
+     */
+    @Override
+    public int peek() {
+        return heap[0];
+    }
+
+    /**
+     * Remove and return the vertex with the minimum key: O(log n)
+     */
+    @Override
+    public int poll() {
+        int min = heap[0];
+        position[min] = -1;
+        size--;
+        if (size > 0) {
+            heap[0] = heap[size];
+            keys[0] = keys[size];
+            position[heap[0]] = 0;
+            siftDown(0);
+        }
+        return min;
+    }
+
+    /**
+     * Clear operation: O(size) - only the queued vertices are touched
+     */
+    @Override
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            position[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int slot) {
+        int vertex = heap[slot];
+        int key = keys[slot];
+        while (slot > 0) {
+            int parent = (slot - 1) / ARITY;
+            if (keys[parent] <= key) {
+                break;
+            }
+            move(parent, slot);
+            slot = parent;
+        }
+        place(vertex, key, slot);
+    }
+
+    private void siftDown(int slot) {
+        int vertex = heap[slot];
+        int key = keys[slot];
+        while (true) {
+            int first = slot * ARITY + 1;
+            if (first >= size) {
+                break;
+            }
+            int last = Math.min(first + ARITY, size);
+            int best = first;
+            for (int child = first + 1; child < last; child++) {
+                if (keys[child] < keys[best]) {
+                    best = child;
+                }
+            }
+            if (keys[best] >= key) {
+                break;
+            }
+            move(best, slot);
+            slot = best;
+        }
+        place(vertex, key, slot);
+    }
+
+    private void move(int from, int to) {
+        heap[to] = heap[from];
+        keys[to] = keys[from];
+        position[heap[to]] = to;
+    }
+
+    private void place(int vertex, int key, int slot) {
+        heap[slot] = vertex;
+        keys[slot] = key;
+        position[vertex] = slot;
+    }
+}
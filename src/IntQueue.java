@@ -0,0 +1,81 @@
+import java.util.Arrays;
+
+/**
+ * FIFO queue of int vertex ids on a growable ring buffer
+ * Unlike Queue<Integer>, enqueue neither boxes nor allocates a node. The
+ * capacity is a power of two so wrapping is a mask; the buffer doubles
+ * when full, so a reused queue allocates nothing once it has reached its
+ * working size.
+ * Time Complexity Analysis:
+ */
+public class IntQueue {
+    private int[] items;
+    private int head;   // index of the front element
+    private int size;
+
+    public IntQueue() {
+        this(16);
+    }
+
+    public IntQueue(int capacity) {
+        items = new int[Integer.highestOneBit(Math.max(2, capacity - 1)) << 1];
+    }
+
+    /**
+     * Enqueue operation: O(1) amortized
+     */
+    public void enqueue(int item) {
+        if (size == items.length) {
+            grow();
+        }
+        items[(head + size++) & (items.length - 1)] = item;
+    }
+
+    /**
+     * Dequeue operation: O(1) - Constant time
+     * The queue must not be empty.
+     */
+    public int dequeue() {
+        if (size == 0) {
+            throw new IllegalStateException("Queue is empty");
+        }
+        int item = items[head];
+        head = (head + 1) & (items.length - 1);
+        size--;
+        return item;
+    }
+
+    /**
+     * Clear operation: O(1) - keeps the buffer for reuse
+     */
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    /**
+     * isEmpty operation: O(1) - Constant time
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Size operation: O(1) - Constant time
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Double the buffer, unwrapping the elements to start at 0
+     */
+    private void grow() {
+        int[] grown = new int[items.length * 2];
+        int firstPart = items.length - head;
+        System.arraycopy(items, head, grown, 0, firstPart);
+        System.arraycopy(items, 0, grown, firstPart, head);
+        items = grown;
+        head = 0;
+    }
+}
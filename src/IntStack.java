@@ -0,0 +1,81 @@
+import java.util.Arrays;
+
+/**
+ * Stack of int vertex ids on a growable array
+ * Unlike Stack<Integer>, push neither boxes nor allocates a node; the
+ * array only grows (doubling) when it is full, so a reused stack
+ * allocates nothing once it has reached its working size.
+ * Time Complexity Analysis:
+ */
+public class IntStack {
+    private int[] items;
+    private int size;
+
+    public IntStack() {
+        this(16);
+    }
+
+    public IntStack(int capacity) {
+        items = new int[Math.max(1, capacity)];
+    }
+
+    /**
+     * Push operation: O(1) amortized
+     */
+    public void push(int item) {
+        if (size == items.length) {
+            items = Arrays.copyOf(items, size * 2);
+        }
+        items[size++] = item;
+    }
+
+    /**
+     * Pop operation: O(1) - Constant time
+     * The stack must not be empty.
+     */
+    public int pop() {
+        if (size == 0) {
+            throw new IllegalStateException("Stack is empty");
+        }
+        return items[--size];
+    }
+
+    /**
+     * Peek operation: O(1) - Constant time
+     * The stack must not be empty.
+     */
+    public int peek() {
+        if (size == 0) {
+            throw new IllegalStateException("Stack is empty");
+        }
+        return items[size - 1];
+    }
+
+    /**
+     * Copy of the items, bottom first: O(n)
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(items, size);
+    }
+
+    /**
+     * Clear operation: O(1) - keeps the array for reuse
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * isEmpty operation: O(1) - Constant time
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Size operation: O(1) - Constant time
+     */
+    public int size() {
+        return size;
+    }
+}
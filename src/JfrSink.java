@@ -0,0 +1,79 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Sink that emits every query as a JDK Flight Recorder event
+ * Start a recording (e.g. -XX:StartFlightRecording) and the queries show up
+ * as "shortestpath.Query" next to GC and allocation events. When no
+ * recording is enabled for the event, record() returns after one check.
+ */
+public class JfrSink implements MetricsSink {
+
+    @Override
+    public void record(QueryMetrics metrics) {
+        QueryEvent event = new QueryEvent();
+        if (!event.isEnabled()) {
+            return;
+        }
+        event.algorithm = metrics.getAlgorithm();
+        event.start = metrics.getStart();
+        event.goal = metrics.getGoal();
+        event.found = metrics.isFound();
+        event.distance = metrics.isFound() ? metrics.getDistance() : -1;
+        event.hops = metrics.getHops();
+        event.elapsed = metrics.getElapsedNanos();
+        event.cached = metrics.isCached();
+        event.settled = metrics.getSettledCount();
+        event.relaxed = metrics.getRelaxedCount();
+        event.pushes = metrics.getPushCount();
+        event.stale = metrics.getStaleCount();
+        event.commit();
+    }
+
+    @Name("shortestpath.Query")
+    @Label("Shortest Path Query")
+    @Category("Shortest Path")
+    @Description("One PathFinder query and the work its search did")
+    static class QueryEvent extends Event {
+        @Label("Algorithm")
+        String algorithm;
+
+        @Label("Start")
+        String start;
+
+        @Label("Goal")
+        String goal;
+
+        @Label("Found")
+        boolean found;
+
+        @Label("Distance (km)")
+        int distance;
+
+        @Label("Hops")
+        int hops;
+
+        @Label("Elapsed")
+        @Timespan(Timespan.NANOSECONDS)
+        long elapsed;
+
+        @Label("Cached")
+        boolean cached;
+
+        @Label("Vertices Settled")
+        int settled;
+
+        @Label("Edges Relaxed")
+        int relaxed;
+
+        @Label("Heap Pushes")
+        int pushes;
+
+        @Label("Stale Entries Skipped")
+        int stale;
+    }
+}
@@ -0,0 +1,375 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * K shortest loopless paths by Yen's algorithm
+ * Path k+1 is found among deviations of path k: for every spur vertex on
+ * it, the root up to the spur is kept and a spur path to the goal is
+ * searched with the root's other vertices banned and with the next arc of
+ * every accepted path sharing that root banned. The cheapest candidate not
+ * yet accepted becomes the next path.
+ * Banned vertices and arcs are masks over the unchanged graph: a vertex is
+ * banned for spur i if it sits before position i on the previous path,
+ * and banned arcs all leave the spur vertex, so each spur search only
+ * carries a short list of banned targets.
+ * Spur searches are A* with exact remaining distances to the goal (one
+ * reverse Dijkstra per query) as potentials; masks only lengthen paths,
+ * so the potentials stay admissible and each spur search stays small.
+ * Only the best k - accepted candidates are kept; once there are that many,
+ * a spur search stops as soon as it cannot beat the worst of them.
+ * The spur searches of one round are independent: the spur positions are
+ * split into fork-join tasks of up to SPUR_BATCH searches, each search in
+ * a SearchWorkspace pooled by its thread.
+ * An engine answers one query at a time.
+ * Time Complexity: O(k V (V + E) log V) worst case, far less in practice
+ */
+public class KShortestPaths implements SearchCounters {
+    public static final int INFINITY = Integer.MAX_VALUE;
+    private static final int SPUR_BATCH = 16;
+
+    private final IndexedGraph graph;
+    private final ForkJoinPool pool;
+    private final DijkstraSearch reverseSearch;
+    private final List<Candidate> accepted = new ArrayList<>();
+    private final AtomicInteger settledCount = new AtomicInteger();
+    private final AtomicInteger relaxedCount = new AtomicInteger();
+    private final AtomicInteger pushCount = new AtomicInteger();
+    private int target;
+
+    public KShortestPaths(IndexedGraph graph) {
+        this(graph, ForkJoinPool.commonPool());
+    }
+
+    public KShortestPaths(IndexedGraph graph, ForkJoinPool pool) {
+        this.graph = graph;
+        this.pool = pool;
+        this.reverseSearch = new DijkstraSearch(graph.reverse());
+    }
+
+    public IndexedGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Up to k shortest simple paths source -> target, in order of distance;
+     * returns how many were found
+     */
+    public int search(int source, int target, int k) {
+        this.target = target;
+        accepted.clear();
+        settledCount.set(0);
+        relaxedCount.set(0);
+        pushCount.set(0);
+
+        reverseSearch.search(target, -1);
+        if (k <= 0 || potential(source) == INFINITY) {
+            return 0;
+        }
+        accepted.add(new Candidate(shortestPath(source)));
+
+        // Only the best (k - accepted) candidates can still be accepted
+        TreeSet<Candidate> candidates = new TreeSet<>();
+        Set<Candidate> seen = new HashSet<>(accepted);
+        int[] position = new int[graph.getCityCount()];
+        Arrays.fill(position, -1);
+
+        while (accepted.size() < k) {
+            Candidate previous = accepted.get(accepted.size() - 1);
+            int[] path = previous.path;
+            for (int i = 0; i < path.length; i++) {
+                position[path[i]] = i;
+            }
+            int needed = k - accepted.size();
+            int bound = candidates.size() >= needed ? candidates.last().distance : INFINITY;
+
+            // One spur search per vertex but the last, all in parallel
+            Spurs spurs = new Spurs(previous, position, bound);
+            if (pool.getParallelism() > 1) {
+                pool.invoke(spurs);
+            } else {
+                spurs.compute();
+            }
+            for (Candidate candidate : spurs.results) {
+                if (candidate != null && seen.add(candidate)) {
+                    candidates.add(candidate);
+                    if (candidates.size() > needed) {
+                        candidates.pollLast();
+                    }
+                }
+            }
+
+            for (int v : path) {
+                position[v] = -1;
+            }
+            if (candidates.isEmpty()) {
+                break;
+            }
+            accepted.add(candidates.pollFirst());
+        }
+        return accepted.size();
+    }
+
+    /**
+     * Number of paths found by the last search
+     */
+    public int getPathCount() {
+        return accepted.size();
+    }
+
+    /**
+     * The i-th shortest path of the last search as city ids
+     */
+    public int[] path(int i) {
+        return accepted.get(i).path.clone();
+    }
+
+    public int getDistance(int i) {
+        return accepted.get(i).distance;
+    }
+
+    /**
+     * Vertices settled by all spur searches of the last search
+     */
+    @Override
+    public int getSettledCount() {
+        return settledCount.get();
+    }
+
+    @Override
+    public int getRelaxedCount() {
+        return relaxedCount.get();
+    }
+
+    @Override
+    public int getPushCount() {
+        return pushCount.get();
+    }
+
+    private int potential(int city) {
+        return reverseSearch.getDistance(city);
+    }
+
+    /**
+     * The first path, read off the reverse search: a city's predecessor
+     * there is its next step towards the goal. Following the search tree
+     * rather than any tight arc cannot loop over 0-weight arcs.
+     */
+    private int[] shortestPath(int source) {
+        int length = 0;
+        for (int current = source; current != -1; current = reverseSearch.getPrevious(current)) {
+            length++;
+        }
+        int[] path = new int[length];
+        int i = 0;
+        for (int current = source; current != -1; current = reverseSearch.getPrevious(current)) {
+            path[i++] = current;
+        }
+        return path;
+    }
+
+    /**
+     * Targets of the arcs leaving path[spur] that accepted paths with the
+     * same root already use
+     */
+    private int[] bannedTargets(int[] path, int spur) {
+        int[] banned = new int[accepted.size()];
+        int count = 0;
+        for (Candidate other : accepted) {
+            if (other.path.length > spur + 1 && sameRoot(other.path, path, spur)) {
+                banned[count++] = other.path[spur + 1];
+            }
+        }
+        return Arrays.copyOf(banned, count);
+    }
+
+    private static boolean sameRoot(int[] a, int[] b, int spur) {
+        for (int i = 0; i <= spur; i++) {
+            if (a[i] != b[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Root of path up to position spur, joined to the shortest spur
+     * path that avoids the root and the banned arcs; null if there is none
+     * or it would not be shorter than limit
+     */
+    private Candidate spurPath(int[] path, int spur, int[] position, int[] banned, int limit) {
+        int spurCity = path[spur];
+        try (SearchWorkspace ws = SearchWorkspace.acquire(graph.getCityCount())) {
+            IndexedHeap heap = ws.heap();
+            int settled = 0;
+            int relaxed = 0;
+            int pushes = 1;
+
+            ws.reach(spurCity, 0, -1);
+            heap.insert(spurCity, potential(spurCity));
+            boolean found = false;
+            while (!heap.isEmpty()) {
+                if (heap.peekKey() >= limit) {
+                    break; // every spur path left is too long to be accepted
+                }
+                int current = heap.poll();
+                settled++;
+                if (current == target) {
+                    found = true;
+                    break;
+                }
+
+                int currentDistance = ws.distance(current);
+                int degree = graph.degree(current);
+                relaxed += degree;
+                for (int i = 0; i < degree; i++) {
+                    int next = graph.target(current, i);
+                    int p = position[next];
+                    if (p >= 0 && p <= spur) {
+                        continue; // root vertex (or back to the spur vertex)
+                    }
+                    if (current == spurCity && contains(banned, next)) {
+                        continue;
+                    }
+                    int h = potential(next);
+                    if (h == INFINITY) {
+                        continue;
+                    }
+                    int newDist = currentDistance + graph.weight(current, i);
+                    if (newDist < ws.distance(next)) {
+                        ws.reach(next, newDist, current);
+                        heap.insertOrDecrease(next, newDist + h);
+                        pushes++;
+                    }
+                }
+            }
+            settledCount.addAndGet(settled);
+            relaxedCount.addAndGet(relaxed);
+            pushCount.addAndGet(pushes);
+            if (!found) {
+                return null;
+            }
+
+            int spurLength = 0;
+            for (int v = target; v != -1; v = ws.previous(v)) {
+                spurLength++;
+            }
+            int[] joined = Arrays.copyOf(path, spur + spurLength);
+            int i = joined.length;
+            for (int v = target; v != -1; v = ws.previous(v)) {
+                joined[--i] = v;
+            }
+            return new Candidate(joined);
+        }
+    }
+
+    private static boolean contains(int[] values, int value) {
+        for (int v : values) {
+            if (v == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Cheapest arc weight u -> v: O(degree)
+     */
+    private int arcWeight(int u, int v) {
+        int best = INFINITY;
+        for (int i = 0, degree = graph.degree(u); i < degree; i++) {
+            if (graph.target(u, i) == v) {
+                best = Math.min(best, graph.weight(u, i));
+            }
+        }
+        return best;
+    }
+
+    /**
+     * The spur searches of one round; results[i] is the candidate that
+     * deviates from previous at position i, or null
+     */
+    private final class Spurs extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final Candidate[] results;
+        private final Candidate previous;
+        private final int[] position;
+        private final int bound;
+        private final int from;
+        private final int to;
+
+        Spurs(Candidate previous, int[] position, int bound) {
+            this(new Candidate[previous.path.length - 1], previous, position, bound,
+                    0, previous.path.length - 1);
+        }
+
+        private Spurs(Candidate[] results, Candidate previous, int[] position, int bound, int from, int to) {
+            this.results = results;
+            this.previous = previous;
+            this.position = position;
+            this.bound = bound;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > SPUR_BATCH && getPool() != null) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Spurs(results, previous, position, bound, from, middle),
+                        new Spurs(results, previous, position, bound, middle, to));
+                return;
+            }
+            int[] path = previous.path;
+            for (int spur = from; spur < to; spur++) {
+                int limit = bound == INFINITY ? INFINITY : bound - previous.prefix[spur];
+                results[spur] = spurPath(path, spur, position, bannedTargets(path, spur), limit);
+            }
+        }
+    }
+
+    /**
+     * A complete path with its distance and per-position prefix distances;
+     * ordered by distance, then hops, then city ids, and equal when the
+     * vertex sequences are
+     */
+    private final class Candidate implements Comparable<Candidate> {
+        final int[] path;
+        final int[] prefix;   // prefix[i] = distance from path[0] to path[i]
+        final int distance;
+        private final int hash;
+
+        Candidate(int[] path) {
+            this.path = path;
+            this.prefix = new int[path.length];
+            for (int i = 1; i < path.length; i++) {
+                prefix[i] = prefix[i - 1] + arcWeight(path[i - 1], path[i]);
+            }
+            this.distance = prefix[path.length - 1];
+            this.hash = Arrays.hashCode(path);
+        }
+
+        @Override
+        public int compareTo(Candidate other) {
+            if (distance != other.distance) {
+                return Integer.compare(distance, other.distance);
+            }
+            if (path.length != other.path.length) {
+                return Integer.compare(path.length, other.path.length);
+            }
+            return Arrays.compare(path, other.path);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Candidate && Arrays.equals(path, ((Candidate) o).path);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
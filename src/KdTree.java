@@ -0,0 +1,266 @@
+import java.util.stream.IntStream;
+
+/**
+ * Static 3-d tree over city positions for nearest-city and radius queries
+ * Positions are stored as unit vectors on the sphere, so straight-line
+ * (chord) distance orders cities exactly like great-circle distance, with
+ * no special cases at the date line or the poles.
+ * The tree is implicit: the city at the middle of a range splits it on that
+ * range's widest axis, the lower half to its left and the upper half to its
+ * right, so there are no node objects, only a permutation of ids, their
+ * coordinates in the same order and one axis byte per city.
+ * Queries only read the tree, so any number of threads may share one.
+ * Time Complexity: O(V log V) build, O(log V) expected nearest query,
+ * O(log V + k) expected radius query returning k cities
+ */
+public class KdTree {
+    /**
+     * Mean Earth radius (IUGG)
+     */
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+
+    private final IndexedGraph graph;
+    private final int[] ids;         // city ids in tree order
+    private final double[] points;   // x, y, z of ids[i] at 3i .. 3i + 2
+    private final byte[] axis;       // split axis of the range whose middle is i
+
+    private KdTree(IndexedGraph graph, int[] ids, double[] points, byte[] axis) {
+        this.graph = graph;
+        this.ids = ids;
+        this.points = points;
+        this.axis = axis;
+    }
+
+    /**
+     * Index every city of a graph with coordinates: O(V log V)
+     */
+    public static KdTree build(IndexedGraph graph) {
+        if (!graph.hasCoordinates()) {
+            throw new IllegalArgumentException("Graph has no coordinates");
+        }
+        int n = graph.getCityCount();
+        int[] ids = new int[n];
+        double[] points = new double[3 * n];
+        for (int v = 0; v < n; v++) {
+            ids[v] = v;
+            toUnitVector(graph.getLatitude(v), graph.getLongitude(v), points, 3 * v);
+        }
+        byte[] axis = new byte[n];
+        split(ids, points, axis, 0, n);
+        return new KdTree(graph, ids, points, axis);
+    }
+
+    public IndexedGraph getGraph() {
+        return graph;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * City nearest to a position in degrees, -1 for an empty tree
+     */
+    public int nearest(double latitude, double longitude) {
+        Query query = new Query(latitude, longitude);
+        query.bestDistance = Double.POSITIVE_INFINITY;
+        nearest(query, 0, ids.length);
+        return query.best;
+    }
+
+    /**
+     * Nearest city of every position (latitudes[i], longitudes[i]), in
+     * parallel on the common fork-join pool
+     */
+    public int[] nearest(double[] latitudes, double[] longitudes) {
+        if (latitudes.length != longitudes.length) {
+            throw new IllegalArgumentException("Latitude and longitude counts differ");
+        }
+        int[] result = new int[latitudes.length];
+        IntStream.range(0, result.length).parallel()
+                .forEach(i -> result[i] = nearest(latitudes[i], longitudes[i]));
+        return result;
+    }
+
+    /**
+     * Cities within radiusKm (great-circle) of a position, in no particular order
+     */
+    public int[] withinRadius(double latitude, double longitude, double radiusKm) {
+        if (radiusKm < 0) {
+            return new int[0];
+        }
+        // Chord length of the radius; beyond half the circumference it is the diameter
+        double angle = Math.min(radiusKm / EARTH_RADIUS_KM, Math.PI);
+        double chord = 2 * Math.sin(angle / 2);
+        Query query = new Query(latitude, longitude);
+        query.bestDistance = chord * chord * (1 + 1e-12);
+        query.found = new IntStack();
+        withinRadius(query, 0, ids.length);
+        return query.found.toArray();
+    }
+
+    /**
+     * Great-circle distance in km between two positions in degrees
+     */
+    public static double haversine(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double dLatitude = Math.toRadians(latitude2 - latitude1);
+        double dLongitude = Math.toRadians(longitude2 - longitude1);
+        double a = Math.sin(dLatitude / 2) * Math.sin(dLatitude / 2)
+                + Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2))
+                * Math.sin(dLongitude / 2) * Math.sin(dLongitude / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    /**
+     * Unit vector of a position in degrees, written to out[offset .. offset + 2]
+     */
+    static void toUnitVector(double latitude, double longitude, double[] out, int offset) {
+        double phi = Math.toRadians(latitude);
+        double lambda = Math.toRadians(longitude);
+        double cosPhi = Math.cos(phi);
+        out[offset] = cosPhi * Math.cos(lambda);
+        out[offset + 1] = cosPhi * Math.sin(lambda);
+        out[offset + 2] = Math.sin(phi);
+    }
+
+    private void nearest(Query query, int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        double d = query.squaredDistance(points, middle);
+        if (d < query.bestDistance) {
+            query.bestDistance = d;
+            query.best = ids[middle];
+        }
+        double diff = query.xyz[axis[middle]] - points[3 * middle + axis[middle]];
+        // Near side first; the far side only if the splitting plane is closer than the best
+        if (diff < 0) {
+            nearest(query, from, middle);
+            if (diff * diff < query.bestDistance) {
+                nearest(query, middle + 1, to);
+            }
+        } else {
+            nearest(query, middle + 1, to);
+            if (diff * diff < query.bestDistance) {
+                nearest(query, from, middle);
+            }
+        }
+    }
+
+    private void withinRadius(Query query, int from, int to) {
+        while (from < to) {
+            int middle = (from + to) >>> 1;
+            if (query.squaredDistance(points, middle) <= query.bestDistance) {
+                query.found.push(ids[middle]);
+            }
+            double diff = query.xyz[axis[middle]] - points[3 * middle + axis[middle]];
+            // Both halves if the ball crosses the splitting plane, else the query's side
+            if (diff * diff <= query.bestDistance) {
+                withinRadius(query, from, middle);
+                from = middle + 1;
+            } else if (diff >= 0) {
+                from = middle + 1;
+            } else {
+                to = middle;
+            }
+        }
+    }
+
+    /**
+     * Arrange ids[from..to) into an implicit subtree: the median on the
+     * widest axis goes to the middle, smaller coordinates before it
+     */
+    private static void split(int[] ids, double[] points, byte[] axis, int from, int to) {
+        while (to - from > 1) {
+            int a = widestAxis(points, from, to);
+            int middle = (from + to) >>> 1;
+            select(ids, points, a, from, to - 1, middle);
+            axis[middle] = (byte) a;
+            split(ids, points, axis, from, middle);
+            from = middle + 1;
+        }
+    }
+
+    private static int widestAxis(double[] points, int from, int to) {
+        int best = 0;
+        double bestExtent = -1;
+        for (int a = 0; a < 3; a++) {
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = from; i < to; i++) {
+                double c = points[3 * i + a];
+                min = Math.min(min, c);
+                max = Math.max(max, c);
+            }
+            if (max - min > bestExtent) {
+                bestExtent = max - min;
+                best = a;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Quickselect on axis a over [left, right]: afterwards position k holds
+     * the k-th smallest, nothing before it is larger and nothing after it is
+     * smaller. O(n) expected
+     */
+    private static void select(int[] ids, double[] points, int a, int left, int right, int k) {
+        while (left < right) {
+            double pivot = points[3 * ((left + right) >>> 1) + a];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (points[3 * i + a] < pivot) {
+                    i++;
+                }
+                while (points[3 * j + a] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(ids, points, i++, j--);
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private static void swap(int[] ids, double[] points, int i, int j) {
+        int id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+        for (int a = 0; a < 3; a++) {
+            double c = points[3 * i + a];
+            points[3 * i + a] = points[3 * j + a];
+            points[3 * j + a] = c;
+        }
+    }
+
+    /**
+     * State of one query, so that concurrent queries share nothing
+     */
+    private static final class Query {
+        final double[] xyz = new double[3];
+        double bestDistance;   // squared chord: best so far, or the radius bound
+        int best = -1;
+        IntStack found;
+
+        Query(double latitude, double longitude) {
+            toUnitVector(latitude, longitude, xyz, 0);
+        }
+
+        double squaredDistance(double[] points, int i) {
+            double dx = xyz[0] - points[3 * i];
+            double dy = xyz[1] - points[3 * i + 1];
+            double dz = xyz[2] - points[3 * i + 2];
+            return dx * dx + dy * dy + dz * dz;
+        }
+    }
+}
@@ -0,0 +1,298 @@
+import java.nio.IntBuffer;
+import java.util.*;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Landmark distance tables for ALT (A*, Landmarks, Triangle inequality)
+ * For each landmark L the preprocessing stores d(L, v) and d(v, L) for every
+ * vertex v. By the triangle inequality
+ *   dist(v, t) >= d(L, t) - d(L, v)   and   dist(v, t) >= d(v, L) - d(t, L)
+ * so the maximum over landmarks is a consistent A* lower bound.
+ * Tables are vertex-major (entry v * count + l) so one vertex's bounds share
+ * a cache line. Undirected graphs store one table for both directions.
+ *
+ * Selection strategies:
+ *   FARTHEST  each new landmark is the vertex farthest from the chosen ones
+ *   AVOID     Goldberg-Werneck: grow a shortest-path tree from a random root,
+ *             weight vertices by how badly the current landmarks bound them,
+ *             and descend into the heaviest landmark-free subtree to a leaf
+ */
+public class Landmarks {
+    public static final int INFINITY = Integer.MAX_VALUE;
+
+    public enum Selection { FARTHEST, AVOID }
+
+    private final int count;
+    private final int[] landmarks;
+    private final IntBuffer from;  // d(L, v)
+    private final IntBuffer to;    // d(v, L)
+
+    private Landmarks(int[] landmarks, IntBuffer from, IntBuffer to) {
+        this.count = landmarks.length;
+        this.landmarks = landmarks;
+        this.from = from;
+        this.to = to;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getLandmark(int l) {
+        return landmarks[l];
+    }
+
+    /**
+     * d(landmark l, city), INFINITY if unreachable
+     */
+    public int fromLandmark(int l, int city) {
+        return from.get(city * count + l);
+    }
+
+    /**
+     * d(city, landmark l), INFINITY if unreachable
+     */
+    public int toLandmark(int l, int city) {
+        return to.get(city * count + l);
+    }
+
+    /**
+     * Select landmarks and compute their tables: O(k (V + E) log V)
+     */
+    public static Landmarks compute(IndexedGraph graph, int count, Selection selection, long seed) {
+        int n = graph.getCityCount();
+        count = Math.min(count, n);
+        boolean undirected = graph.isUndirected();
+        DijkstraSearch forward = new DijkstraSearch(graph);
+        DijkstraSearch backward = undirected ? forward : new DijkstraSearch(graph.reverse());
+        Random random = new Random(seed);
+
+        int[] chosen = new int[count];
+        int[] fromTable = new int[n * count];
+        int[] toTable = undirected ? fromTable : new int[n * count];
+        Arrays.fill(fromTable, INFINITY);
+        Arrays.fill(toTable, INFINITY);
+        boolean[] isLandmark = new boolean[n];
+
+        // FARTHEST: min over chosen landmarks of d(L, v), refreshed as we go
+        int[] nearest = new int[n];
+        Arrays.fill(nearest, INFINITY);
+
+        for (int l = 0; l < count; l++) {
+            int landmark;
+            if (selection == Selection.AVOID && l > 0) {
+                landmark = avoid(graph, forward, chosen, l, fromTable, toTable, isLandmark, random);
+            } else if (l == 0) {
+                // Start from the vertex farthest from a random root
+                forward.search(random.nextInt(n), -1);
+                landmark = farthest(n, forward::getDistance, isLandmark);
+            } else {
+                landmark = farthest(n, v -> nearest[v], isLandmark);
+            }
+            if (landmark < 0) {
+                count = l;
+                break;
+            }
+            chosen[l] = landmark;
+            isLandmark[landmark] = true;
+
+            forward.search(landmark, -1);
+            for (int v = 0; v < n; v++) {
+                int d = forward.getDistance(v);
+                fromTable[v * chosen.length + l] = d;
+                nearest[v] = Math.min(nearest[v], d);
+            }
+            if (!undirected) {
+                backward.search(landmark, -1);
+                for (int v = 0; v < n; v++) {
+                    toTable[v * chosen.length + l] = backward.getDistance(v);
+                }
+            }
+        }
+
+        if (count < chosen.length) {
+            return compact(chosen, count, fromTable, toTable, n, undirected);
+        }
+        return new Landmarks(chosen, IntBuffer.wrap(fromTable), IntBuffer.wrap(toTable));
+    }
+
+    /**
+     * Non-landmark vertex with the largest score, -1 if none
+     * INFINITY (not reached from the chosen landmarks) scores highest, so
+     * every component ends up with a landmark.
+     */
+    private static int farthest(int n, IntUnaryOperator score, boolean[] isLandmark) {
+        int best = -1;
+        int bestScore = -1;
+        for (int v = 0; v < n; v++) {
+            if (isLandmark[v]) {
+                continue;
+            }
+            int s = score.applyAsInt(v);
+            if (s == INFINITY) {
+                s = Integer.MAX_VALUE - 1; // a different component; cover it too
+            }
+            if (s > bestScore) {
+                bestScore = s;
+                best = v;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Goldberg-Werneck "avoid" selection: O((V + E) log V + V log V)
+     */
+    private static int avoid(IndexedGraph graph, DijkstraSearch search, int[] chosen, int chosenCount,
+            int[] fromTable, int[] toTable, boolean[] isLandmark, Random random) {
+        int n = graph.getCityCount();
+        int root = random.nextInt(n);
+        search.search(root, -1);
+
+        // weight(v) = d(r, v) - lowerBound(r, v): how much the landmarks miss
+        long[] size = new long[n];
+        Integer[] order = new Integer[n];
+        int reached = 0;
+        for (int v = 0; v < n; v++) {
+            int d = search.getDistance(v);
+            if (d == INFINITY) {
+                continue;
+            }
+            int bound = 0;
+            for (int l = 0; l < chosenCount; l++) {
+                bound = Math.max(bound, bound(fromTable, toTable, chosen.length, l, root, v));
+            }
+            size[v] = d - bound;
+            order[reached++] = v;
+        }
+
+        // Subtree sums, children before parents (decreasing distance)
+        Arrays.sort(order, 0, reached, (a, b) -> Integer.compare(search.getDistance(b), search.getDistance(a)));
+        boolean[] hasLandmark = new boolean[n];
+        for (int i = 0; i < reached; i++) {
+            int v = order[i];
+            hasLandmark[v] |= isLandmark[v];
+            int parent = search.getPrevious(v);
+            if (parent >= 0) {
+                size[parent] += size[v];
+                hasLandmark[parent] |= hasLandmark[v];
+            }
+        }
+
+        // Children lists in CSR form for the descent
+        int[] childStart = new int[n + 1];
+        for (int i = 0; i < reached; i++) {
+            int parent = search.getPrevious(order[i]);
+            if (parent >= 0) {
+                childStart[parent + 1]++;
+            }
+        }
+        for (int v = 0; v < n; v++) {
+            childStart[v + 1] += childStart[v];
+        }
+        int[] children = new int[childStart[n]];
+        int[] next = Arrays.copyOf(childStart, n);
+        for (int i = 0; i < reached; i++) {
+            int parent = search.getPrevious(order[i]);
+            if (parent >= 0) {
+                children[next[parent]++] = order[i];
+            }
+        }
+
+        // Heaviest vertex whose subtree has no landmark, then descend to a leaf
+        int best = -1;
+        for (int i = 0; i < reached; i++) {
+            int v = order[i];
+            if (!hasLandmark[v] && (best < 0 || size[v] > size[best])) {
+                best = v;
+            }
+        }
+        if (best < 0) {
+            return farthestFromChosen(n, chosen, chosenCount, fromTable, isLandmark);
+        }
+        while (childStart[best + 1] > childStart[best]) {
+            int heaviest = children[childStart[best]];
+            for (int c = childStart[best] + 1; c < childStart[best + 1]; c++) {
+                if (size[children[c]] > size[heaviest]) {
+                    heaviest = children[c];
+                }
+            }
+            best = heaviest;
+        }
+        return best;
+    }
+
+    private static int farthestFromChosen(int n, int[] chosen, int chosenCount, int[] fromTable,
+            boolean[] isLandmark) {
+        return farthest(n, v -> {
+            int nearest = INFINITY;
+            for (int l = 0; l < chosenCount; l++) {
+                nearest = Math.min(nearest, fromTable[v * chosen.length + l]);
+            }
+            return nearest;
+        }, isLandmark);
+    }
+
+    /**
+     * Lower bound on dist(v, t) from landmark l, 0 if it gives none
+     */
+    private static int bound(int[] fromTable, int[] toTable, int stride, int l, int v, int t) {
+        int result = 0;
+        int lt = fromTable[t * stride + l];
+        int lv = fromTable[v * stride + l];
+        if (lt != INFINITY && lv != INFINITY) {
+            result = lt - lv;
+        }
+        int vl = toTable[v * stride + l];
+        int tl = toTable[t * stride + l];
+        if (vl != INFINITY && tl != INFINITY) {
+            result = Math.max(result, vl - tl);
+        }
+        return result;
+    }
+
+    private static Landmarks compact(int[] chosen, int count, int[] fromTable, int[] toTable,
+            int n, boolean undirected) {
+        int[] from = new int[n * count];
+        int[] to = undirected ? from : new int[n * count];
+        for (int v = 0; v < n; v++) {
+            System.arraycopy(fromTable, v * chosen.length, from, v * count, count);
+            if (!undirected) {
+                System.arraycopy(toTable, v * chosen.length, to, v * count, count);
+            }
+        }
+        return new Landmarks(Arrays.copyOf(chosen, count), IntBuffer.wrap(from), IntBuffer.wrap(to));
+    }
+
+    /**
+     * Serialize as one int section for GraphFile:
+     * count, undirected flag, landmark ids, from table, to table if directed
+     */
+    public int[] toSection() {
+        boolean undirected = from == to;
+        int n = from.capacity() / Math.max(1, count);
+        int[] section = new int[2 + count + n * count * (undirected ? 1 : 2)];
+        section[0] = count;
+        section[1] = undirected ? 1 : 0;
+        System.arraycopy(landmarks, 0, section, 2, count);
+        from.get(0, section, 2 + count, n * count);
+        if (!undirected) {
+            to.get(0, section, 2 + count + n * count, n * count);
+        }
+        return section;
+    }
+
+    /**
+     * Landmarks backed by a (possibly memory-mapped) section: O(k), no copying of tables
+     */
+    public static Landmarks fromSection(IntBuffer section, int cityCount) {
+        int count = section.get(0);
+        boolean undirected = section.get(1) == 1;
+        int[] landmarks = new int[count];
+        section.get(2, landmarks);
+        int tableSize = cityCount * count;
+        IntBuffer from = section.slice(2 + count, tableSize);
+        IntBuffer to = undirected ? from : section.slice(2 + count + tableSize, tableSize);
+        return new Landmarks(landmarks, from, to);
+    }
+}
@@ -0,0 +1,151 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Closed-loop load generator for RouteServer
+ * C client threads each send a /route request, wait for the answer and
+ * send the next, until N requests are done. City pairs are drawn at random
+ * from the server's /cities list. Reports throughput, latency percentiles
+ * and errors.
+ *
+ * Usage: java LoadGenerator [url=http://localhost:8080] [requests=N]
+ *                           [concurrency=C] [algorithm=NAME]
+ */
+public class LoadGenerator {
+    private final String baseUrl;
+    private final int concurrency;
+    private final HttpClient client = HttpClient.newHttpClient();
+    private String algorithm = "dijkstra";
+
+    public LoadGenerator(String baseUrl, int concurrency) {
+        this.baseUrl = baseUrl;
+        this.concurrency = concurrency;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq > 0) {
+                options.put(arg.substring(0, eq), arg.substring(eq + 1));
+            }
+        }
+        LoadGenerator load = new LoadGenerator(options.getOrDefault("url", "http://localhost:8080"),
+                Integer.parseInt(options.getOrDefault("concurrency", "8")));
+        load.setAlgorithm(options.getOrDefault("algorithm", "dijkstra"));
+        load.run(Integer.parseInt(options.getOrDefault("requests", "10000")));
+    }
+
+    public void setAlgorithm(String algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    /**
+     * Send requests and print the results
+     */
+    public void run(int requests) throws IOException, InterruptedException {
+        List<String> cities = fetchCities();
+        if (cities.size() < 2) {
+            System.out.println("Server has fewer than two cities");
+            return;
+        }
+
+        Histogram latency = new Histogram();
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        Thread[] clients = new Thread[concurrency];
+        long start = System.nanoTime();
+        for (int c = 0; c < concurrency; c++) {
+            Random random = new Random(c);
+            clients[c] = new Thread(() -> {
+                while (next.getAndIncrement() < requests) {
+                    String from = cities.get(random.nextInt(cities.size()));
+                    String to = cities.get(random.nextInt(cities.size()));
+                    HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/route?from="
+                            + encode(from) + "&to=" + encode(to) + "&algorithm=" + encode(algorithm))).build();
+                    long sent = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() != 200) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (IOException e) {
+                        errors.incrementAndGet();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    latency.record(System.nanoTime() - sent);
+                }
+            });
+            clients[c].start();
+        }
+        for (Thread client : clients) {
+            client.join();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println("\n========== LOAD TEST ==========");
+        System.out.println(requests + " /route requests (" + algorithm + "), " + concurrency + " clients");
+        System.out.printf("Throughput: %.1f requests/s%n", latency.getCount() / seconds);
+        System.out.printf("Latency (us): p50 %.1f, p90 %.1f, p99 %.1f, p99.9 %.1f, max %.1f%n",
+                latency.percentile(0.50) / 1000.0, latency.percentile(0.90) / 1000.0,
+                latency.percentile(0.99) / 1000.0, latency.percentile(0.999) / 1000.0,
+                latency.getMax() / 1000.0);
+        System.out.println("Errors: " + errors.get());
+    }
+
+    /**
+     * City names from /cities; the server's JSON is a flat array of strings
+     */
+    private List<String> fetchCities() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/cities")).build();
+        String body = client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+        List<String> cities = new ArrayList<>();
+        StringBuilder current = null;
+        for (int i = 0; i < body.length(); i++) {
+            char c = body.charAt(i);
+            if (current == null) {
+                if (c == '"') {
+                    current = new StringBuilder();
+                }
+            } else if (c == '\\') {
+                char escaped = body.charAt(++i);
+                switch (escaped) {
+                    case 'n':
+                        current.append('\n');
+                        break;
+                    case 'r':
+                        current.append('\r');
+                        break;
+                    case 't':
+                        current.append('\t');
+                        break;
+                    case 'u':
+                        current.append((char) Integer.parseInt(body.substring(i + 1, i + 5), 16));
+                        i += 4;
+                        break;
+                    default:
+                        current.append(escaped);
+                }
+            } else if (c == '"') {
+                cities.add(current.toString());
+                current = null;
+            } else {
+                current.append(c);
+            }
+        }
+        return cities;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
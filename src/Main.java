@@ -1,12 +1,43 @@
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Scanner;
 
 public class Main {
+    /**
+     * Usage: java Main [graph.gr [graph.co] | edges.csv | graph.spg]
+     * Without arguments the built-in Turkish cities graph is used.
+     */
     public static void main(String[] args) {
         // Create and populate graph
-        Graph graph = createGraph();
+        IndexedGraph graph;
+        if (args.length > 0) {
+            try {
+                long loadStart = System.nanoTime();
+                graph = GraphLoader.load(Path.of(args[0]), args.length > 1 ? Path.of(args[1]) : null);
+                System.out.printf("Loaded %d cities, %d arcs in %.1f ms%n", graph.getCityCount(),
+                        graph.getEdgeCount(), (System.nanoTime() - loadStart) / 1000000.0);
+            } catch (IOException e) {
+                System.out.println("Could not load graph: " + e.getMessage());
+                return;
+            }
+        } else {
+            graph = createGraph().freeze();
+        }
 
         Scanner scanner = new Scanner(System.in);
         PathFinder pathFinder = new PathFinder(graph);
+        if (graph instanceof MappedGraph) {
+            IntBuffer section = ((MappedGraph) graph).getSection(GraphFile.LANDMARKS);
+            if (section != null) {
+                pathFinder.setLandmarks(Landmarks.fromSection(section, graph.getCityCount()));
+            }
+            section = ((MappedGraph) graph).getSection(GraphFile.CONTRACTION);
+            if (section != null) {
+                pathFinder.setContractionHierarchy(ContractionHierarchy.fromSection(section));
+            }
+        }
 
         System.out.println("TURKISH CITIES SHORTEST PATH FINDER");
         System.out.println("====================================\n");
@@ -16,6 +47,7 @@ public class Main {
             System.out.println("1. Find path between two cities");
             System.out.println("2. Run comparative analysis (8 city pairs)");
             System.out.println("3. Exit");
+            System.out.println("4. Find nearest city to a position");
             System.out.print("Enter choice: ");
 
             int choice = scanner.nextInt();
@@ -29,12 +61,18 @@ public class Main {
                     System.out.print("Enter goal city: ");
                     String goal = scanner.nextLine();
 
-                    if (graph.getCityList().contains(start) && graph.getCityList().contains(goal)) {
+                    if (graph.getCityIndex(start) >= 0 && graph.getCityIndex(goal) >= 0) {
                         System.out.println("\nChoose algorithm:");
                         System.out.println("1. DFS (finds any path)");
                         System.out.println("2. Modified DFS (finds shortest path)");
                         System.out.println("3. Dijkstra (optimal shortest path)");
                         System.out.println("4. Run all three algorithms");
+                        System.out.println("5. Bidirectional Dijkstra (optimal, meet in the middle)");
+                        System.out.println("6. ALT (A* with landmarks, optimal)");
+                        System.out.println("7. Contraction Hierarchies (optimal, preprocessed)");
+                        System.out.println("8. BFS (fewest hops)");
+                        System.out.println("9. K shortest paths (Yen, ranked alternatives)");
+                        System.out.println("10. A* with coordinates (straight-line bound, optimal)");
                         System.out.print("Enter choice: ");
 
                         int algoChoice = scanner.nextInt();
@@ -56,11 +94,37 @@ public class Main {
                                 pathFinder.modifiedDFS(start, goal);
                                 pathFinder.dijkstra(start, goal);
                                 break;
+                            case 5:
+                                pathFinder.bidirectionalDijkstra(start, goal);
+                                break;
+                            case 6:
+                                pathFinder.alt(start, goal);
+                                break;
+                            case 7:
+                                pathFinder.contractionHierarchy(start, goal);
+                                break;
+                            case 8:
+                                pathFinder.bfs(start, goal);
+                                break;
+                            case 9:
+                                System.out.print("How many paths: ");
+                                int k = scanner.nextInt();
+                                scanner.nextLine();
+                                List<Route> routes = pathFinder.kShortestPaths(start, goal, k);
+                                for (int i = 0; i < routes.size(); i++) {
+                                    System.out.println((i + 1) + ". " + routes.get(i));
+                                }
+                                break;
+                            case 10:
+                                pathFinder.geometricAStar(start, goal);
+                                break;
                             default:
                                 System.out.println("Invalid choice");
                         }
                     } else {
                         System.out.println("Invalid city names!");
+                        suggest(graph, start);
+                        suggest(graph, goal);
                     }
                     break;
 
@@ -73,26 +137,73 @@ public class Main {
                     scanner.close();
                     return;
 
+                case 4:
+                    if (!graph.hasCoordinates()) {
+                        System.out.println("This graph has no coordinates!");
+                        break;
+                    }
+                    System.out.print("Enter latitude: ");
+                    double latitude = scanner.nextDouble();
+                    System.out.print("Enter longitude: ");
+                    double longitude = scanner.nextDouble();
+                    System.out.print("Enter radius in km (0 for the nearest city only): ");
+                    double radius = scanner.nextDouble();
+                    scanner.nextLine();
+
+                    String nearest = pathFinder.nearestCity(latitude, longitude);
+                    int city = graph.getCityIndex(nearest);
+                    System.out.printf("Nearest city: %s (%.1f km)%n", nearest, KdTree.haversine(latitude,
+                            longitude, graph.getLatitude(city), graph.getLongitude(city)));
+                    if (radius > 0) {
+                        System.out.println("Within " + radius + " km: "
+                                + pathFinder.citiesWithin(latitude, longitude, radius));
+                    }
+                    break;
+
                 default:
                     System.out.println("Invalid choice!");
             }
         }
     }
 
-    private static Graph createGraph() {
-        Graph graph = new Graph();
+    /**
+     * For an unknown name, list cities sharing its longest known prefix
+     * (so "Istambul" suggests Istanbul): O(length x log V) on a CompactGraph
+     */
+    static void suggest(IndexedGraph graph, String name) {
+        if (graph.getCityIndex(name) >= 0) {
+            return;
+        }
+        for (int length = name.length(); length > 0; length--) {
+            int[] ids = graph.citiesWithPrefix(name.substring(0, length), 5);
+            if (ids.length > 0) {
+                System.out.println("Did you mean " + graph.toNames(ids, ids.length) + " for \"" + name + "\"?");
+                return;
+            }
+        }
+    }
 
-        // Add all cities
-        String[] cities = {
-                "Istanbul", "Ankara", "Izmir", "Bursa", "Adana",
-                "Gaziantep", "Konya", "Diyarbakir", "Antalya",
-                "Mersin", "Kayseri", "Urfa", "Malatya", "Samsun",
-                "Denizli", "Batman", "Trabzon"
-        };
+    static Graph createGraph() {
+        Graph graph = new Graph();
 
-        for (String city : cities) {
-            graph.addCity(city);
-        }
+        // Add all cities at their city centres (latitude, longitude in degrees)
+        graph.addCity("Istanbul", 41.0082, 28.9784);
+        graph.addCity("Ankara", 39.9334, 32.8597);
+        graph.addCity("Izmir", 38.4237, 27.1428);
+        graph.addCity("Bursa", 40.1826, 29.0665);
+        graph.addCity("Adana", 37.0000, 35.3213);
+        graph.addCity("Gaziantep", 37.0662, 37.3833);
+        graph.addCity("Konya", 37.8746, 32.4932);
+        graph.addCity("Diyarbakir", 37.9144, 40.2306);
+        graph.addCity("Antalya", 36.8969, 30.7133);
+        graph.addCity("Mersin", 36.8121, 34.6415);
+        graph.addCity("Kayseri", 38.7312, 35.4787);
+        graph.addCity("Urfa", 37.1591, 38.7969);
+        graph.addCity("Malatya", 38.3552, 38.3095);
+        graph.addCity("Samsun", 41.2928, 36.3313);
+        graph.addCity("Denizli", 37.7765, 29.0864);
+        graph.addCity("Batman", 37.8812, 41.1351);
+        graph.addCity("Trabzon", 41.0015, 39.7178);
 
         // Complete edge setup from the Excel data
         // Istanbul connections
@@ -0,0 +1,207 @@
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Graph served directly from a memory-mapped GraphFile
+ * All arrays are views of the mapped file, so opening costs page faults
+ * rather than parsing and the data never lives on the Java heap.
+ * City lookups binary-search the file's NAME_ORDER section.
+ */
+public class MappedGraph implements IndexedGraph {
+    private final int cityCount;
+    private final int edgeCount;
+    private final IntBuffer offsets;
+    private final IntBuffer targets;
+    private final IntBuffer weights;
+    private final IntBuffer nameOffsets;
+    private final ByteBuffer nameBytes;
+    private final IntBuffer nameOrder;
+    private final DoubleBuffer latitudes;
+    private final DoubleBuffer longitudes;
+    private final Map<Integer, ByteBuffer> sections;
+    private final boolean undirected;
+    private volatile CompactGraph reverse;
+    private int maxWeight = -1;  // computed on first use; a racy recompute is harmless
+
+    MappedGraph(int cityCount, int edgeCount, int flags, Map<Integer, ByteBuffer> sections) {
+        this.cityCount = cityCount;
+        this.edgeCount = edgeCount;
+        this.sections = sections;
+        this.undirected = (flags & GraphFile.FLAG_UNDIRECTED) != 0;
+        offsets = sections.get(GraphFile.OFFSETS).asIntBuffer();
+        targets = sections.get(GraphFile.TARGETS).asIntBuffer();
+        weights = sections.get(GraphFile.WEIGHTS).asIntBuffer();
+
+        if ((flags & GraphFile.FLAG_NAMES) != 0) {
+            nameOffsets = sections.get(GraphFile.NAME_OFFSETS).asIntBuffer();
+            nameBytes = sections.get(GraphFile.NAME_BYTES);
+            nameOrder = sections.get(GraphFile.NAME_ORDER).asIntBuffer();
+        } else {
+            nameOffsets = null;
+            nameBytes = null;
+            nameOrder = null;
+        }
+
+        if ((flags & GraphFile.FLAG_COORDINATES) != 0) {
+            latitudes = sections.get(GraphFile.LATITUDES).asDoubleBuffer();
+            longitudes = sections.get(GraphFile.LONGITUDES).asDoubleBuffer();
+        } else {
+            latitudes = null;
+            longitudes = null;
+        }
+    }
+
+    @Override
+    public int getCityCount() {
+        return cityCount;
+    }
+
+    @Override
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * City id lookup: O(log V) binary search over the mapped name order
+     */
+    @Override
+    public int getCityIndex(String city) {
+        if (nameOrder == null) {
+            try {
+                int index = Integer.parseInt(city) - 1;
+                return index >= 0 && index < cityCount ? index : -1;
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+
+        byte[] key = city.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = cityCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int id = nameOrder.get(mid);
+            int cmp = compareName(id, key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public String getCityName(int index) {
+        if (nameBytes == null) {
+            return Integer.toString(index + 1);
+        }
+        int start = nameOffsets.get(index);
+        byte[] bytes = new byte[nameOffsets.get(index + 1) - start];
+        nameBytes.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public boolean hasCityNames() {
+        return nameBytes != null;
+    }
+
+    @Override
+    public int degree(int city) {
+        return offsets.get(city + 1) - offsets.get(city);
+    }
+
+    @Override
+    public int target(int city, int i) {
+        return targets.get(offsets.get(city) + i);
+    }
+
+    @Override
+    public int weight(int city, int i) {
+        return weights.get(offsets.get(city) + i);
+    }
+
+    /**
+     * Heaviest arc weight: O(E) once, then O(1)
+     */
+    @Override
+    public int getMaxWeight() {
+        int result = maxWeight;
+        if (result < 0) {
+            int max = 0;
+            for (int e = 0; e < edgeCount; e++) {
+                max = Math.max(max, weights.get(e));
+            }
+            result = max;
+            maxWeight = result;
+        }
+        return result;
+    }
+
+    @Override
+    public boolean isUndirected() {
+        return undirected;
+    }
+
+    /**
+     * Undirected files are their own reverse; otherwise the transpose is
+     * built on the heap on first use: O(V + E)
+     */
+    @Override
+    public IndexedGraph reverse() {
+        if (undirected) {
+            return this;
+        }
+        CompactGraph result = reverse;
+        if (result == null) {
+            result = CompactGraph.transpose(this, null);
+            reverse = result;
+        }
+        return result;
+    }
+
+    @Override
+    public boolean hasCoordinates() {
+        return latitudes != null;
+    }
+
+    @Override
+    public double getLatitude(int city) {
+        return latitudes.get(city);
+    }
+
+    @Override
+    public double getLongitude(int city) {
+        return longitudes.get(city);
+    }
+
+    /**
+     * Extra section written with GraphFile.write, or null if absent
+     */
+    public IntBuffer getSection(int id) {
+        ByteBuffer section = sections.get(id);
+        return section == null ? null : section.asIntBuffer();
+    }
+
+    /**
+     * Unsigned byte-wise comparison of a stored name with key
+     */
+    private int compareName(int id, byte[] key) {
+        int start = nameOffsets.get(id);
+        int length = nameOffsets.get(id + 1) - start;
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int cmp = Integer.compare(nameBytes.get(start + i) & 0xFF, key[i] & 0xFF);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return Integer.compare(length, key.length);
+    }
+}
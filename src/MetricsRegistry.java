@@ -0,0 +1,125 @@
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sink that aggregates queries per algorithm into counters and histograms
+ * Thread-safe, so one registry can collect from PathFinders on many
+ * threads. Nothing is allocated per query once an algorithm has been seen.
+ */
+public class MetricsRegistry implements MetricsSink {
+    private final Map<String, AlgorithmMetrics> algorithms = new ConcurrentHashMap<>();
+
+    @Override
+    public void record(QueryMetrics metrics) {
+        algorithms.computeIfAbsent(metrics.getAlgorithm(), name -> new AlgorithmMetrics())
+                .record(metrics);
+    }
+
+    /**
+     * Aggregates for one algorithm, null if it has not run
+     */
+    public AlgorithmMetrics get(String algorithm) {
+        return algorithms.get(algorithm);
+    }
+
+    public Map<String, AlgorithmMetrics> getAll() {
+        return new TreeMap<>(algorithms);
+    }
+
+    public void clear() {
+        algorithms.clear();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("+--------------------------+----------+--------+-----------+-----------+-----------+-------------+-------------+\n");
+        sb.append("| Algorithm                | queries  | cached | p50 (us)  | p99 (us)  | max (us)  | settled avg | relaxed avg |\n");
+        sb.append("+--------------------------+----------+--------+-----------+-----------+-----------+-------------+-------------+\n");
+        for (Map.Entry<String, AlgorithmMetrics> entry : getAll().entrySet()) {
+            AlgorithmMetrics m = entry.getValue();
+            sb.append(String.format("| %-24s | %8d | %6d | %9.2f | %9.2f | %9.2f | %11.1f | %11.1f |%n",
+                    entry.getKey(), m.getQueryCount(), m.getCachedCount(),
+                    m.getElapsed().percentile(0.50) / 1000.0, m.getElapsed().percentile(0.99) / 1000.0,
+                    m.getElapsed().getMax() / 1000.0,
+                    m.getSettled().getMean(), m.getRelaxed().getMean()));
+        }
+        sb.append("+--------------------------+----------+--------+-----------+-----------+-----------+-------------+-------------+");
+        return sb.toString();
+    }
+
+    /**
+     * Counters and histograms of one algorithm; searched queries only feed
+     * the work histograms, cache hits only the latency one
+     */
+    public static class AlgorithmMetrics {
+        private final LongAdder queries = new LongAdder();
+        private final LongAdder cached = new LongAdder();
+        private final LongAdder notFound = new LongAdder();
+        private final Histogram elapsed = new Histogram();
+        private final Histogram settled = new Histogram();
+        private final Histogram relaxed = new Histogram();
+        private final Histogram pushes = new Histogram();
+        private final Histogram stale = new Histogram();
+        private final Histogram hops = new Histogram();
+
+        void record(QueryMetrics metrics) {
+            queries.increment();
+            elapsed.record(metrics.getElapsedNanos());
+            if (!metrics.isFound()) {
+                notFound.increment();
+            } else {
+                hops.record(metrics.getHops());
+            }
+            if (metrics.isCached()) {
+                cached.increment();
+                return;
+            }
+            settled.record(metrics.getSettledCount());
+            relaxed.record(metrics.getRelaxedCount());
+            pushes.record(metrics.getPushCount());
+            stale.record(metrics.getStaleCount());
+        }
+
+        public long getQueryCount() {
+            return queries.sum();
+        }
+
+        public long getCachedCount() {
+            return cached.sum();
+        }
+
+        public long getNotFoundCount() {
+            return notFound.sum();
+        }
+
+        /**
+         * Elapsed time per query in nanoseconds
+         */
+        public Histogram getElapsed() {
+            return elapsed;
+        }
+
+        public Histogram getSettled() {
+            return settled;
+        }
+
+        public Histogram getRelaxed() {
+            return relaxed;
+        }
+
+        public Histogram getPushes() {
+            return pushes;
+        }
+
+        public Histogram getStale() {
+            return stale;
+        }
+
+        public Histogram getHops() {
+            return hops;
+        }
+    }
+}
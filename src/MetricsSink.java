@@ -0,0 +1,10 @@
+/**
+ * Receiver of per-query metrics from a PathFinder
+ * Sinks run on the querying thread after the query has been timed, so
+ * they never inflate the reported elapsed time. A sink shared between
+ * PathFinders on several threads must be thread-safe.
+ */
+public interface MetricsSink {
+
+    void record(QueryMetrics metrics);
+}
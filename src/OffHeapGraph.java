@@ -0,0 +1,312 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Immutable CSR graph kept entirely in direct (off-heap) buffers
+ * The heap only holds this object and a handful of buffer headers, however
+ * large the graph: no per-edge or per-name objects for the collector to
+ * trace or copy, and no large primitive arrays to promote into the old
+ * generation. The memory is released when the graph becomes unreachable.
+ * Arcs are interleaved (target, weight) pairs, so relaxing an arc reads one
+ * cache line. Names are UTF-8 bytes with an open-addressing table of
+ * (String hash code, id + 1) slots, so a lookup encodes the key once and
+ * compares bytes of the one name whose hash code matches.
+ * Each buffer is limited to 2 GB, about 268M arcs.
+ * Time Complexity Analysis: O(V + E) to copy in; the same per-arc cost as
+ * CompactGraph after that
+ */
+public class OffHeapGraph implements IndexedGraph {
+    private final int cityCount;
+    private final int edgeCount;
+    private final IntBuffer offsets;
+    private final IntBuffer arcs;          // target at 2e, weight at 2e + 1
+    private final IntBuffer nameOffsets;   // null for id-named vertices
+    private final ByteBuffer nameBytes;
+    private final IntBuffer nameTable;     // slot s: hash code at 2s, id + 1 at 2s + 1 (0 if empty)
+    private final int nameMask;
+    private final DoubleBuffer latitudes;  // null without coordinates
+    private final DoubleBuffer longitudes;
+    private final boolean undirected;
+    private volatile OffHeapGraph reverse;
+    private int maxWeight = -1;  // computed on first use; a racy recompute is harmless
+
+    private OffHeapGraph(IndexedGraph graph, boolean transpose) {
+        int n = graph.getCityCount();
+        cityCount = n;
+        edgeCount = graph.getEdgeCount();
+        undirected = !transpose && graph.isUndirected();
+        offsets = allocate(4L * (n + 1)).asIntBuffer();
+        arcs = allocate(8L * edgeCount).asIntBuffer();
+        if (transpose) {
+            fillTransposed(graph);
+        } else {
+            fill(graph);
+        }
+
+        // A transpose is only searched; names are looked up in the original
+        if (graph.hasCityNames() && !transpose) {
+            byte[][] names = new byte[n][];
+            long total = 0;
+            for (int v = 0; v < n; v++) {
+                names[v] = graph.getCityName(v).getBytes(StandardCharsets.UTF_8);
+                total += names[v].length;
+            }
+            nameOffsets = allocate(4L * (n + 1)).asIntBuffer();
+            nameBytes = allocate(total);
+            int position = 0;
+            for (int v = 0; v < n; v++) {
+                nameOffsets.put(v, position);
+                nameBytes.put(position, names[v]);
+                position += names[v].length;
+            }
+            nameOffsets.put(n, position);
+
+            int slots = Math.max(2, Integer.highestOneBit(Math.max(1, n)) << 2);
+            nameTable = allocate(8L * slots).asIntBuffer();
+            nameMask = slots - 1;
+            for (int v = 0; v < n; v++) {
+                int hash = graph.getCityName(v).hashCode();
+                int slot = spread(hash) & nameMask;
+                while (nameTable.get(2 * slot + 1) != 0) {
+                    slot = (slot + 1) & nameMask;
+                }
+                nameTable.put(2 * slot, hash);
+                nameTable.put(2 * slot + 1, v + 1);
+            }
+        } else {
+            nameOffsets = null;
+            nameBytes = null;
+            nameTable = null;
+            nameMask = 0;
+        }
+
+        if (graph.hasCoordinates()) {
+            latitudes = allocate(8L * n).asDoubleBuffer();
+            longitudes = allocate(8L * n).asDoubleBuffer();
+            for (int v = 0; v < n; v++) {
+                latitudes.put(v, graph.getLatitude(v));
+                longitudes.put(v, graph.getLongitude(v));
+            }
+        } else {
+            latitudes = null;
+            longitudes = null;
+        }
+    }
+
+    /**
+     * Off-heap copy of any graph, names and coordinates included: O(V + E)
+     * A graph that is its own reverse stays undirected.
+     */
+    public static OffHeapGraph copyOf(IndexedGraph graph) {
+        return new OffHeapGraph(graph, false);
+    }
+
+    private static ByteBuffer allocate(long bytes) {
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Off-heap buffer of " + bytes + " bytes exceeds 2 GB");
+        }
+        return ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.nativeOrder());
+    }
+
+    private void fill(IndexedGraph graph) {
+        int e = 0;
+        for (int v = 0; v < cityCount; v++) {
+            offsets.put(v, e);
+            for (int i = 0, degree = graph.degree(v); i < degree; i++, e++) {
+                arcs.put(2 * e, graph.target(v, i));
+                arcs.put(2 * e + 1, graph.weight(v, i));
+            }
+        }
+        offsets.put(cityCount, e);
+    }
+
+    /**
+     * Counting sort of the arcs by target, as CompactGraph.transpose does
+     */
+    private void fillTransposed(IndexedGraph graph) {
+        for (int v = 0; v < cityCount; v++) {
+            for (int i = 0, degree = graph.degree(v); i < degree; i++) {
+                int t = graph.target(v, i) + 1;
+                offsets.put(t, offsets.get(t) + 1);
+            }
+        }
+        for (int v = 0; v < cityCount; v++) {
+            offsets.put(v + 1, offsets.get(v + 1) + offsets.get(v));
+        }
+        int[] next = new int[cityCount];
+        for (int v = 0; v < cityCount; v++) {
+            next[v] = offsets.get(v);
+        }
+        for (int v = 0; v < cityCount; v++) {
+            for (int i = 0, degree = graph.degree(v); i < degree; i++) {
+                int e = next[graph.target(v, i)]++;
+                arcs.put(2 * e, v);
+                arcs.put(2 * e + 1, graph.weight(v, i));
+            }
+        }
+    }
+
+    @Override
+    public int getCityCount() {
+        return cityCount;
+    }
+
+    @Override
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * City id lookup: O(1) expected, -1 if the city is unknown
+     */
+    @Override
+    public int getCityIndex(String city) {
+        if (nameTable == null) {
+            try {
+                int index = Integer.parseInt(city) - 1;
+                return index >= 0 && index < cityCount ? index : -1;
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+
+        int hash = city.hashCode();
+        byte[] key = null;
+        int slot = spread(hash) & nameMask;
+        int entry;
+        while ((entry = nameTable.get(2 * slot + 1)) != 0) {
+            if (nameTable.get(2 * slot) == hash) {
+                if (key == null) {
+                    key = city.getBytes(StandardCharsets.UTF_8);
+                }
+                if (nameEquals(entry - 1, key)) {
+                    return entry - 1;
+                }
+            }
+            slot = (slot + 1) & nameMask;
+        }
+        return -1;
+    }
+
+    @Override
+    public String getCityName(int index) {
+        if (nameBytes == null) {
+            return Integer.toString(index + 1);
+        }
+        int start = nameOffsets.get(index);
+        byte[] bytes = new byte[nameOffsets.get(index + 1) - start];
+        nameBytes.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public boolean hasCityNames() {
+        return nameBytes != null;
+    }
+
+    @Override
+    public int degree(int city) {
+        return offsets.get(city + 1) - offsets.get(city);
+    }
+
+    @Override
+    public int target(int city, int i) {
+        return arcs.get(2 * (offsets.get(city) + i));
+    }
+
+    @Override
+    public int weight(int city, int i) {
+        return arcs.get(2 * (offsets.get(city) + i) + 1);
+    }
+
+    /**
+     * Heaviest arc weight: O(E) once, then O(1)
+     */
+    @Override
+    public int getMaxWeight() {
+        int result = maxWeight;
+        if (result < 0) {
+            int max = 0;
+            for (int e = 0; e < edgeCount; e++) {
+                max = Math.max(max, arcs.get(2 * e + 1));
+            }
+            result = max;
+            maxWeight = result;
+        }
+        return result;
+    }
+
+    /**
+     * Undirected graphs are their own reverse; otherwise the transpose is
+     * built off-heap on first use: O(V + E)
+     */
+    @Override
+    public IndexedGraph reverse() {
+        if (undirected) {
+            return this;
+        }
+        OffHeapGraph result = reverse;
+        if (result == null) {
+            result = new OffHeapGraph(this, true);
+            reverse = result;
+        }
+        return result;
+    }
+
+    @Override
+    public boolean isUndirected() {
+        return undirected;
+    }
+
+    @Override
+    public boolean hasCoordinates() {
+        return latitudes != null;
+    }
+
+    @Override
+    public double getLatitude(int city) {
+        return latitudes.get(city);
+    }
+
+    @Override
+    public double getLongitude(int city) {
+        return longitudes.get(city);
+    }
+
+    /**
+     * Bytes allocated off-heap, transpose excluded
+     */
+    public long getOffHeapBytes() {
+        long bytes = 4L * offsets.capacity() + 4L * arcs.capacity();
+        if (nameBytes != null) {
+            bytes += 4L * nameOffsets.capacity() + nameBytes.capacity() + 4L * nameTable.capacity();
+        }
+        if (latitudes != null) {
+            bytes += 16L * latitudes.capacity();
+        }
+        return bytes;
+    }
+
+    private boolean nameEquals(int id, byte[] key) {
+        int start = nameOffsets.get(id);
+        if (nameOffsets.get(id + 1) - start != key.length) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (nameBytes.get(start + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Mix the high bits in, since the table only uses the low ones
+     */
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
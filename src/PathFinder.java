@@ -2,250 +2,679 @@ import java.util.*;
 
 /**
  * PathFinder class implementing all three required algorithms
+ * Every search, batch() included, answers a start equal to its goal with
+ * the one-city path at 0 km, and an unreachable goal with an empty path.
  */
 public class PathFinder {
+    private static final int DEFAULT_LANDMARKS = 16;
+
     private Graph graph;
+    private IndexedGraph frozen;
+    private ConcurrentGraph concurrent;
+    private DijkstraSearch dijkstraSearch;
+    private BidirectionalDijkstra bidirectionalSearch;
+    private BranchAndBound branchAndBound;
+    private KShortestPaths kShortestPaths;
+    private Traversal traversal;
+    private Landmarks landmarks;
+    private AltSearch altSearch;
+    private GeometricSearch geometricSearch;
+    private KdTree kdTree;
+    private ContractionHierarchy hierarchy;
+    private CHSearch chSearch;
+    private IndexedGraph chGraph;
+    private RouteCache routeCache;
+    private BatchRouter batchRouter;
+    private final ConsoleSink console = new ConsoleSink(System.out);
+    private final List<MetricsSink> sinks = new ArrayList<>(List.of(console));
 
     public PathFinder(Graph graph) {
         this.graph = graph;
     }
 
+    /**
+     * Run the algorithms on an already frozen, loaded or mapped graph
+     */
+    public PathFinder(IndexedGraph graph) {
+        this.frozen = graph;
+    }
+
+    /**
+     * Query the latest snapshot of a concurrently updated graph
+     * Each query runs on one snapshot, so updates never block or tear it.
+     * A PathFinder is still for one thread; use one per reader thread.
+     */
+    public PathFinder(ConcurrentGraph graph) {
+        this.concurrent = graph;
+    }
+
+    /**
+     * The int-id view every algorithm runs on; re-frozen after Graph mutations
+     */
+    private IndexedGraph compact() {
+        if (concurrent != null) {
+            return concurrent.snapshot();
+        }
+        return graph != null ? graph.freeze() : frozen;
+    }
+
     /**
      * Standard DFS Algorithm using custom stack
      * Time Complexity: O(V + E) where V=vertices, E=edges
      * Finds a path (not necessarily shortest)
      */
     public List<String> dfs(String start, String goal) {
-        long startTime = System.nanoTime();
+        return traverse("DFS", start, goal, false);
+    }
 
-        Stack<String> stack = new Stack<>();
-        Map<String, Boolean> visited = new HashMap<>();
-        Map<String, String> parent = new HashMap<>();
-        Map<String, Integer> distances = new HashMap<>();
+    /**
+     * BFS Algorithm using custom queue
+     * Time Complexity: O(V + E) where V=vertices, E=edges
+     * Finds the path with the fewest hops (not necessarily shortest in km)
+     */
+    public List<String> bfs(String start, String goal) {
+        return traverse("BFS", start, goal, true);
+    }
 
-        for (String city : graph.getCityList()) {
-            visited.put(city, false);
-        }
+    private List<String> traverse(String algorithm, String start, String goal, boolean breadthFirst) {
+        long startTime = System.nanoTime();
 
-        stack.push(start);
-        visited.put(start, true);
-        distances.put(start, 0);
+        IndexedGraph g = compact();
+        int source = g.getCityIndex(start);
+        int target = g.getCityIndex(goal);
 
-        while (!stack.isEmpty()) {
-            String current = stack.pop();
+        if (source >= 0 && target >= 0) {
+            if (traversal == null || traversal.getGraph() != g) {
+                traversal = new Traversal(g, rebind(traversal == null ? null : traversal.getWorkspace(), g));
+            }
+            boolean found = breadthFirst ? traversal.bfs(source, target) : traversal.dfs(source, target);
 
-            if (current.equals(goal)) {
+            if (found) {
                 long endTime = System.nanoTime();
-                List<String> path = reconstructPath(parent, start, goal);
-                int distance = calculatePathDistance(path);
-                printResults("DFS", path, distance, endTime - startTime);
+                int[] ids = traversal.path(target);
+                List<String> path = g.toNames(ids, ids.length);
+                int distance = calculatePathDistance(g, path);
+                report(algorithm, start, goal, path, distance, endTime - startTime, traversal);
                 return path;
             }
-
-            for (Edge neighbor : graph.getNeighbors(current)) {
-                if (!visited.get(neighbor.city)) {
-                    visited.put(neighbor.city, true);
-                    parent.put(neighbor.city, current);
-                    int currentDist = distances.getOrDefault(current, 0);
-                    distances.put(neighbor.city, currentDist + (int) neighbor.distance);
-                    stack.push(neighbor.city);
-                }
-            }
         }
 
         long endTime = System.nanoTime();
-        System.out.println("DFS - No path found from " + start + " to " + goal);
-        System.out.println("Execution time: " + (endTime - startTime) + " ns");
+        report(algorithm, start, goal, List.of(), 0, endTime - startTime,
+                source >= 0 && target >= 0 ? traversal : null);
         return new ArrayList<>();
     }
 
     /**
      * Modified DFS Algorithm to find shortest path
      * Time Complexity: O(V!) worst case - explores all possible paths
-     * Finds the shortest path by exhaustive search
+     * Finds the shortest path by exhaustive search, run as a parallel
+     * branch and bound with exact remaining-distance bounds
      */
     public List<String> modifiedDFS(String start, String goal) {
         long startTime = System.nanoTime();
 
-        // Initialize shortest path tracking
-        List<String> shortestPath = new ArrayList<>();
-        int[] shortestDistance = new int[] { Integer.MAX_VALUE }; // Using array to allow mutation
+        IndexedGraph g = compact();
+        List<String> cached = fromCache(g, "Modified DFS", start, goal, startTime);
+        if (cached != null) {
+            return cached;
+        }
 
-        // Create visited set and current path
-        Set<String> visited = new HashSet<>();
-        List<String> currentPath = new ArrayList<>();
+        int source = g.getCityIndex(start);
+        int target = g.getCityIndex(goal);
+        List<String> path = new ArrayList<>();
+        int distance = Integer.MAX_VALUE;
 
-        // Start DFS exploration
-        dfsShortestHelper(start, goal, visited, currentPath, 0,
-                shortestPath, shortestDistance);
+        if (source >= 0 && target >= 0) {
+            if (branchAndBound == null || branchAndBound.getGraph() != g) {
+                branchAndBound = new BranchAndBound(g);
+            }
+            distance = branchAndBound.search(source, target);
+            int[] ids = branchAndBound.path();
+            path = g.toNames(ids, ids.length);
+            toCache(g, "Modified DFS", start, goal, path, distance);
+        }
 
         long endTime = System.nanoTime();
 
-        if (!shortestPath.isEmpty() && shortestDistance[0] < Integer.MAX_VALUE) {
-            printResults("Modified DFS", shortestPath, shortestDistance[0], endTime - startTime);
-            return shortestPath;
-        } else {
-            System.out.println("Modified DFS - No path found from " + start + " to " + goal);
-            System.out.println("Execution time: " + (endTime - startTime) + " ns");
-            return new ArrayList<>();
-        }
-    }
-
-    private void dfsShortestHelper(String current, String goal, Set<String> visited,
-            List<String> currentPath, int currentDistance,
-            List<String> shortestPath, int[] shortestDistance) {
-        // Add current node to path and mark as visited
-        visited.add(current);
-        currentPath.add(current);
-
-        // Check if we reached the goal
-        if (current.equals(goal)) {
-            if (currentDistance < shortestDistance[0]) {
-                // Update shortest path and distance
-                shortestPath.clear();
-                shortestPath.addAll(new ArrayList<>(currentPath));
-                shortestDistance[0] = currentDistance;
-            }
+        report("Modified DFS", start, goal, path, distance, endTime - startTime,
+                source >= 0 && target >= 0 ? branchAndBound : null);
+        return path;
+    }
 
-            // Backtrack
-            visited.remove(current);
-            currentPath.remove(currentPath.size() - 1);
-            return;
-        }
+    /**
+     * Dijkstra's Algorithm using an indexed decrease-key heap
+     * Time Complexity: O((V + E) log V) with priority queue
+     * Finds the guaranteed shortest path
+     */
+    public List<String> dijkstra(String start, String goal) {
+        long startTime = System.nanoTime();
 
-        // Explore neighbors
-        for (Edge neighbor : graph.getNeighbors(current)) {
-            if (!visited.contains(neighbor.city)) {
-                int newDistance = currentDistance + (int) neighbor.distance;
+        IndexedGraph g = compact();
+        List<String> cached = fromCache(g, "Dijkstra", start, goal, startTime);
+        if (cached != null) {
+            return cached;
+        }
 
-                // Only continue if current path is promising
-                if (newDistance < shortestDistance[0]) {
-                    dfsShortestHelper(neighbor.city, goal, visited, currentPath,
-                            newDistance, shortestPath, shortestDistance);
+        int source = g.getCityIndex(start);
+        int target = g.getCityIndex(goal);
+        List<String> path = new ArrayList<>();
+        int totalDistance = DijkstraSearch.INFINITY;
+        SearchCounters counters = null;
+
+        if (source >= 0 && target >= 0) {
+            int[] ids;
+            if (routeCache != null && routeCache.isReusingTrees()) {
+                // One full search per source answers every goal from it
+                ShortestPathTree tree = routeCache.getTree(start, graphVersion(g));
+                if (tree == null || tree.getGraph() != g) {
+                    tree = ShortestPathTree.compute(dijkstraSearch(g), source);
+                    routeCache.putTree(start, graphVersion(g), tree);
+                    counters = dijkstraSearch;
                 }
+                totalDistance = tree.getDistance(target);
+                ids = tree.path(target);
+            } else {
+                DijkstraSearch search = dijkstraSearch(g);
+                totalDistance = search.search(source, target);
+                ids = search.path(target);
+                counters = search;
             }
+
+            // Check if path is valid
+            if (ids.length > 0) {
+                path = g.toNames(ids, ids.length);
+            }
+            toCache(g, "Dijkstra", start, goal, path, totalDistance);
         }
 
-        // Backtrack
-        visited.remove(current);
-        currentPath.remove(currentPath.size() - 1);
+        long endTime = System.nanoTime();
+
+        report("Dijkstra", start, goal, path, totalDistance, endTime - startTime, counters);
+        return path;
     }
 
     /**
-     * Dijkstra's Algorithm using PriorityQueue
-     * Time Complexity: O((V + E) log V) with priority queue
+     * Engine reused across queries; rebuilt when the graph is re-frozen
+     */
+    private DijkstraSearch dijkstraSearch(IndexedGraph g) {
+        if (dijkstraSearch == null || dijkstraSearch.getGraph() != g) {
+            dijkstraSearch = new DijkstraSearch(g,
+                    rebind(dijkstraSearch == null ? null : dijkstraSearch.getWorkspace(), g));
+        }
+        return dijkstraSearch;
+    }
+
+    /**
+     * Workspace for an engine rebuilt on g: the old engine's workspace goes
+     * back to this thread's pool and comes out again, so re-freezing or a
+     * new snapshot allocates no search state unless the graph grew
+     */
+    private SearchWorkspace rebind(SearchWorkspace old, IndexedGraph g) {
+        if (old != null) {
+            old.close();
+        }
+        return SearchWorkspace.acquire(g.getCityCount());
+    }
+
+    /**
+     * Bidirectional Dijkstra: meet-in-the-middle point-to-point search
+     * Time Complexity: O((V + E) log V), settles about half of what dijkstra does
      * Finds the guaranteed shortest path
      */
-    public List<String> dijkstra(String start, String goal) {
+    public List<String> bidirectionalDijkstra(String start, String goal) {
         long startTime = System.nanoTime();
 
-        Map<String, Integer> distances = new HashMap<>();
-        Map<String, String> previous = new HashMap<>();
-        Set<String> visited = new HashSet<>();
+        IndexedGraph g = compact();
+        List<String> cached = fromCache(g, "Bidirectional Dijkstra", start, goal, startTime);
+        if (cached != null) {
+            return cached;
+        }
+
+        int source = g.getCityIndex(start);
+        int target = g.getCityIndex(goal);
+        List<String> path = new ArrayList<>();
+        int totalDistance = BidirectionalDijkstra.INFINITY;
+        BidirectionalDijkstra search = null;
+
+        if (source >= 0 && target >= 0) {
+            search = bidirectionalSearch(g);
+            totalDistance = search.search(source, target);
 
-        // Initialize distances
-        for (String city : graph.getCityList()) {
-            distances.put(city, Integer.MAX_VALUE);
+            int[] ids = search.path();
+            if (ids.length > 0) {
+                path = g.toNames(ids, ids.length);
+            }
+            toCache(g, "Bidirectional Dijkstra", start, goal, path, totalDistance);
         }
-        distances.put(start, 0);
 
-        // Use priority queue (allowed for Dijkstra)
-        PriorityQueue<String> pq = new PriorityQueue<>(
-                Comparator.comparingInt(distances::get));
-        pq.add(start);
+        long endTime = System.nanoTime();
 
-        while (!pq.isEmpty()) {
-            String current = pq.poll();
+        report("Bidirectional Dijkstra", start, goal, path, totalDistance, endTime - startTime, search);
+        return path;
+    }
 
-            if (visited.contains(current))
-                continue;
-            visited.add(current);
+    private BidirectionalDijkstra bidirectionalSearch(IndexedGraph g) {
+        if (bidirectionalSearch == null || bidirectionalSearch.getGraph() != g) {
+            BidirectionalDijkstra old = bidirectionalSearch;
+            bidirectionalSearch = new BidirectionalDijkstra(g,
+                    rebind(old == null ? null : old.getForwardWorkspace(), g),
+                    rebind(old == null ? null : old.getBackwardWorkspace(), g));
+        }
+        return bidirectionalSearch;
+    }
 
-            if (current.equals(goal))
-                break;
+    /**
+     * A* with landmark lower bounds (ALT)
+     * Time Complexity: O((V + E) log V) worst case, plus a one-off
+     * preprocessing of O(k (V + E) log V) for k landmarks
+     * Finds the guaranteed shortest path, settling far fewer vertices than dijkstra
+     */
+    public List<String> alt(String start, String goal) {
+        long startTime = System.nanoTime();
 
-            for (Edge neighbor : graph.getNeighbors(current)) {
-                if (!visited.contains(neighbor.city)) {
-                    int newDist = distances.get(current) + (int) neighbor.distance;
+        IndexedGraph g = compact();
+        List<String> cached = fromCache(g, "ALT (A* + landmarks)", start, goal, startTime);
+        if (cached != null) {
+            return cached;
+        }
 
-                    if (newDist < distances.get(neighbor.city)) {
-                        distances.put(neighbor.city, newDist);
-                        previous.put(neighbor.city, current);
-                        pq.add(neighbor.city);
-                    }
-                }
+        int source = g.getCityIndex(start);
+        int target = g.getCityIndex(goal);
+        List<String> path = new ArrayList<>();
+        int totalDistance = AltSearch.INFINITY;
+        AltSearch search = null;
+
+        if (source >= 0 && target >= 0) {
+            search = altSearch(g);
+            totalDistance = search.search(source, target);
+
+            int[] ids = search.path(target);
+            if (ids.length > 0) {
+                path = g.toNames(ids, ids.length);
             }
+            toCache(g, "ALT (A* + landmarks)", start, goal, path, totalDistance);
         }
 
-        // Reconstruct path
-        List<String> path = new ArrayList<>();
-        String current = goal;
+        long endTime = System.nanoTime();
+
+        report("ALT (A* + landmarks)", start, goal, path, totalDistance, endTime - startTime, search);
+        return path;
+    }
+
+    /**
+     * Use precomputed landmarks (e.g. from a graph file) for alt()
+     */
+    public void setLandmarks(Landmarks landmarks) {
+        this.landmarks = landmarks;
+        this.altSearch = null;
+    }
+
+    /**
+     * Select and preprocess landmarks for alt(): O(k (V + E) log V)
+     */
+    public void prepareLandmarks(int count, Landmarks.Selection selection) {
+        setLandmarks(Landmarks.compute(compact(), count, selection, 1));
+    }
 
-        while (current != null) {
-            path.add(0, current);
-            current = previous.get(current);
+    private AltSearch altSearch(IndexedGraph g) {
+        if (altSearch == null || altSearch.getGraph() != g) {
+            if (landmarks == null || altSearch != null) {
+                // First use, or the graph was re-frozen since preprocessing
+                landmarks = Landmarks.compute(g, DEFAULT_LANDMARKS, Landmarks.Selection.AVOID, 1);
+            }
+            altSearch = new AltSearch(g, landmarks,
+                    rebind(altSearch == null ? null : altSearch.getWorkspace(), g));
         }
+        return altSearch;
+    }
 
-        // Check if path is valid
-        if (path.size() <= 1 || !path.get(0).equals(start)) {
-            path.clear();
+    /**
+     * A* with a straight-line lower bound from city coordinates
+     * Time Complexity: O((V + E) log V) worst case, after an O(V + E) scan
+     * when the graph is first seen; no other preprocessing
+     * Finds the guaranteed shortest path; without coordinates it is plain Dijkstra
+     */
+    public List<String> geometricAStar(String start, String goal) {
+        long startTime = System.nanoTime();
+
+        IndexedGraph g = compact();
+        List<String> cached = fromCache(g, "A* (coordinates)", start, goal, startTime);
+        if (cached != null) {
+            return cached;
+        }
+
+        int source = g.getCityIndex(start);
+        int target = g.getCityIndex(goal);
+        List<String> path = new ArrayList<>();
+        int totalDistance = GeometricSearch.INFINITY;
+        GeometricSearch search = null;
+
+        if (source >= 0 && target >= 0) {
+            search = geometricSearch(g);
+            totalDistance = search.search(source, target);
+
+            int[] ids = search.path(target);
+            if (ids.length > 0) {
+                path = g.toNames(ids, ids.length);
+            }
+            toCache(g, "A* (coordinates)", start, goal, path, totalDistance);
         }
 
         long endTime = System.nanoTime();
 
-        if (!path.isEmpty()) {
-            int totalDistance = distances.get(goal);
-            printResults("Dijkstra", path, totalDistance, endTime - startTime);
-            return path;
-        } else {
-            System.out.println("Dijkstra - No path found from " + start + " to " + goal);
-            System.out.println("Execution time: " + (endTime - startTime) + " ns");
-            return new ArrayList<>();
+        report("A* (coordinates)", start, goal, path, totalDistance, endTime - startTime, search);
+        return path;
+    }
+
+    private GeometricSearch geometricSearch(IndexedGraph g) {
+        if (geometricSearch == null || geometricSearch.getGraph() != g) {
+            geometricSearch = new GeometricSearch(g,
+                    rebind(geometricSearch == null ? null : geometricSearch.getWorkspace(), g));
         }
+        return geometricSearch;
     }
 
-    private List<String> reconstructPath(Map<String, String> parent, String start, String goal) {
-        List<String> path = new ArrayList<>();
-        String current = goal;
+    /**
+     * City nearest to a position in degrees, null if the graph has no coordinates
+     * Time Complexity: O(log V) expected, after an O(V log V) k-d tree build
+     * when the graph is first seen
+     */
+    public String nearestCity(double latitude, double longitude) {
+        IndexedGraph g = compact();
+        if (!g.hasCoordinates() || g.getCityCount() == 0) {
+            return null;
+        }
+        return g.getCityName(kdTree(g).nearest(latitude, longitude));
+    }
+
+    /**
+     * Cities within radiusKm of a position, nearest first; empty if the
+     * graph has no coordinates
+     * Time Complexity: O(log V + k log k) expected for k cities found
+     */
+    public List<String> citiesWithin(double latitude, double longitude, double radiusKm) {
+        IndexedGraph g = compact();
+        List<String> result = new ArrayList<>();
+        if (!g.hasCoordinates()) {
+            return result;
+        }
+        int[] ids = kdTree(g).withinRadius(latitude, longitude, radiusKm);
+        double[] distance = new double[ids.length];
+        List<Integer> order = new ArrayList<>(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            distance[i] = KdTree.haversine(latitude, longitude, g.getLatitude(ids[i]), g.getLongitude(ids[i]));
+            order.add(i);
+        }
+        order.sort(Comparator.comparingDouble(i -> distance[i]));
+        for (int i : order) {
+            result.add(g.getCityName(ids[i]));
+        }
+        return result;
+    }
+
+    /**
+     * Use a prebuilt spatial index for nearestCity()/citiesWithin()
+     */
+    public void setKdTree(KdTree kdTree) {
+        this.kdTree = kdTree;
+    }
 
-        while (current != null) {
-            path.add(0, current);
-            current = parent.get(current);
+    private KdTree kdTree(IndexedGraph g) {
+        if (kdTree == null || kdTree.getGraph() != g) {
+            kdTree = KdTree.build(g);
         }
+        return kdTree;
+    }
+
+    /**
+     * Contraction Hierarchies: bidirectional upward search, shortcuts unpacked
+     * Time Complexity: a few hundred settled vertices per query on road graphs,
+     * after a one-off preprocessing (see ContractionHierarchy)
+     * Finds the guaranteed shortest path
+     */
+    public List<String> contractionHierarchy(String start, String goal) {
+        long startTime = System.nanoTime();
+
+        IndexedGraph g = compact();
+        List<String> cached = fromCache(g, "Contraction Hierarchies", start, goal, startTime);
+        if (cached != null) {
+            return cached;
+        }
+
+        int source = g.getCityIndex(start);
+        int target = g.getCityIndex(goal);
+        List<String> path = new ArrayList<>();
+        int totalDistance = CHSearch.INFINITY;
+        CHSearch search = null;
 
-        if (!path.get(0).equals(start)) {
-            return new ArrayList<>();
+        if (source >= 0 && target >= 0) {
+            search = chSearch(g);
+            totalDistance = search.search(source, target);
+
+            int[] ids = search.path();
+            if (ids.length > 0) {
+                path = g.toNames(ids, ids.length);
+            }
+            toCache(g, "Contraction Hierarchies", start, goal, path, totalDistance);
         }
 
+        long endTime = System.nanoTime();
+
+        report("Contraction Hierarchies", start, goal, path, totalDistance, endTime - startTime, search);
         return path;
     }
 
+    /**
+     * Use a precomputed hierarchy (e.g. from a graph file) for contractionHierarchy()
+     */
+    public void setContractionHierarchy(ContractionHierarchy hierarchy) {
+        this.hierarchy = hierarchy;
+        this.chSearch = null;
+    }
+
+    /**
+     * Contract the current graph for contractionHierarchy()
+     */
+    public void prepareContractionHierarchy() {
+        setContractionHierarchy(ContractionHierarchy.build(compact()));
+    }
+
+    private CHSearch chSearch(IndexedGraph g) {
+        if (chSearch == null || chGraph != g) {
+            if (hierarchy == null || chSearch != null) {
+                // First use, or the graph was re-frozen since preprocessing
+                hierarchy = ContractionHierarchy.build(g);
+            }
+            chSearch = new CHSearch(hierarchy);
+            chGraph = g;
+        }
+        return chSearch;
+    }
+
+    /**
+     * Shortest paths for many {start, goal} pairs at once, in input order
+     * Pairs are grouped by source (one search per group) and groups run in
+     * parallel on the common fork-join pool. Nothing is printed.
+     */
+    public List<Route> batch(List<String[]> pairs) {
+        IndexedGraph g = compact();
+        if (batchRouter == null || batchRouter.getGraph() != g) {
+            batchRouter = new BatchRouter(g);
+        }
+        return batchRouter.route(pairs);
+    }
+
+    /**
+     * Distances from every start to every goal as one flat table
+     * Uses bucket-based many-to-many on the contraction hierarchy when one
+     * is prepared for the current graph, one multi-target Dijkstra per
+     * start otherwise; both run in parallel. Unknown cities give rows or
+     * columns of INFINITY. Nothing is printed.
+     */
+    public DistanceTable distanceTable(List<String> starts, List<String> goals) {
+        IndexedGraph g = compact();
+        int[] sources = new int[starts.size()];
+        for (int i = 0; i < sources.length; i++) {
+            sources[i] = g.getCityIndex(starts.get(i));
+        }
+        int[] targets = new int[goals.size()];
+        for (int j = 0; j < targets.length; j++) {
+            targets[j] = g.getCityIndex(goals.get(j));
+        }
+
+        // A hierarchy is stale once the graph was re-frozen after its first use
+        boolean prepared = hierarchy != null && (chSearch == null || chGraph == g);
+        return prepared ? DistanceTable.compute(hierarchy, sources, targets)
+                : DistanceTable.compute(g, sources, targets);
+    }
+
+    /**
+     * Yen's k shortest loopless paths, ranked by distance
+     * Time Complexity: O(k V (V + E) log V) worst case
+     * Returns up to k routes, fewer if the graph has fewer simple paths; the
+     * spur searches of each round run in parallel. The best route is
+     * reported like any other query.
+     */
+    public List<Route> kShortestPaths(String start, String goal, int k) {
+        long startTime = System.nanoTime();
+
+        IndexedGraph g = compact();
+        int source = g.getCityIndex(start);
+        int target = g.getCityIndex(goal);
+        List<Route> routes = new ArrayList<>();
+
+        if (source >= 0 && target >= 0) {
+            if (kShortestPaths == null || kShortestPaths.getGraph() != g) {
+                kShortestPaths = new KShortestPaths(g);
+            }
+            int count = kShortestPaths.search(source, target, k);
+            for (int i = 0; i < count; i++) {
+                int[] ids = kShortestPaths.path(i);
+                routes.add(new Route(g.toNames(ids, ids.length), kShortestPaths.getDistance(i)));
+            }
+        }
+
+        long endTime = System.nanoTime();
+
+        Route best = routes.isEmpty() ? new Route(List.of(), Route.INFINITY) : routes.get(0);
+        report("Yen K-Shortest", start, goal, best.getPath(), best.getDistance(), endTime - startTime,
+                source >= 0 && target >= 0 ? kShortestPaths : null);
+        return routes;
+    }
+
+    /**
+     * Share a route cache between queries (and PathFinders); null turns it off
+     * Shortest-path algorithms then answer repeated (start, goal) pairs
+     * without searching, until the graph is mutated.
+     */
+    public void setRouteCache(RouteCache routeCache) {
+        this.routeCache = routeCache;
+    }
+
+    public RouteCache getRouteCache() {
+        return routeCache;
+    }
+
+    /**
+     * Version of the graph g was taken from, for the route cache
+     */
+    private long graphVersion(IndexedGraph g) {
+        if (g instanceof ConcurrentGraph.Snapshot) {
+            return ((ConcurrentGraph.Snapshot) g).getVersion();
+        }
+        return graph != null ? graph.getVersion() : 0;
+    }
+
+    /**
+     * Cached answer, reported like a fresh one; null on a miss
+     * Returned as a new mutable list, like the path of a computed answer.
+     */
+    private List<String> fromCache(IndexedGraph g, String algorithm, String start, String goal,
+            long startTime) {
+        if (routeCache == null) {
+            return null;
+        }
+        Route route = routeCache.get(algorithm, start, goal, graphVersion(g));
+        if (route == null) {
+            return null;
+        }
+
+        long endTime = System.nanoTime();
+        if (!sinks.isEmpty()) {
+            publish(new QueryMetrics(algorithm, start, goal, route.getPath(), route.getDistance(),
+                    endTime - startTime, true, null));
+        }
+        return new ArrayList<>(route.getPath());
+    }
+
+    private void toCache(IndexedGraph g, String algorithm, String start, String goal, List<String> path,
+            int distance) {
+        if (routeCache != null) {
+            routeCache.put(algorithm, start, goal, graphVersion(g), new Route(path, distance));
+        }
+    }
+
     private int calculatePathDistance(List<String> path) {
+        return calculatePathDistance(compact(), path);
+    }
+
+    private int calculatePathDistance(IndexedGraph g, List<String> path) {
         if (path == null || path.size() < 2) {
             return 0;
         }
 
         int total = 0;
         for (int i = 0; i < path.size() - 1; i++) {
-            String city1 = path.get(i);
-            String city2 = path.get(i + 1);
+            int city1 = g.getCityIndex(path.get(i));
+            int city2 = g.getCityIndex(path.get(i + 1));
 
             // Find the distance between these two cities
-            for (Edge edge : graph.getNeighbors(city1)) {
-                if (edge.city.equals(city2)) {
-                    total += edge.distance;
-                    break;
-                }
+            int distance = g.getDistance(city1, city2);
+            if (distance >= 0) {
+                total += distance;
             }
         }
         return total;
     }
 
-    private void printResults(String algorithm, List<String> path, int distance, long time) {
-        System.out.println("\n" + algorithm + " Results:");
-        System.out.println("Path: " + String.join(" -> ", path));
-        System.out.println("Total Distance: " + distance + " km");
-        System.out.println("Execution Time: " + time + " ns (" + (time / 1000000.0) + " ms)");
+    /**
+     * Turn console output off, e.g. for benchmarks
+     * Removes or restores the default ConsoleSink; other sinks are kept.
+     */
+    public void setVerbose(boolean verbose) {
+        sinks.remove(console);
+        if (verbose) {
+            sinks.add(0, console);
+        }
+    }
+
+    /**
+     * Receive metrics of every query, e.g. a MetricsRegistry or a JfrSink
+     */
+    public void addSink(MetricsSink sink) {
+        sinks.add(sink);
+    }
+
+    public void removeSink(MetricsSink sink) {
+        sinks.remove(sink);
+    }
+
+    /**
+     * Hand a finished query to the sinks; with none (a silent PathFinder)
+     * nothing is allocated
+     */
+    private void report(String algorithm, String start, String goal, List<String> path, int distance,
+            long time, SearchCounters counters) {
+        if (!sinks.isEmpty()) {
+            publish(new QueryMetrics(algorithm, start, goal, path, distance, time, false, counters));
+        }
+    }
+
+    private void publish(QueryMetrics metrics) {
+        for (MetricsSink sink : sinks) {
+            sink.record(metrics);
+        }
     }
 
     /**
@@ -270,42 +699,51 @@ public class PathFinder {
         // Results storage
         List<ComparisonResult> results = new ArrayList<>();
 
-        // Run algorithms for each pair
-        for (int i = 0; i < cityPairs.length; i++) {
-            String start = cityPairs[i][0];
-            String goal = cityPairs[i][1];
-
-            System.out.println("\n--- Pair " + (i + 1) + ": " + start + " to " + goal + " ---");
-
-            // Run DFS
-            long dfsStart = System.nanoTime();
-            List<String> dfsPath = dfs(start, goal);
-            long dfsTime = System.nanoTime() - dfsStart;
-            int dfsDist = calculatePathDistance(dfsPath);
-
-            // Run Modified DFS
-            long modDfsStart = System.nanoTime();
-            List<String> modDfsPath = modifiedDFS(start, goal);
-            long modDfsTime = System.nanoTime() - modDfsStart;
-            int modDfsDist = calculatePathDistance(modDfsPath);
-
-            // Run Dijkstra
-            long dijkstraStart = System.nanoTime();
-            List<String> dijkstraPath = dijkstra(start, goal);
-            long dijkstraTime = System.nanoTime() - dijkstraStart;
-            int dijkstraDist = calculatePathDistance(dijkstraPath);
-
-            // Store results
-            results.add(new ComparisonResult(
-                    start, goal,
-                    dfsDist, dfsTime,
-                    modDfsDist, modDfsTime,
-                    dijkstraDist, dijkstraTime));
+        // Times are taken from each query's metrics, which leave out the
+        // console output; timing the calls themselves would include it
+        QueryMetrics[] last = new QueryMetrics[1];
+        MetricsSink capture = metrics -> last[0] = metrics;
+        addSink(capture);
+        try {
+            // Run algorithms for each pair
+            for (int i = 0; i < cityPairs.length; i++) {
+                String start = cityPairs[i][0];
+                String goal = cityPairs[i][1];
+
+                System.out.println("\n--- Pair " + (i + 1) + ": " + start + " to " + goal + " ---");
+
+                // Run DFS
+                List<String> dfsPath = dfs(start, goal);
+                long dfsTime = last[0].getElapsedNanos();
+                int dfsDist = calculatePathDistance(dfsPath);
+
+                // Run Modified DFS
+                List<String> modDfsPath = modifiedDFS(start, goal);
+                long modDfsTime = last[0].getElapsedNanos();
+                int modDfsDist = calculatePathDistance(modDfsPath);
+
+                // Run Dijkstra
+                List<String> dijkstraPath = dijkstra(start, goal);
+                long dijkstraTime = last[0].getElapsedNanos();
+                int dijkstraDist = calculatePathDistance(dijkstraPath);
+
+                // Store results
+                results.add(new ComparisonResult(
+                        start, goal,
+                        dfsDist, dfsTime,
+                        modDfsDist, modDfsTime,
+                        dijkstraDist, dijkstraTime));
+            }
+        } finally {
+            removeSink(capture);
         }
 
         // Print summary table
         printSummaryTable(results);
 
+        // Compare search space of the two Dijkstra variants
+        printSearchSpaceTable(cityPairs);
+
         // Print complexity analysis
         printComplexityAnalysis();
     }
@@ -338,6 +776,31 @@ public class PathFinder {
         System.out.println("+----+---------------------+------------+----------------+-----------------+");
     }
 
+    private void printSearchSpaceTable(String[][] cityPairs) {
+        IndexedGraph g = compact();
+        DijkstraSearch unidirectional = dijkstraSearch(g);
+        BidirectionalDijkstra bidirectional = bidirectionalSearch(g);
+
+        System.out.println("\n========== SEARCH SPACE (vertices settled) ==========");
+        System.out.println("+----+---------------------+-----------------+-----------------+");
+        System.out.println("| #  | City Pair           | Dijkstra        | Bidirectional   |");
+        System.out.println("+----+---------------------+-----------------+-----------------+");
+
+        for (int i = 0; i < cityPairs.length; i++) {
+            int source = g.getCityIndex(cityPairs[i][0]);
+            int target = g.getCityIndex(cityPairs[i][1]);
+            if (source < 0 || target < 0) {
+                continue;
+            }
+            unidirectional.search(source, target);
+            bidirectional.search(source, target);
+            System.out.printf("| %-2d | %-19s | %-15d | %-15d |\n",
+                    i + 1, cityPairs[i][0] + "-" + cityPairs[i][1],
+                    unidirectional.getSettledCount(), bidirectional.getSettledCount());
+        }
+        System.out.println("+----+---------------------+-----------------+-----------------+");
+    }
+
     private void printComplexityAnalysis() {
         System.out.println("\n========== TIME COMPLEXITY ANALYSIS ==========");
         System.out.println("1. DFS Algorithm:");
@@ -347,7 +810,7 @@ public class PathFinder {
 
         System.out.println("\n2. Modified DFS Algorithm:");
         System.out.println("   - Theoretical: O(V!) worst case (explores all paths)");
-        System.out.println("   - Space: O(V) for recursion stack");
+        System.out.println("   - Space: O(V) explicit stack, pruned by lower bounds");
         System.out.println("   - Guarantees shortest path but inefficient for large graphs");
 
         System.out.println("\n3. Dijkstra's Algorithm:");
@@ -355,6 +818,11 @@ public class PathFinder {
         System.out.println("   - Space: O(V)");
         System.out.println("   - Guarantees shortest path, efficient for weighted graphs");
 
+        System.out.println("\n4. Bidirectional Dijkstra:");
+        System.out.println("   - Theoretical: O((V + E) log V), two balls of about half the radius");
+        System.out.println("   - Space: O(V)");
+        System.out.println("   - Guarantees shortest path, settles fewer vertices point-to-point");
+
         System.out.println("\nWhere V = vertices (cities), E = edges (connections)");
     }
 
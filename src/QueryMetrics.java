@@ -0,0 +1,109 @@
+import java.util.List;
+
+/**
+ * What one PathFinder query did, as handed to every MetricsSink
+ * Counters come from the engine's SearchCounters and are zero for cached
+ * answers. Immutable.
+ */
+public final class QueryMetrics {
+    private final String algorithm;
+    private final String start;
+    private final String goal;
+    private final List<String> path;
+    private final int distance;
+    private final long elapsedNanos;
+    private final boolean cached;
+    private final int settledCount;
+    private final int relaxedCount;
+    private final int pushCount;
+    private final int popCount;
+    private final int staleCount;
+
+    /**
+     * counters may be null when no engine ran (cache hits, unknown cities)
+     */
+    public QueryMetrics(String algorithm, String start, String goal, List<String> path, int distance,
+            long elapsedNanos, boolean cached, SearchCounters counters) {
+        this.algorithm = algorithm;
+        this.start = start;
+        this.goal = goal;
+        this.path = path;
+        this.distance = distance;
+        this.elapsedNanos = elapsedNanos;
+        this.cached = cached;
+        if (counters != null) {
+            settledCount = counters.getSettledCount();
+            relaxedCount = counters.getRelaxedCount();
+            pushCount = counters.getPushCount();
+            popCount = counters.getPopCount();
+            staleCount = counters.getStaleCount();
+        } else {
+            settledCount = relaxedCount = pushCount = popCount = staleCount = 0;
+        }
+    }
+
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    public String getStart() {
+        return start;
+    }
+
+    public String getGoal() {
+        return goal;
+    }
+
+    /**
+     * City names from start to goal, empty if no path was found
+     */
+    public List<String> getPath() {
+        return path;
+    }
+
+    public boolean isFound() {
+        return !path.isEmpty();
+    }
+
+    /**
+     * Length of the path in km, meaningless if none was found
+     */
+    public int getDistance() {
+        return distance;
+    }
+
+    /**
+     * Edges on the path
+     */
+    public int getHops() {
+        return Math.max(0, path.size() - 1);
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public boolean isCached() {
+        return cached;
+    }
+
+    public int getSettledCount() {
+        return settledCount;
+    }
+
+    public int getRelaxedCount() {
+        return relaxedCount;
+    }
+
+    public int getPushCount() {
+        return pushCount;
+    }
+
+    public int getPopCount() {
+        return popCount;
+    }
+
+    public int getStaleCount() {
+        return staleCount;
+    }
+}
@@ -0,0 +1,207 @@
+import java.util.Arrays;
+
+/**
+ * Monotone radix heap over int vertex ids with non-negative int keys
+ * Keys are kept in 33 buckets by the highest bit in which they differ from
+ * the last minimum removed (bucket 0: equal to it). Only Dijkstra-style use
+ * is allowed: no key may be below that last minimum. When bucket 0 runs
+ * empty, the lowest non-empty bucket is scanned for its minimum, which
+ * becomes the new last minimum, and its vertices move to strictly lower
+ * buckets. A vertex therefore moves at most 32 times in all, and there
+ * are no sift-downs comparing keys level by level.
+ * Buckets are plain (vertex, key) arrays, scanned front to back. A
+ * decreaseKey appends a new entry and leaves the old one behind; entries
+ * whose key is no longer the vertex's current key are skipped when they
+ * come up. Each vertex may be inserted once between clears, as in
+ * Dijkstra. Arrays only grow, so a reused heap allocates nothing once it
+ * has reached its working size.
+ * Time Complexity Analysis: O(1) insert and decreaseKey, O(log C) amortized
+ * poll, C the largest gap between a key and the last minimum
+ */
+public class RadixHeap implements VertexQueue {
+    private static final int BUCKETS = 33;
+
+    private final int[][] bucketVertices = new int[BUCKETS][];
+    private final int[][] bucketKeys = new int[BUCKETS][];
+    private final int[] bucketSize = new int[BUCKETS];
+    private final int[] keys;         // vertex -> current key while queued
+    private final boolean[] queued;
+    private int last;
+    private int size;
+
+    public RadixHeap(int capacity) {
+        keys = new int[capacity];
+        queued = new boolean[capacity];
+        for (int b = 0; b < BUCKETS; b++) {
+            bucketVertices[b] = new int[16];
+            bucketKeys[b] = new int[16];
+        }
+    }
+
+    /**
+     * isEmpty operation: O(1) - Constant time
+     */
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Size operation: O(1) - vertices queued, not entries
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains(int vertex) {
+        return queued[vertex];
+    }
+
+    /**
+     * Insert a vertex that is not queued yet: O(1) amortized
+     * The key must not be below the last minimum removed.
+     */
+    @Override
+    public void insert(int vertex, int key) {
+        if (key < last) {
+            throw new IllegalArgumentException("Key " + key + " below the last minimum " + last);
+        }
+        queued[vertex] = true;
+        keys[vertex] = key;
+        append(bucket(key), vertex, key);
+        size++;
+    }
+
+    /**
+     * Lower the key of a queued vertex: O(1) amortized, one new entry
+     */
+    @Override
+    public void decreaseKey(int vertex, int key) {
+        if (key < last) {
+            throw new IllegalArgumentException("Key " + key + " below the last minimum " + last);
+        }
+        keys[vertex] = key;
+        append(bucket(key), vertex, key);
+    }
+
+    /**
+     * Insert, or lower the key if the vertex is queued with a larger one
+     */
+    @Override
+    public void insertOrDecrease(int vertex, int key) {
+        if (!queued[vertex]) {
+            insert(vertex, key);
+        } else if (key < keys[vertex]) {
+            decreaseKey(vertex, key);
+        }
+    }
+
+    /**
+     * Key of the minimum: O(1) amortized over the entry moves
+     */
+    @Override
+    public int peekKey() {
+        refill();
+        return last;
+    }
+
+    /**
+     * Vertex with the minimum key
+     */
+    @Override
+    public int peek() {
+        refill();
+        return bucketVertices[0][bucketSize[0] - 1];
+    }
+
+    /**
+     * Remove and return a vertex with the minimum key: O(log C) amortized,
+     * C the largest key gap
+     */
+    @Override
+    public int poll() {
+        refill();
+        int min = bucketVertices[0][--bucketSize[0]];
+        queued[min] = false;
+        size--;
+        return min;
+    }
+
+    /**
+     * Clear operation: O(entries) - only the queued vertices are touched
+     */
+    @Override
+    public void clear() {
+        for (int b = 0; b < BUCKETS; b++) {
+            int[] vertices = bucketVertices[b];
+            for (int i = 0, end = bucketSize[b]; i < end; i++) {
+                queued[vertices[i]] = false;
+            }
+            bucketSize[b] = 0;
+        }
+        size = 0;
+        last = 0;
+    }
+
+    private int bucket(int key) {
+        return 32 - Integer.numberOfLeadingZeros(key ^ last);
+    }
+
+    /**
+     * Make the top of bucket 0 a live entry: stale entries are dropped, and
+     * when bucket 0 runs empty the minimum of the lowest non-empty bucket
+     * becomes the last minimum and that bucket is redistributed
+     */
+    private void refill() {
+        while (true) {
+            int[] vertices = bucketVertices[0];
+            while (bucketSize[0] > 0) {
+                int v = vertices[bucketSize[0] - 1];
+                if (queued[v] && keys[v] == last) {
+                    return;
+                }
+                bucketSize[0]--; // stale: polled already or decreased since
+            }
+
+            int b = 1;
+            while (bucketSize[b] == 0) {
+                b++;
+            }
+            int[] from = bucketVertices[b];
+            int[] fromKeys = bucketKeys[b];
+            int count = bucketSize[b];
+            int min = Integer.MAX_VALUE;
+            for (int i = 0; i < count; i++) {
+                int v = from[i];
+                if (queued[v] && keys[v] == fromKeys[i] && fromKeys[i] < min) {
+                    min = fromKeys[i];
+                }
+            }
+            bucketSize[b] = 0;
+            if (min == Integer.MAX_VALUE) {
+                continue; // only stale entries
+            }
+            last = min;
+            for (int i = 0; i < count; i++) {
+                int v = from[i];
+                int key = fromKeys[i];
+                if (queued[v] && keys[v] == key) {
+                    append(bucket(key), v, key);
+                }
+            }
+        }
+    }
+
+    private void append(int b, int vertex, int key) {
+        int n = bucketSize[b];
+        if (n == bucketVertices[b].length) {
+            bucketVertices[b] = Arrays.copyOf(bucketVertices[b], n * 2);
+            bucketKeys[b] = Arrays.copyOf(bucketKeys[b], n * 2);
+        }
+        bucketVertices[b][n] = vertex;
+        bucketKeys[b][n] = key;
+        bucketSize[b] = n + 1;
+    }
+}
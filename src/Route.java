@@ -0,0 +1,38 @@
+import java.util.List;
+
+/**
+ * Result of one route query: the city sequence and its total distance
+ * Immutable, so one instance can be shared between caches and threads.
+ * A route with an empty path means no path was found.
+ */
+public final class Route {
+    public static final int INFINITY = Integer.MAX_VALUE;
+
+    private final List<String> path;
+    private final int distance;
+
+    public Route(List<String> path, int distance) {
+        this.path = List.copyOf(path);
+        this.distance = path.isEmpty() ? INFINITY : distance;
+    }
+
+    /**
+     * Unmodifiable city sequence, empty if there is no path
+     */
+    public List<String> getPath() {
+        return path;
+    }
+
+    public int getDistance() {
+        return distance;
+    }
+
+    public boolean isEmpty() {
+        return path.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return isEmpty() ? "no path" : String.join(" -> ", path) + " (" + distance + " km)";
+    }
+}
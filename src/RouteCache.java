@@ -0,0 +1,215 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Bounded LRU cache of routes keyed by (algorithm, start, goal)
+ * Entries are evicted least recently used first once either bound is
+ * exceeded: the entry count, or the total weight (cities per route, two
+ * ints per vertex for a cached shortest-path tree).
+ * Every entry belongs to one graph version. Looking up or storing with a
+ * newer version drops the whole cache, so routes computed before a
+ * Graph.addEdge are never returned afterwards. Use one cache per graph.
+ * All methods are synchronized, so a cache can be shared between threads
+ * (each with its own PathFinder).
+ */
+public class RouteCache {
+    // Per-entry bookkeeping counted on top of the path, in the weight unit
+    private static final int ENTRY_OVERHEAD = 8;
+
+    private final int maxEntries;
+    private final long maxWeight;
+    private final boolean reuseTrees;
+    private final LinkedHashMap<Key, Object> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+    private long version;
+    private long hits;
+    private long misses;
+    private long treeHits;
+    private long evictions;
+    private long invalidations;
+
+    /**
+     * @param maxEntries most routes and trees kept at once
+     * @param maxWeight  most total weight kept at once
+     * @param reuseTrees let dijkstra answer any goal from a cached
+     *                   shortest-path tree of the same source
+     */
+    public RouteCache(int maxEntries, long maxWeight, boolean reuseTrees) {
+        if (maxEntries <= 0 || maxWeight <= 0) {
+            throw new IllegalArgumentException("Cache bounds must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        this.reuseTrees = reuseTrees;
+    }
+
+    public boolean isReusingTrees() {
+        return reuseTrees;
+    }
+
+    /**
+     * Cached route, or null on a miss: O(1)
+     */
+    public synchronized Route get(String algorithm, String start, String goal, long graphVersion) {
+        Object value = current(graphVersion) ? entries.get(new Key(algorithm, start, goal)) : null;
+        if (value == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return (Route) value;
+    }
+
+    /**
+     * Store a route computed on the given graph version: O(1) amortized
+     */
+    public synchronized void put(String algorithm, String start, String goal, long graphVersion,
+            Route route) {
+        if (current(graphVersion)) {
+            store(new Key(algorithm, start, goal), route, route.getPath().size() + ENTRY_OVERHEAD);
+        }
+    }
+
+    /**
+     * Cached shortest-path tree rooted at start, or null: O(1)
+     */
+    public synchronized ShortestPathTree getTree(String start, long graphVersion) {
+        Object value = current(graphVersion) ? entries.get(new Key(null, start, null)) : null;
+        if (value != null) {
+            treeHits++;
+        }
+        return (ShortestPathTree) value;
+    }
+
+    public synchronized void putTree(String start, long graphVersion, ShortestPathTree tree) {
+        if (current(graphVersion)) {
+            store(new Key(null, start, null), tree, tree.weight() + ENTRY_OVERHEAD);
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    /**
+     * Adopt a newer graph version, dropping everything cached for older
+     * ones; false if graphVersion is itself stale
+     */
+    private boolean current(long graphVersion) {
+        if (graphVersion > version) {
+            if (!entries.isEmpty()) {
+                invalidations++;
+            }
+            clear();
+            version = graphVersion;
+        }
+        return graphVersion == version;
+    }
+
+    private void store(Key key, Object value, long entryWeight) {
+        if (entryWeight > maxWeight) {
+            return; // would evict everything else and still not fit
+        }
+        Object old = entries.put(key, value);
+        if (old != null) {
+            weight -= weightOf(old);
+        }
+        weight += entryWeight;
+
+        Iterator<Map.Entry<Key, Object>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxEntries || weight > maxWeight) {
+            Object evicted = eldest.next().getValue();
+            eldest.remove();
+            weight -= weightOf(evicted);
+            evictions++;
+        }
+    }
+
+    private static long weightOf(Object value) {
+        if (value instanceof ShortestPathTree) {
+            return ((ShortestPathTree) value).weight() + ENTRY_OVERHEAD;
+        }
+        return ((Route) value).getPath().size() + ENTRY_OVERHEAD;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    /**
+     * Route misses answered from a cached shortest-path tree instead of a search
+     */
+    public synchronized long getTreeHitCount() {
+        return treeHits;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    /**
+     * Times the cache was dropped because the graph changed
+     */
+    public synchronized long getInvalidationCount() {
+        return invalidations;
+    }
+
+    public synchronized double getHitRatio() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("RouteCache[%d entries, weight %d, hits %d, misses %d (%.1f%% hit), "
+                + "tree hits %d, evictions %d, invalidations %d]", entries.size(), weight, hits,
+                misses, 100 * getHitRatio(), treeHits, evictions, invalidations);
+    }
+
+    /**
+     * (algorithm, start, goal); trees use a null algorithm and goal
+     */
+    private static final class Key {
+        final String algorithm;
+        final String start;
+        final String goal;
+        final int hash;
+
+        Key(String algorithm, String start, String goal) {
+            this.algorithm = algorithm;
+            this.start = start;
+            this.goal = goal;
+            this.hash = Objects.hash(algorithm, start, goal);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return hash == other.hash && Objects.equals(algorithm, other.algorithm)
+                    && start.equals(other.start) && Objects.equals(goal, other.goal);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,591 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
+
+/**
+ * HTTP query server on the JDK's built-in HttpServer
+ * The graph is loaded (and optionally preprocessed) once at startup; every
+ * request then borrows a PathFinder from a pool, so engines and their
+ * workspaces are reused across requests whatever thread serves them.
+ * Requests run on virtual threads where the JDK has them (looked up
+ * reflectively, so the server also runs on JDKs without them) and on a
+ * fixed pool of platform threads otherwise.
+ *
+ * Endpoints (all responses JSON, streamed straight to the response body):
+ *   GET  /route?from=A&to=B[&algorithm=dijkstra]   one route
+ *   POST /batch      body: one "from,to" pair per line; routes in order
+ *   GET  /table?sources=A,B&targets=C,D             distance table
+ *   GET  /nearest?lat=X&lon=Y[&radius=KM]           nearest city (and all
+ *                                                   cities within KM)
+ *   POST /nearest    body: one "lat,lon" pair per line; nearest cities in order
+ *   GET  /cities[?prefix=P[&limit=N]]             all city names, or the
+ *                                                   first N starting with P
+ *   GET  /metrics    per-algorithm query counts and latency percentiles
+ *
+ * Usage: java RouteServer [key=value ...]
+ *   graph=turkey|grid|random|FILE size=N degree=D   as for Benchmark
+ *   port=N                     (default 8080)
+ *   threads=N                  platform threads when there are no virtual
+ *                              threads (default 4 x cores)
+ *   prepare=alt,ch             preprocess at startup instead of on first use
+ *   load=N concurrency=C       run the load generator: N /route requests
+ *   algorithm=NAME             from C clients against this server, then exit
+ */
+public class RouteServer {
+    private static final int MAX_BATCH = 100000;
+
+    private final IndexedGraph graph;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+    private final ConcurrentLinkedQueue<Worker> idle = new ConcurrentLinkedQueue<>();
+    private final MetricsRegistry metrics = new MetricsRegistry();
+    private Landmarks landmarks;
+    private ContractionHierarchy hierarchy;
+    private KdTree kdTree;
+
+    public RouteServer(IndexedGraph graph, int port, int platformThreads) throws IOException {
+        this.graph = graph;
+        ExecutorService virtual = newVirtualThreadExecutor();
+        virtualThreads = virtual != null;
+        executor = virtualThreads ? virtual : Executors.newFixedThreadPool(platformThreads);
+
+        // Streamed (chunked) responses otherwise stall on Nagle + delayed ACK,
+        // about 40 ms per request; read once, when the first server is created
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        server = HttpServer.create(new InetSocketAddress(port), 1024);
+        server.setExecutor(executor);
+        server.createContext("/route", exchange -> handle(exchange, this::route));
+        server.createContext("/batch", exchange -> handle(exchange, this::batch));
+        server.createContext("/table", exchange -> handle(exchange, this::table));
+        server.createContext("/nearest", exchange -> handle(exchange, this::nearest));
+        server.createContext("/cities", exchange -> handle(exchange, this::cities));
+        server.createContext("/metrics", exchange -> handle(exchange, this::metrics));
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                System.out.println("Ignoring argument without '=': " + arg);
+                continue;
+            }
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+
+        long loadStart = System.nanoTime();
+        IndexedGraph graph = Benchmark.createGraph(options.getOrDefault("graph", "turkey"),
+                Integer.parseInt(options.getOrDefault("size", "100000")),
+                Double.parseDouble(options.getOrDefault("degree", "4")));
+        System.out.printf("Loaded %d cities, %d arcs in %.1f ms%n", graph.getCityCount(),
+                graph.getEdgeCount(), (System.nanoTime() - loadStart) / 1000000.0);
+
+        int port = Integer.parseInt(options.getOrDefault("port", "8080"));
+        int threads = Integer.parseInt(options.getOrDefault("threads",
+                Integer.toString(4 * Runtime.getRuntime().availableProcessors())));
+        RouteServer server = new RouteServer(graph, port, threads);
+        server.prepare(Arrays.asList(options.getOrDefault("prepare", "").split(",")));
+        server.start();
+        System.out.println("Listening on port " + server.getPort() + " ("
+                + (server.isUsingVirtualThreads() ? "virtual threads" : threads + " platform threads") + ")");
+
+        if (options.containsKey("load")) {
+            LoadGenerator load = new LoadGenerator("http://localhost:" + server.getPort(),
+                    Integer.parseInt(options.getOrDefault("concurrency", "8")));
+            load.setAlgorithm(options.getOrDefault("algorithm", "dijkstra"));
+            load.run(Integer.parseInt(options.get("load")));
+            server.stop();
+        }
+    }
+
+    /**
+     * Use precomputed data from a graph file, and run the named
+     * preprocessing ("alt", "ch") now rather than on the first request
+     */
+    public synchronized void prepare(Collection<String> steps) {
+        if (graph instanceof MappedGraph) {
+            IntBuffer section = ((MappedGraph) graph).getSection(GraphFile.LANDMARKS);
+            if (section != null && landmarks == null) {
+                landmarks = Landmarks.fromSection(section, graph.getCityCount());
+            }
+            section = ((MappedGraph) graph).getSection(GraphFile.CONTRACTION);
+            if (section != null && hierarchy == null) {
+                hierarchy = ContractionHierarchy.fromSection(section);
+            }
+        }
+        if (steps.contains("alt") && landmarks == null) {
+            long start = System.nanoTime();
+            landmarks = Landmarks.compute(graph, 16, Landmarks.Selection.AVOID, 1);
+            System.out.printf("ALT preprocessing: %.1f ms%n", (System.nanoTime() - start) / 1000000.0);
+        }
+        if (steps.contains("ch") && hierarchy == null) {
+            long start = System.nanoTime();
+            hierarchy = ContractionHierarchy.build(graph);
+            System.out.printf("CH preprocessing: %.1f ms%n", (System.nanoTime() - start) / 1000000.0);
+        }
+    }
+
+    /**
+     * Shared landmarks, computed by the first request that needs them
+     */
+    private synchronized Landmarks landmarks() {
+        prepare(List.of("alt"));
+        return landmarks;
+    }
+
+    private synchronized ContractionHierarchy preparedHierarchy() {
+        return hierarchy;
+    }
+
+    private synchronized ContractionHierarchy hierarchy() {
+        prepare(List.of("ch"));
+        return hierarchy;
+    }
+
+    /**
+     * Shared spatial index, built by the first request that needs it
+     */
+    private synchronized KdTree kdTree() {
+        if (kdTree == null) {
+            kdTree = KdTree.build(graph);
+        }
+        return kdTree;
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public boolean isUsingVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public MetricsRegistry getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor() if this JDK has (and
+     * enables) it, else null
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    private interface Handler {
+        void handle(HttpExchange exchange, Map<String, String> query, Worker worker, JsonWriter json)
+                throws IOException;
+    }
+
+    /**
+     * Parse the query, borrow a worker and stream the JSON response
+     */
+    private void handle(HttpExchange exchange, Handler handler) throws IOException {
+        Worker worker = idle.poll();
+        if (worker == null) {
+            worker = new Worker();
+        }
+        try {
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            try (Writer out = new ResponseWriter(exchange)) {
+                handler.handle(exchange, query, worker, new JsonWriter(out));
+            }
+        } catch (IllegalArgumentException e) {
+            error(exchange, 400, e.getMessage());
+        } catch (RuntimeException e) {
+            error(exchange, 500, e.toString());
+        } finally {
+            idle.offer(worker);
+            exchange.close();
+        }
+    }
+
+    /**
+     * Error response, if no other response has been started yet
+     */
+    private void error(HttpExchange exchange, int status, String message) throws IOException {
+        if (exchange.getResponseCode() != -1) {
+            return;
+        }
+        StringBuilder body = new StringBuilder();
+        new JsonWriter(body).beginObject().name("error").value(message).endObject();
+        byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private void route(HttpExchange exchange, Map<String, String> query, Worker worker, JsonWriter json)
+            throws IOException {
+        String from = required(query, "from");
+        String to = required(query, "to");
+        String algorithm = query.getOrDefault("algorithm", "dijkstra");
+        BiFunction<String, String, List<String>> search = worker.algorithms.get(algorithm);
+        if (search == null) {
+            throw new IllegalArgumentException("Unknown algorithm: " + algorithm
+                    + " (one of " + worker.algorithms.keySet() + ")");
+        }
+        if (algorithm.equals("alt") && !worker.hasLandmarks) {
+            worker.pathFinder.setLandmarks(landmarks());
+            worker.hasLandmarks = true;
+        }
+        if (algorithm.equals("ch") && !worker.hasHierarchy) {
+            worker.pathFinder.setContractionHierarchy(hierarchy());
+            worker.hasHierarchy = true;
+        }
+
+        search.apply(from, to);
+        QueryMetrics result = worker.last.metrics;
+        json.beginObject()
+                .name("algorithm").value(algorithm)
+                .name("from").value(from)
+                .name("to").value(to)
+                .name("found").value(result.isFound());
+        if (result.isFound()) {
+            json.name("distance").value(result.getDistance());
+        }
+        json.name("path");
+        writePath(json, result.getPath());
+        json.name("settled").value(result.getSettledCount())
+                .name("elapsedMicros").value(result.getElapsedNanos() / 1000.0)
+                .endObject();
+    }
+
+    private void batch(HttpExchange exchange, Map<String, String> query, Worker worker, JsonWriter json)
+            throws IOException {
+        List<String[]> pairs = new ArrayList<>();
+        try (BufferedReader in = new BufferedReader(
+                new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty()) {
+                    continue;
+                }
+                int comma = line.indexOf(',');
+                if (comma < 0) {
+                    throw new IllegalArgumentException("Expected \"from,to\": " + line);
+                }
+                if (pairs.size() == MAX_BATCH) {
+                    throw new IllegalArgumentException("More than " + MAX_BATCH + " pairs");
+                }
+                pairs.add(new String[] { line.substring(0, comma).trim(), line.substring(comma + 1).trim() });
+            }
+        }
+
+        List<Route> routes = worker.pathFinder.batch(pairs);
+        json.beginObject().name("routes").beginArray();
+        for (int i = 0; i < routes.size(); i++) {
+            Route route = routes.get(i);
+            json.beginObject()
+                    .name("from").value(pairs.get(i)[0])
+                    .name("to").value(pairs.get(i)[1])
+                    .name("found").value(!route.isEmpty());
+            if (!route.isEmpty()) {
+                json.name("distance").value(route.getDistance());
+            }
+            json.name("path");
+            writePath(json, route.getPath());
+            json.endObject();
+        }
+        json.endArray().endObject();
+    }
+
+    private void table(HttpExchange exchange, Map<String, String> query, Worker worker, JsonWriter json)
+            throws IOException {
+        String[] sources = required(query, "sources").split(",");
+        String[] targets = required(query, "targets").split(",");
+        if ((long) sources.length * targets.length > MAX_BATCH) {
+            throw new IllegalArgumentException("More than " + MAX_BATCH + " cells");
+        }
+
+        List<String> starts = new ArrayList<>(sources.length);
+        for (String source : sources) {
+            starts.add(source.trim());
+        }
+        List<String> goals = new ArrayList<>(targets.length);
+        for (String target : targets) {
+            goals.add(target.trim());
+        }
+        // The hierarchy is only used once prepared; a table never waits for it
+        ContractionHierarchy prepared = preparedHierarchy();
+        if (prepared != null && !worker.hasHierarchy) {
+            worker.pathFinder.setContractionHierarchy(prepared);
+            worker.hasHierarchy = true;
+        }
+        DistanceTable table = worker.pathFinder.distanceTable(starts, goals);
+
+        json.beginObject().name("sources").beginArray();
+        for (String source : sources) {
+            json.value(source.trim());
+        }
+        json.endArray().name("targets").beginArray();
+        for (String target : targets) {
+            json.value(target.trim());
+        }
+        // Unreachable cells are null
+        json.endArray().name("distances").beginArray();
+        for (int s = 0; s < sources.length; s++) {
+            json.beginArray();
+            for (int t = 0; t < targets.length; t++) {
+                int distance = table.get(s, t);
+                if (distance == DistanceTable.INFINITY) {
+                    json.nullValue();
+                } else {
+                    json.value(distance);
+                }
+            }
+            json.endArray();
+        }
+        json.endArray().endObject();
+    }
+
+    private void nearest(HttpExchange exchange, Map<String, String> query, Worker worker, JsonWriter json)
+            throws IOException {
+        if (!graph.hasCoordinates()) {
+            throw new IllegalArgumentException("The graph has no coordinates");
+        }
+        if (exchange.getRequestMethod().equals("POST")) {
+            nearestBatch(exchange, json);
+            return;
+        }
+        // Parameters are checked before the response starts, so a bad one still gets a 400
+        double latitude = Double.parseDouble(required(query, "lat"));
+        double longitude = Double.parseDouble(required(query, "lon"));
+        double radius = -1;
+        if (query.containsKey("radius")) {
+            radius = Double.parseDouble(query.get("radius"));
+            if (!(radius >= 0)) {
+                throw new IllegalArgumentException("radius must be a non-negative number: " + radius);
+            }
+        }
+        int city = kdTree().nearest(latitude, longitude);
+        json.beginObject()
+                .name("city").value(graph.getCityName(city))
+                .name("distanceKm").value(KdTree.haversine(latitude, longitude,
+                        graph.getLatitude(city), graph.getLongitude(city)));
+        if (radius >= 0) {
+            int[] within = kdTree().withinRadius(latitude, longitude, radius);
+            json.name("within").beginArray();
+            for (int id : within) {
+                json.value(graph.getCityName(id));
+            }
+            json.endArray();
+        }
+        json.endObject();
+    }
+
+    /**
+     * Snap a body of "lat,lon" lines in one parallel pass over the shared tree
+     */
+    private void nearestBatch(HttpExchange exchange, JsonWriter json) throws IOException {
+        double[] latitudes = new double[16];
+        double[] longitudes = new double[16];
+        int count = 0;
+        try (BufferedReader in = new BufferedReader(
+                new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty()) {
+                    continue;
+                }
+                int comma = line.indexOf(',');
+                if (comma < 0) {
+                    throw new IllegalArgumentException("Expected \"lat,lon\": " + line);
+                }
+                if (count == MAX_BATCH) {
+                    throw new IllegalArgumentException("More than " + MAX_BATCH + " positions");
+                }
+                if (count == latitudes.length) {
+                    latitudes = Arrays.copyOf(latitudes, count * 2);
+                    longitudes = Arrays.copyOf(longitudes, count * 2);
+                }
+                latitudes[count] = Double.parseDouble(line.substring(0, comma).trim());
+                longitudes[count++] = Double.parseDouble(line.substring(comma + 1).trim());
+            }
+        }
+
+        int[] cities = kdTree().nearest(Arrays.copyOf(latitudes, count), Arrays.copyOf(longitudes, count));
+        json.beginObject().name("cities").beginArray();
+        for (int city : cities) {
+            json.value(graph.getCityName(city));
+        }
+        json.endArray().endObject();
+    }
+
+    private void cities(HttpExchange exchange, Map<String, String> query, Worker worker, JsonWriter json)
+            throws IOException {
+        String prefix = query.get("prefix");
+        // Parameters are checked before the response starts, so a bad one still gets a 400
+        int limit = Integer.parseInt(query.getOrDefault("limit", "10"));
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit must not be negative: " + limit);
+        }
+        json.beginArray();
+        if (prefix == null) {
+            for (int city = 0, n = graph.getCityCount(); city < n; city++) {
+                json.value(graph.getCityName(city));
+            }
+        } else {
+            for (int city : graph.citiesWithPrefix(prefix, Math.min(limit, MAX_BATCH))) {
+                json.value(graph.getCityName(city));
+            }
+        }
+        json.endArray();
+    }
+
+    private void metrics(HttpExchange exchange, Map<String, String> query, Worker worker, JsonWriter json)
+            throws IOException {
+        json.beginObject();
+        for (Map.Entry<String, MetricsRegistry.AlgorithmMetrics> entry : metrics.getAll().entrySet()) {
+            MetricsRegistry.AlgorithmMetrics m = entry.getValue();
+            json.name(entry.getKey()).beginObject()
+                    .name("queries").value(m.getQueryCount())
+                    .name("notFound").value(m.getNotFoundCount())
+                    .name("p50Micros").value(m.getElapsed().percentile(0.50) / 1000.0)
+                    .name("p99Micros").value(m.getElapsed().percentile(0.99) / 1000.0)
+                    .name("maxMicros").value(m.getElapsed().getMax() / 1000.0)
+                    .name("settledMean").value(m.getSettled().getMean())
+                    .endObject();
+        }
+        json.endObject();
+    }
+
+    private static void writePath(JsonWriter json, List<String> path) throws IOException {
+        json.beginArray();
+        for (String city : path) {
+            json.value(city);
+        }
+        json.endArray();
+    }
+
+    private static String required(Map<String, String> query, String name) {
+        String value = query.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Missing parameter: " + name);
+        }
+        return value;
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String part : rawQuery.split("&")) {
+            int eq = part.indexOf('=');
+            String name = eq < 0 ? part : part.substring(0, eq);
+            String value = eq < 0 ? "" : part.substring(eq + 1);
+            query.put(URLDecoder.decode(name, StandardCharsets.UTF_8),
+                    URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    /**
+     * Remembers the metrics of its PathFinder's last query
+     */
+    private static class LastQuery implements MetricsSink {
+        QueryMetrics metrics;
+
+        @Override
+        public void record(QueryMetrics metrics) {
+            this.metrics = metrics;
+        }
+    }
+
+    /**
+     * A PathFinder with its engines, used by one request at a time
+     */
+    private final class Worker {
+        final PathFinder pathFinder = new PathFinder(graph);
+        final LastQuery last = new LastQuery();
+        final Map<String, BiFunction<String, String, List<String>>> algorithms;
+        // Whether the server's shared preprocessing has been handed over yet
+        boolean hasLandmarks;
+        boolean hasHierarchy;
+
+        Worker() {
+            pathFinder.setVerbose(false);
+            pathFinder.addSink(last);
+            pathFinder.addSink(metrics);
+            algorithms = Benchmark.algorithms(pathFinder);
+        }
+    }
+
+    /**
+     * Response body writer that sends the 200 headers on first use, so a
+     * request that fails before writing can still get an error status
+     */
+    private static final class ResponseWriter extends Writer {
+        private final HttpExchange exchange;
+        private Writer out;
+
+        ResponseWriter(HttpExchange exchange) {
+            this.exchange = exchange;
+        }
+
+        private Writer out() throws IOException {
+            if (out == null) {
+                exchange.sendResponseHeaders(200, 0);
+                out = new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8);
+            }
+            return out;
+        }
+
+        @Override
+        public void write(char[] buffer, int offset, int length) throws IOException {
+            out().write(buffer, offset, length);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (out != null) {
+                out.flush();
+            }
+        }
+
+        /**
+         * Leaves the exchange untouched if nothing was written, e.g. when
+         * closed on the way out of a failed request
+         */
+        @Override
+        public void close() throws IOException {
+            if (out != null) {
+                out.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+/**
+ * Work counters of an engine's last search, for instrumentation
+ * Engines count with plain int fields in their hot loops; the counters are
+ * only read after a search, so they cost next to nothing when unused.
+ */
+public interface SearchCounters {
+
+    /**
+     * Vertices taken off the queue and expanded
+     */
+    int getSettledCount();
+
+    /**
+     * Arcs scanned from settled vertices
+     */
+    int getRelaxedCount();
+
+    /**
+     * Queue inserts and decrease-keys
+     */
+    int getPushCount();
+
+    /**
+     * Entries taken off the queue without being expanded: outdated
+     * duplicates of lazy-deletion queues, stalled vertices in CH
+     * Decrease-key heaps never hold outdated entries.
+     */
+    default int getStaleCount() {
+        return 0;
+    }
+
+    /**
+     * Entries taken off the queue
+     */
+    default int getPopCount() {
+        return getSettledCount() + getStaleCount();
+    }
+}
@@ -0,0 +1,166 @@
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * Per-query search state over int vertex ids, reset in O(1)
+ * Distance, predecessor and a spare label per vertex live in primitive
+ * arrays next to a generation stamp: an entry only counts if its stamp is
+ * the current generation, so reset() just bumps the generation (and
+ * empties the heap, touching only what is still queued). A short query
+ * therefore costs in proportion to the vertices it visits, not to V.
+ * Workspaces are pooled per thread: acquire() hands out one of the
+ * calling thread's idle workspaces, grown to the requested size if need
+ * be, and close() gives it back, so steady query traffic allocates no
+ * search state at all.
+ * A workspace is not thread-safe; it serves one search at a time.
+ */
+public class SearchWorkspace implements AutoCloseable {
+    public static final int INFINITY = Integer.MAX_VALUE;
+    // Idle workspaces kept per thread; more are left to the collector
+    private static final int MAX_POOLED = 4;
+    private static final ThreadLocal<ArrayDeque<SearchWorkspace>> POOL =
+            ThreadLocal.withInitial(ArrayDeque::new);
+
+    private int[] distance;
+    private int[] previous;
+    private int[] stamp;
+    private int[] label;
+    private int[] labelStamp;
+    private IndexedHeap heap;
+    private RadixHeap radixHeap;  // allocated on first use
+    private BucketQueue bucketQueue;
+    private int bucketWeight;
+    private int generation = 1;
+
+    public SearchWorkspace(int capacity) {
+        allocate(capacity);
+    }
+
+    /**
+     * An idle workspace of the calling thread for at least cityCount
+     * vertices, already reset; close() returns it to the pool
+     */
+    public static SearchWorkspace acquire(int cityCount) {
+        SearchWorkspace workspace = POOL.get().pollFirst();
+        if (workspace == null) {
+            return new SearchWorkspace(cityCount);
+        }
+        if (workspace.getCapacity() < cityCount) {
+            workspace.allocate(cityCount);
+        } else {
+            workspace.reset();
+        }
+        return workspace;
+    }
+
+    /**
+     * Give the workspace back to the calling thread's pool
+     * It must not be used afterwards.
+     */
+    @Override
+    public void close() {
+        ArrayDeque<SearchWorkspace> pool = POOL.get();
+        if (pool.size() < MAX_POOLED) {
+            pool.addFirst(this);
+        }
+    }
+
+    private void allocate(int capacity) {
+        distance = new int[capacity];
+        previous = new int[capacity];
+        stamp = new int[capacity];
+        label = new int[capacity];
+        labelStamp = new int[capacity];
+        heap = new IndexedHeap(capacity);
+        radixHeap = null;
+        bucketQueue = null;
+        generation = 1;
+    }
+
+    public int getCapacity() {
+        return stamp.length;
+    }
+
+    /**
+     * Forget every distance, predecessor and label: O(1) plus the vertices
+     * still in the heap
+     */
+    public void reset() {
+        heap.clear();
+        if (radixHeap != null) {
+            radixHeap.clear();
+        }
+        if (bucketQueue != null) {
+            bucketQueue.clear();
+        }
+        if (++generation == 0) {
+            // Wrapped around: old stamps could look current again
+            Arrays.fill(stamp, 0);
+            Arrays.fill(labelStamp, 0);
+            generation = 1;
+        }
+    }
+
+    public IndexedHeap heap() {
+        return heap;
+    }
+
+    /**
+     * Monotone queue for searches whose keys never drop below the last
+     * minimum (Dijkstra); allocated on first use
+     */
+    public RadixHeap radixHeap() {
+        if (radixHeap == null) {
+            radixHeap = new RadixHeap(stamp.length);
+        }
+        return radixHeap;
+    }
+
+    /**
+     * Dial's bucket queue for monotone searches on weights of at most
+     * maxWeight; allocated on first use, again if maxWeight grows
+     */
+    public BucketQueue bucketQueue(int maxWeight) {
+        if (bucketQueue == null || bucketWeight < maxWeight) {
+            bucketQueue = new BucketQueue(stamp.length, maxWeight);
+            bucketWeight = maxWeight;
+        }
+        return bucketQueue;
+    }
+
+    /**
+     * Tentative distance, INFINITY if the vertex was not reached since reset
+     */
+    public int distance(int city) {
+        return stamp[city] == generation ? distance[city] : INFINITY;
+    }
+
+    /**
+     * Predecessor on the tentative path, -1 if none
+     */
+    public int previous(int city) {
+        return stamp[city] == generation ? previous[city] : -1;
+    }
+
+    public boolean isReached(int city) {
+        return stamp[city] == generation;
+    }
+
+    public void reach(int city, int newDistance, int newPrevious) {
+        stamp[city] = generation;
+        distance[city] = newDistance;
+        previous[city] = newPrevious;
+    }
+
+    /**
+     * Spare per-vertex value (e.g. an A* potential or a target mark), -1 if unset
+     */
+    public int label(int city) {
+        return labelStamp[city] == generation ? label[city] : -1;
+    }
+
+    public void setLabel(int city, int value) {
+        labelStamp[city] = generation;
+        label[city] = value;
+    }
+}
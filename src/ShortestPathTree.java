@@ -0,0 +1,100 @@
+/**
+ * Snapshot of a full single-source search (Dijkstra or delta-stepping)
+ * Answers the shortest path from its source to any goal in O(path length),
+ * so repeated queries from one source need only one search.
+ * Immutable once built; safe to share between threads.
+ */
+public class ShortestPathTree {
+    public static final int INFINITY = DijkstraSearch.INFINITY;
+
+    private final IndexedGraph graph;
+    private final int source;
+    private final int[] distance;
+    private final int[] previous;
+
+    private ShortestPathTree(IndexedGraph graph, int source, int[] distance, int[] previous) {
+        this.graph = graph;
+        this.source = source;
+        this.distance = distance;
+        this.previous = previous;
+    }
+
+    /**
+     * Build the tree rooted at source with the given engine: O((V + E) log V)
+     */
+    public static ShortestPathTree compute(DijkstraSearch search, int source) {
+        search.search(source, -1);
+        int n = search.getGraph().getCityCount();
+        int[] distance = new int[n];
+        int[] previous = new int[n];
+        for (int v = 0; v < n; v++) {
+            distance[v] = search.getDistance(v);
+            previous[v] = search.getPrevious(v);
+        }
+        return new ShortestPathTree(search.getGraph(), source, distance, previous);
+    }
+
+    /**
+     * Build the tree rooted at source with a parallel delta-stepping search:
+     * the same distances, computed on all cores of the engine's pool
+     */
+    public static ShortestPathTree compute(DeltaStepping search, int source) {
+        search.search(source);
+        int n = search.getGraph().getCityCount();
+        int[] distance = new int[n];
+        for (int v = 0; v < n; v++) {
+            distance[v] = search.getDistance(v);
+        }
+        return new ShortestPathTree(search.getGraph(), source, distance, search.predecessors().clone());
+    }
+
+    public IndexedGraph getGraph() {
+        return graph;
+    }
+
+    public int getSource() {
+        return source;
+    }
+
+    /**
+     * Distance from the source, INFINITY if unreachable: O(1)
+     */
+    public int getDistance(int city) {
+        return distance[city];
+    }
+
+    /**
+     * Path from the source to target as city ids, empty if unreachable
+     */
+    public int[] path(int target) {
+        if (distance[target] == INFINITY) {
+            return new int[0];
+        }
+
+        int length = 0;
+        for (int current = target; current != -1; current = previous[current]) {
+            length++;
+        }
+
+        int[] path = new int[length];
+        for (int current = target; current != -1; current = previous[current]) {
+            path[--length] = current;
+        }
+        return path;
+    }
+
+    /**
+     * Route to target with city names: O(path length)
+     */
+    public Route route(int target) {
+        int[] ids = path(target);
+        return new Route(graph.toNames(ids, ids.length), distance[target]);
+    }
+
+    /**
+     * Memory footprint in ints, used as the cache weight
+     */
+    public long weight() {
+        return 2L * distance.length;
+    }
+}
@@ -0,0 +1,151 @@
+/**
+ * Unweighted traversals (DFS, BFS) over int vertex ids
+ * The stack and queue are allocated once per engine, and visited marks and
+ * parents live in a SearchWorkspace, so starting a traversal costs O(1)
+ * instead of clearing an array, and a traversal allocates nothing at all.
+ * An engine is not thread-safe; use one per thread.
+ * Time Complexity: O(V + E)
+ */
+public class Traversal implements SearchCounters {
+    private final IndexedGraph graph;
+    private final IntStack stack;
+    private final IntQueue queue;
+    private final SearchWorkspace workspace;   // reached = visited, previous = parent
+    private int visitedCount;
+    private int relaxedCount;
+    private int pushCount;
+
+    public Traversal(IndexedGraph graph) {
+        this(graph, new SearchWorkspace(graph.getCityCount()));
+    }
+
+    public Traversal(IndexedGraph graph, SearchWorkspace workspace) {
+        this.graph = graph;
+        this.workspace = workspace;
+        stack = new IntStack();
+        queue = new IntQueue();
+    }
+
+    public IndexedGraph getGraph() {
+        return graph;
+    }
+
+    public SearchWorkspace getWorkspace() {
+        return workspace;
+    }
+
+    /**
+     * Depth-first search from source until target is found: O(V + E)
+     * Finds a path, not necessarily shortest. Returns whether target was reached.
+     */
+    public boolean dfs(int source, int target) {
+        start(source);
+        stack.clear();
+        stack.push(source);
+
+        while (!stack.isEmpty()) {
+            int current = stack.pop();
+            visitedCount++;
+            if (current == target) {
+                return true;
+            }
+
+            int degree = graph.degree(current);
+            relaxedCount += degree;
+            for (int i = 0; i < degree; i++) {
+                int neighbor = graph.target(current, i);
+                if (!workspace.isReached(neighbor)) {
+                    visit(neighbor, current);
+                    stack.push(neighbor);
+                    pushCount++;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Breadth-first search from source until target is found: O(V + E)
+     * Finds a path with the fewest edges. Returns whether target was reached.
+     */
+    public boolean bfs(int source, int target) {
+        start(source);
+        queue.clear();
+        queue.enqueue(source);
+
+        while (!queue.isEmpty()) {
+            int current = queue.dequeue();
+            visitedCount++;
+            if (current == target) {
+                return true;
+            }
+
+            int degree = graph.degree(current);
+            relaxedCount += degree;
+            for (int i = 0; i < degree; i++) {
+                int neighbor = graph.target(current, i);
+                if (!workspace.isReached(neighbor)) {
+                    visit(neighbor, current);
+                    queue.enqueue(neighbor);
+                    pushCount++;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void start(int source) {
+        workspace.reset();
+        visitedCount = 0;
+        relaxedCount = 0;
+        pushCount = 1;
+        visit(source, -1);
+    }
+
+    private void visit(int city, int from) {
+        workspace.reach(city, 0, from);
+    }
+
+    /**
+     * Number of vertices taken off the stack or queue by the last traversal
+     */
+    public int getVisitedCount() {
+        return visitedCount;
+    }
+
+    @Override
+    public int getSettledCount() {
+        return visitedCount;
+    }
+
+    @Override
+    public int getRelaxedCount() {
+        return relaxedCount;
+    }
+
+    @Override
+    public int getPushCount() {
+        return pushCount;
+    }
+
+    /**
+     * Path from the last source to target as city ids: O(path length)
+     * Returns an empty array if target was not reached.
+     */
+    public int[] path(int target) {
+        if (!workspace.isReached(target)) {
+            return new int[0];
+        }
+
+        int length = 0;
+        for (int current = target; current != -1; current = workspace.previous(current)) {
+            length++;
+        }
+
+        int[] path = new int[length];
+        for (int current = target; current != -1; current = workspace.previous(current)) {
+            path[--length] = current;
+        }
+        return path;
+    }
+}
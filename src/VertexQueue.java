@@ -0,0 +1,29 @@
+/**
+ * Min-priority queue over int vertex ids with int keys and decrease-key
+ * What the label-setting searches need from their queue: each vertex is
+ * queued at most once and its key only goes down while queued.
+ * Implementations: IndexedHeap (any keys), RadixHeap (monotone keys, i.e.
+ * no key below the last minimum removed, as in Dijkstra).
+ */
+public interface VertexQueue {
+
+    boolean isEmpty();
+
+    int size();
+
+    boolean contains(int vertex);
+
+    void insert(int vertex, int key);
+
+    void decreaseKey(int vertex, int key);
+
+    void insertOrDecrease(int vertex, int key);
+
+    int peekKey();
+
+    int peek();
+
+    int poll();
+
+    void clear();
+}